@@ -9,6 +9,7 @@ dependencies {
     implementation(project(":build-cache"))
     implementation(project(":core-api"))
     implementation(project(":core"))
+    implementation(project(":file-temp"))
     implementation(project(":logging"))
     implementation(project(":resources"))
     implementation(project(":resources-http"))
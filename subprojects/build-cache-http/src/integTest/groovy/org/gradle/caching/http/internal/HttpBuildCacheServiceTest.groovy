@@ -20,11 +20,14 @@ import org.apache.http.HttpHeaders
 import org.apache.http.HttpStatus
 import org.gradle.api.UncheckedIOException
 import org.gradle.api.internal.DocumentationRegistry
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.api.internal.file.temp.TemporaryFileProvider
 import org.gradle.caching.BuildCacheEntryWriter
 import org.gradle.caching.BuildCacheException
 import org.gradle.caching.BuildCacheKey
 import org.gradle.caching.BuildCacheServiceFactory
 import org.gradle.caching.http.HttpBuildCache
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.internal.hash.HashCode
 import org.gradle.internal.resource.transport.http.DefaultSslContextFactory
 import org.gradle.internal.resource.transport.http.HttpClientHelper
@@ -57,30 +60,10 @@ class HttpBuildCacheServiceTest extends Specification {
 
     BuildCacheServiceFactory.Describer buildCacheDescriber
     HttpClientHelper.Factory httpClientHelperFactory = HttpClientHelper.Factory.createFactory(new DocumentationRegistry())
+    def executorFactory = new DefaultExecutorFactory()
+    TemporaryFileProvider temporaryFileProvider
 
-    def key = new BuildCacheKey() {
-        def hashCode = HashCode.fromString("01234567abcdef")
-
-        @Override
-        String getHashCode() {
-            return hashCode.toString()
-        }
-
-        @Override
-        String toString() {
-            return getHashCode()
-        }
-
-        @Override
-        byte[] toByteArray() {
-            return hashCode.toByteArray()
-        }
-
-        @Override
-        String getDisplayName() {
-            return getHashCode()
-        }
-    }
+    def key = keyWithHash("01234567abcdef")
     private config = new HttpBuildCache()
 
     HttpBuildCacheService cacheRef
@@ -88,13 +71,14 @@ class HttpBuildCacheServiceTest extends Specification {
     HttpBuildCacheService getCache() {
         if (cacheRef == null) {
             buildCacheDescriber = new NoopBuildCacheDescriber()
-            cacheRef = new DefaultHttpBuildCacheServiceFactory(new DefaultSslContextFactory(), { it.addHeader("X-Gradle-Version", "3.0") }, httpClientHelperFactory)
+            cacheRef = new DefaultHttpBuildCacheServiceFactory(new DefaultSslContextFactory(), { it.addHeader("X-Gradle-Version", "3.0") }, httpClientHelperFactory, executorFactory, temporaryFileProvider)
                 .createBuildCacheService(this.config, buildCacheDescriber) as HttpBuildCacheService
         }
         cacheRef
     }
 
     def setup() {
+        temporaryFileProvider = TestFiles.tmpDirTemporaryFileProvider(tempDir.createDir("tmp"))
         server.start()
         config.url = server.uri.resolve("/cache/")
     }
@@ -357,8 +341,83 @@ class HttpBuildCacheServiceTest extends Specification {
         server.authenticationAttempts == ['Basic'] as Set
     }
 
-    private HttpResourceInteraction expectError(int httpCode, String method) {
-        server.expect("/cache/${key.hashCode}", false, [method], new HttpServer.ActionSupport("return ${httpCode} broken") {
+    def "looks up multiple entries"() {
+        def otherKey = keyWithHash("fedcba9876543210")
+        server.expectHeadMissing("/cache/${key.hashCode}")
+        server.expectHead("/cache/${otherKey.hashCode}", tempDir.file("cached.zip") << "Data")
+
+        when:
+        def stored = cache.findStored([key, otherKey])
+
+        then:
+        stored.get() == [otherKey] as Set
+    }
+
+    def "fails to look up entries when the server responds with an error"() {
+        expectError(HttpStatus.SC_INTERNAL_SERVER_ERROR, 'HEAD')
+
+        when:
+        cache.findStored([key])
+
+        then:
+        BuildCacheException exception = thrown()
+        exception.message == "Looking up entry at '${server.uri}/cache/${key.hashCode}' response status 500: broken"
+    }
+
+    def "uploads entries in the background"() {
+        def destFile = tempDir.file("cached.zip")
+        def content = "Data".bytes
+        server.expectPut("/cache/${key.hashCode}", destFile, HttpStatus.SC_OK, null, content.length)
+        def backgroundCache = new BackgroundUploadingBuildCacheService(cache, executorFactory, temporaryFileProvider, 2, 4)
+
+        when:
+        backgroundCache.store(key, writer(content))
+        backgroundCache.close()
+
+        then:
+        destFile.bytes == content
+        temporaryFileProvider.newTemporaryFile("build-cache-uploads").list() as List == []
+    }
+
+    def "keeps uploading entries in the background after a recoverable failure"() {
+        def otherKey = keyWithHash("0123456789abcdef")
+        def destFile = tempDir.file("cached.zip")
+        def content = "Data".bytes
+        expectError(HttpStatus.SC_INTERNAL_SERVER_ERROR, 'PUT')
+        server.expectPut("/cache/${otherKey.hashCode}", destFile, HttpStatus.SC_OK, null, content.length)
+        def backgroundCache = new BackgroundUploadingBuildCacheService(cache, executorFactory, temporaryFileProvider, 1, 4)
+
+        when:
+        backgroundCache.store(key, writer(content))
+        backgroundCache.store(otherKey, writer(content))
+        backgroundCache.close()
+
+        then:
+        noExceptionThrown()
+        destFile.bytes == content
+    }
+
+    def "stops uploading entries in the background after a fatal failure"() {
+        expectError(HttpStatus.SC_UNAUTHORIZED, 'PUT')
+        def backgroundCache = new BackgroundUploadingBuildCacheService(cache, executorFactory, temporaryFileProvider, 1, 4)
+
+        when:
+        backgroundCache.store(key, writer("Data".bytes))
+        backgroundCache.close()
+
+        then:
+        noExceptionThrown()
+
+        when:
+        def writer = writer("Data".bytes)
+        backgroundCache.store(key, writer)
+
+        then:
+        writer.writeCount == 0
+    }
+
+    private HttpResourceInteraction expectError(int httpCode, String method, String path = "/cache/${key.hashCode}") {
+        server.expect(path, false, [method], new HttpServer.ActionSupport("return ${httpCode} broken") {
             @Override
             void handle(HttpServletRequest request, HttpServletResponse response) {
                 //noinspection GrDeprecatedAPIUsage
@@ -397,6 +456,32 @@ class HttpBuildCacheServiceTest extends Specification {
         }
     }
 
+    private static BuildCacheKey keyWithHash(String hash) {
+        new BuildCacheKey() {
+            def hashCode = HashCode.fromString(hash)
+
+            @Override
+            String getHashCode() {
+                return hashCode.toString()
+            }
+
+            @Override
+            String toString() {
+                return getHashCode()
+            }
+
+            @Override
+            byte[] toByteArray() {
+                return hashCode.toByteArray()
+            }
+
+            @Override
+            String getDisplayName() {
+                return getHashCode()
+            }
+        }
+    }
+
     private static Writer writer(byte[] content) {
         new Writer(content)
     }
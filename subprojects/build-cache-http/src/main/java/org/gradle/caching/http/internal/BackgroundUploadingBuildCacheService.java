@@ -0,0 +1,186 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.http.internal;
+
+import org.gradle.api.internal.file.temp.TemporaryFileProvider;
+import org.gradle.caching.BuildCacheEntryReader;
+import org.gradle.caching.BuildCacheEntryWriter;
+import org.gradle.caching.BuildCacheException;
+import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.BuildCacheService;
+import org.gradle.caching.internal.BatchLookupBuildCacheService;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link BuildCacheService} which uploads entries to the delegate in the background, so the thread storing an entry does not wait for the upload.
+ *
+ * <p>The entry is copied to a temporary file before {@link #store(BuildCacheKey, BuildCacheEntryWriter)} returns, since the writer is not usable afterwards.
+ * At most a fixed number of uploads are pending at a time; storing an entry blocks when the limit is reached.
+ * Pending uploads are finished when the service is closed, that is before the build finishes.</p>
+ *
+ * <p>Failures of background uploads cannot be reported to the work storing the entry, so each failed upload is logged.
+ * A {@link BuildCacheException} is considered recoverable, like a server error response, and later entries are still uploaded.
+ * Any other failure, like a rejected authentication, disables uploads; each entry which is not stored afterwards is logged at info level,
+ * and the number of entries that could not be stored is reported when the service is closed.</p>
+ *
+ * <p>Loads are not prefetched and requests are not multiplexed over HTTP/2, since the HTTP client used by the delegate only supports HTTP/1.1.
+ * Uploads use a small number of pooled connections instead.</p>
+ */
+public class BackgroundUploadingBuildCacheService implements BuildCacheService, BatchLookupBuildCacheService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BackgroundUploadingBuildCacheService.class);
+
+    private final BuildCacheService delegate;
+    private final TemporaryFileProvider temporaryFileProvider;
+    private final ManagedExecutor executor;
+    private final Semaphore pendingUploads;
+    private final AtomicInteger failedUploads = new AtomicInteger();
+    private volatile boolean uploadsDisabled;
+
+    public BackgroundUploadingBuildCacheService(BuildCacheService delegate, ExecutorFactory executorFactory, TemporaryFileProvider temporaryFileProvider, int uploadThreads, int maxPendingUploads) {
+        this.delegate = delegate;
+        this.temporaryFileProvider = temporaryFileProvider;
+        this.executor = executorFactory.create("Build cache uploads", uploadThreads);
+        this.pendingUploads = new Semaphore(maxPendingUploads);
+    }
+
+    @Override
+    public boolean load(BuildCacheKey key, BuildCacheEntryReader reader) throws BuildCacheException {
+        return delegate.load(key, reader);
+    }
+
+    @Override
+    public Optional<Set<BuildCacheKey>> findStored(Collection<BuildCacheKey> keys) throws BuildCacheException {
+        return delegate instanceof BatchLookupBuildCacheService
+            ? ((BatchLookupBuildCacheService) delegate).findStored(keys)
+            : Optional.empty();
+    }
+
+    @Override
+    public void store(BuildCacheKey key, BuildCacheEntryWriter writer) throws BuildCacheException {
+        if (uploadsDisabled) {
+            skipped(key);
+            return;
+        }
+        File entryFile = copyToTemporaryFile(key, writer);
+        try {
+            pendingUploads.acquire();
+        } catch (InterruptedException e) {
+            deleteQuietly(entryFile);
+            Thread.currentThread().interrupt();
+            throw new BuildCacheException("Interrupted while waiting for pending uploads", e);
+        }
+        try {
+            executor.execute(() -> upload(key, entryFile));
+        } catch (RuntimeException e) {
+            pendingUploads.release();
+            deleteQuietly(entryFile);
+            throw e;
+        }
+    }
+
+    private File copyToTemporaryFile(BuildCacheKey key, BuildCacheEntryWriter writer) {
+        File entryFile = temporaryFileProvider.createTemporaryFile("build-cache-upload-", ".bin", "build-cache-uploads");
+        try (OutputStream output = new FileOutputStream(entryFile)) {
+            writer.writeTo(output);
+        } catch (IOException e) {
+            deleteQuietly(entryFile);
+            throw new BuildCacheException("Could not prepare entry " + key.getHashCode() + " for uploading", e);
+        }
+        return entryFile;
+    }
+
+    private void upload(BuildCacheKey key, File entryFile) {
+        try {
+            if (uploadsDisabled) {
+                skipped(key);
+            } else {
+                delegate.store(key, new FileEntryWriter(entryFile));
+            }
+        } catch (BuildCacheException e) {
+            failedUploads.incrementAndGet();
+            LOGGER.warn("Could not store entry {} in remote build cache: {}", key.getHashCode(), e.getMessage());
+            LOGGER.debug("Failure storing entry {} in remote build cache", key.getHashCode(), e);
+        } catch (Exception e) {
+            failedUploads.incrementAndGet();
+            uploadsDisabled = true;
+            LOGGER.warn("Could not store entry {} in remote build cache, no further entries will be stored: {}", key.getHashCode(), e.getMessage());
+            LOGGER.debug("Failure storing entry {} in remote build cache", key.getHashCode(), e);
+        } finally {
+            deleteQuietly(entryFile);
+            pendingUploads.release();
+        }
+    }
+
+    private void skipped(BuildCacheKey key) {
+        failedUploads.incrementAndGet();
+        LOGGER.info("Not storing entry {} in remote build cache, since storing entries has been disabled after a failure", key.getHashCode());
+    }
+
+    private static void deleteQuietly(File file) {
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException e) {
+            LOGGER.debug("Could not delete {}", file, e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            // Waits for the pending uploads to finish
+            executor.stop();
+            int failed = failedUploads.get();
+            if (failed > 0) {
+                LOGGER.warn("{} {} could not be stored in remote build cache.", failed, failed == 1 ? "entry" : "entries");
+            }
+        } finally {
+            delegate.close();
+        }
+    }
+
+    private static class FileEntryWriter implements BuildCacheEntryWriter {
+        private final File file;
+
+        public FileEntryWriter(File file) {
+            this.file = file;
+        }
+
+        @Override
+        public void writeTo(OutputStream output) throws IOException {
+            Files.copy(file.toPath(), output);
+        }
+
+        @Override
+        public long getSize() {
+            return file.length();
+        }
+    }
+}
@@ -19,12 +19,14 @@
 import com.google.common.annotations.VisibleForTesting;
 import org.gradle.api.GradleException;
 import org.gradle.api.InvalidUserCodeException;
+import org.gradle.api.internal.file.temp.TemporaryFileProvider;
 import org.gradle.authentication.Authentication;
 import org.gradle.caching.BuildCacheService;
 import org.gradle.caching.BuildCacheServiceFactory;
 import org.gradle.caching.http.HttpBuildCache;
 import org.gradle.caching.http.HttpBuildCacheCredentials;
 import org.gradle.internal.authentication.DefaultBasicAuthentication;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.deprecation.Documentation;
 import org.gradle.internal.resource.transport.http.DefaultHttpSettings;
 import org.gradle.internal.resource.transport.http.HttpClientHelper;
@@ -46,15 +48,32 @@ public class DefaultHttpBuildCacheServiceFactory implements BuildCacheServiceFac
 
     private static final int MAX_REDIRECTS = Integer.getInteger("org.gradle.cache.http.max-redirects", 10);
 
+    /**
+     * When set to true, entries are uploaded to the HTTP build cache in the background.
+     */
+    public static final String BACKGROUND_UPLOADS_PROPERTY = "org.gradle.internal.cache.http.background-uploads";
+    private static final int UPLOAD_THREADS = 4;
+    private static final int MAX_PENDING_UPLOADS = 32;
+
     private final SslContextFactory sslContextFactory;
     private final HttpBuildCacheRequestCustomizer requestCustomizer;
     private final HttpClientHelper.Factory httpClientHelperFactory;
+    private final ExecutorFactory executorFactory;
+    private final TemporaryFileProvider temporaryFileProvider;
 
     @Inject
-    public DefaultHttpBuildCacheServiceFactory(SslContextFactory sslContextFactory, HttpBuildCacheRequestCustomizer requestCustomizer, HttpClientHelper.Factory httpClientHelperFactory) {
+    public DefaultHttpBuildCacheServiceFactory(
+        SslContextFactory sslContextFactory,
+        HttpBuildCacheRequestCustomizer requestCustomizer,
+        HttpClientHelper.Factory httpClientHelperFactory,
+        ExecutorFactory executorFactory,
+        TemporaryFileProvider temporaryFileProvider
+    ) {
         this.sslContextFactory = sslContextFactory;
         this.requestCustomizer = requestCustomizer;
         this.httpClientHelperFactory = httpClientHelperFactory;
+        this.executorFactory = executorFactory;
+        this.temporaryFileProvider = temporaryFileProvider;
     }
 
     @Override
@@ -105,7 +124,12 @@ public BuildCacheService createBuildCacheService(HttpBuildCache configuration, D
             .config("allowInsecureProtocol", Boolean.toString(allowInsecureProtocol))
             .config("useExpectContinue", Boolean.toString(useExpectContinue));
 
-        return new HttpBuildCacheService(httpClientHelper, noUserInfoUrl, requestCustomizer, useExpectContinue);
+        HttpBuildCacheService service = new HttpBuildCacheService(httpClientHelper, noUserInfoUrl, requestCustomizer, useExpectContinue, executorFactory);
+        if (Boolean.getBoolean(BACKGROUND_UPLOADS_PROPERTY)) {
+            describer.config("backgroundUploads", "true");
+            return new BackgroundUploadingBuildCacheService(service, executorFactory, temporaryFileProvider, UPLOAD_THREADS, MAX_PENDING_UPLOADS);
+        }
+        return service;
     }
 
     private HttpRedirectVerifier createRedirectVerifier(URI url, boolean allowInsecureProtocol) {
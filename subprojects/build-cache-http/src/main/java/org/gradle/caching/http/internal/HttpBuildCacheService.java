@@ -16,12 +16,15 @@
 
 package org.gradle.caching.http.internal;
 
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Uninterruptibles;
 import org.apache.http.HttpHeaders;
 import org.apache.http.HttpStatus;
 import org.apache.http.StatusLine;
 import org.apache.http.client.ClientProtocolException;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.entity.AbstractHttpEntity;
 import org.apache.http.protocol.HTTP;
@@ -31,7 +34,10 @@
 import org.gradle.caching.BuildCacheException;
 import org.gradle.caching.BuildCacheKey;
 import org.gradle.caching.BuildCacheService;
+import org.gradle.caching.internal.BatchLookupBuildCacheService;
 import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
 import org.gradle.internal.resource.transport.http.HttpClientHelper;
 import org.gradle.internal.resource.transport.http.HttpClientResponse;
 import org.slf4j.Logger;
@@ -42,14 +48,24 @@
 import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * Build cache implementation that delegates to a service accessible via HTTP.
+ *
+ * <p>Multiple keys are looked up with concurrent {@code HEAD} requests for their entries, which any server serving the entries supports.</p>
  */
-public class HttpBuildCacheService implements BuildCacheService {
+public class HttpBuildCacheService implements BuildCacheService, BatchLookupBuildCacheService {
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpBuildCacheService.class);
     static final String BUILD_CACHE_CONTENT_TYPE = "application/vnd.gradle.build-cache-artifact.v1";
+    private static final int LOOKUP_THREADS = 8;
 
     private static final Set<Integer> FATAL_HTTP_ERROR_CODES = ImmutableSet.of(
         HttpStatus.SC_USE_PROXY,
@@ -66,8 +82,9 @@ public class HttpBuildCacheService implements BuildCacheService {
     private final HttpClientHelper httpClientHelper;
     private final HttpBuildCacheRequestCustomizer requestCustomizer;
     private final boolean useExpectContinue;
+    private final ManagedExecutor lookupExecutor;
 
-    public HttpBuildCacheService(HttpClientHelper httpClientHelper, URI url, HttpBuildCacheRequestCustomizer requestCustomizer, boolean useExpectContinue) {
+    public HttpBuildCacheService(HttpClientHelper httpClientHelper, URI url, HttpBuildCacheRequestCustomizer requestCustomizer, boolean useExpectContinue, ExecutorFactory executorFactory) {
         this.requestCustomizer = requestCustomizer;
         this.useExpectContinue = useExpectContinue;
         if (!url.getPath().endsWith("/")) {
@@ -75,6 +92,7 @@ public HttpBuildCacheService(HttpClientHelper httpClientHelper, URI url, HttpBui
         }
         this.root = url;
         this.httpClientHelper = httpClientHelper;
+        this.lookupExecutor = executorFactory.create("Build cache lookups", LOOKUP_THREADS);
     }
 
     @Override
@@ -104,6 +122,55 @@ public boolean load(BuildCacheKey key, BuildCacheEntryReader reader) throws Buil
         }
     }
 
+    @Override
+    public Optional<Set<BuildCacheKey>> findStored(Collection<BuildCacheKey> keys) throws BuildCacheException {
+        Map<BuildCacheKey, Future<Boolean>> lookups = new LinkedHashMap<>();
+        try {
+            for (BuildCacheKey key : keys) {
+                lookups.put(key, lookupExecutor.submit(() -> isStored(key)));
+            }
+            Set<BuildCacheKey> storedKeys = new HashSet<>();
+            for (Map.Entry<BuildCacheKey, Future<Boolean>> lookup : lookups.entrySet()) {
+                if (Uninterruptibles.getUninterruptibly(lookup.getValue())) {
+                    storedKeys.add(lookup.getKey());
+                }
+            }
+            return Optional.of(storedKeys);
+        } catch (ExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw wrap(e.getCause());
+        } finally {
+            // Lookups which are not needed after a failure are not made
+            for (Future<Boolean> lookup : lookups.values()) {
+                lookup.cancel(false);
+            }
+        }
+    }
+
+    private boolean isStored(BuildCacheKey key) {
+        final URI uri = root.resolve("./" + key.getHashCode());
+        HttpHead httpHead = new HttpHead(uri);
+        requestCustomizer.customize(httpHead);
+
+        try (HttpClientResponse response = httpClientHelper.performHttpRequest(httpHead)) {
+            StatusLine statusLine = response.getStatusLine();
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Response for HEAD {}: {}", safeUri(uri), statusLine);
+            }
+            int statusCode = statusLine.getStatusCode();
+            if (isHttpSuccess(statusCode)) {
+                return true;
+            } else if (statusCode == HttpStatus.SC_NOT_FOUND) {
+                return false;
+            } else {
+                String defaultMessage = String.format("Looking up entry at '%s' response status %d: %s", safeUri(uri), statusCode, statusLine.getReasonPhrase());
+                return throwHttpStatusCodeException(statusCode, defaultMessage);
+            }
+        } catch (IOException e) {
+            throw wrap(e);
+        }
+    }
+
     @Override
     public void store(BuildCacheKey key, final BuildCacheEntryWriter output) throws BuildCacheException {
         final URI uri = root.resolve(key.getHashCode());
@@ -179,7 +246,11 @@ private boolean throwHttpStatusCodeException(int statusCode, String message) {
 
     @Override
     public void close() throws IOException {
-        httpClientHelper.close();
+        try {
+            lookupExecutor.stop();
+        } finally {
+            httpClientHelper.close();
+        }
     }
 
     /**
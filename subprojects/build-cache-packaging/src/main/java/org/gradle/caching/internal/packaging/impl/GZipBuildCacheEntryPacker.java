@@ -22,30 +22,51 @@
 import org.gradle.caching.internal.packaging.BuildCacheEntryPacker;
 import org.gradle.internal.snapshot.FileSystemSnapshot;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
 public class GZipBuildCacheEntryPacker implements BuildCacheEntryPacker {
+    private static final int INPUT_BUFFER_SIZE = 64 * 1024;
+
     private final BuildCacheEntryPacker delegate;
+    @Nullable
+    private final Executor compressionExecutor;
+    private final Semaphore pendingBlocksBudget;
 
     public GZipBuildCacheEntryPacker(BuildCacheEntryPacker delegate) {
+        this(delegate, null, new Semaphore(1));
+    }
+
+    /**
+     * Creates a packer which compresses blocks of the entry concurrently on the given executor, when present.
+     * The produced entries are regular GZIP data, so they can be unpacked by any packer.
+     * The blocks waiting to be compressed or written by all packed entries together are limited by the permits of the given semaphore.
+     */
+    public GZipBuildCacheEntryPacker(BuildCacheEntryPacker delegate, @Nullable Executor compressionExecutor, Semaphore pendingBlocksBudget) {
         this.delegate = delegate;
+        this.compressionExecutor = compressionExecutor;
+        this.pendingBlocksBudget = pendingBlocksBudget;
     }
 
     @Override
     public PackResult pack(CacheableEntity entity, Map<String, ? extends FileSystemSnapshot> snapshots, OutputStream output, OriginWriter writeOrigin) throws IOException {
-        try (GZIPOutputStream gzipOutput = new GZIPOutputStream(output)) {
+        try (OutputStream gzipOutput = compressionExecutor == null
+            ? new GZIPOutputStream(output)
+            : new ParallelGZipOutputStream(output, compressionExecutor, pendingBlocksBudget)) {
             return delegate.pack(entity, snapshots, gzipOutput, writeOrigin);
         }
     }
 
     @Override
     public UnpackResult unpack(CacheableEntity entity, InputStream input, OriginReader readOrigin) throws IOException {
-        try (GZIPInputStream gzipInput = new GZIPInputStream(input)) {
+        try (GZIPInputStream gzipInput = new GZIPInputStream(input, INPUT_BUFFER_SIZE)) {
             return delegate.unpack(entity, gzipInput, readOrigin);
         }
     }
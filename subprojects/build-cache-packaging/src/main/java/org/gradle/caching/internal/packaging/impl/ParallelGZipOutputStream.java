@@ -0,0 +1,229 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging.impl;
+
+import com.google.common.base.Throwables;
+
+import javax.annotation.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * An output stream producing GZIP data, which compresses fixed size blocks of its input concurrently.
+ *
+ * <p>The output is a single GZIP member, like the one written by {@link java.util.zip.GZIPOutputStream}.
+ * Each block is deflated separately and ends with a sync flush, so the compressed blocks can be concatenated into a single deflate stream.
+ * A block uses the end of the previous block as its dictionary, and the last block finishes the deflate stream.
+ * The checksum of the member is computed while the input is written.
+ * A single member is required, since {@link java.util.zip.GZIPInputStream} on some Java versions stops reading at the end of a member
+ * when the underlying stream reports that no bytes are available.
+ * Blocks are written in order.</p>
+ *
+ * <p>Each block that has been handed to the executor and not yet written takes a permit of the given semaphore,
+ * so streams sharing the semaphore keep at most as many blocks in memory together as the semaphore has permits.
+ * A stream writes its own pending blocks before it waits for a permit, so that streams never wait for each other while holding permits.</p>
+ */
+public class ParallelGZipOutputStream extends OutputStream {
+    private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+    private static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+
+    private final OutputStream out;
+    private final Executor executor;
+    private final int blockSize;
+    private final Semaphore pendingBlocksBudget;
+    private final Deque<CompletableFuture<byte[]>> pendingBlocks = new ArrayDeque<>();
+    private final CRC32 crc = new CRC32();
+    private long length;
+    private byte[] block;
+    private int blockLength;
+    private byte[] previousBlock;
+    private boolean headerWritten;
+    private boolean closed;
+
+    public ParallelGZipOutputStream(OutputStream out, Executor executor, Semaphore pendingBlocksBudget) {
+        this(out, executor, pendingBlocksBudget, DEFAULT_BLOCK_SIZE);
+    }
+
+    ParallelGZipOutputStream(OutputStream out, Executor executor, Semaphore pendingBlocksBudget, int blockSize) {
+        this.out = out;
+        this.executor = executor;
+        this.blockSize = blockSize;
+        this.pendingBlocksBudget = pendingBlocksBudget;
+        this.block = new byte[blockSize];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (blockLength == blockSize) {
+            submitBlock(false);
+        }
+        block[blockLength++] = (byte) b;
+        crc.update(b);
+        length++;
+    }
+
+    @Override
+    public void write(byte[] bytes, int off, int len) throws IOException {
+        crc.update(bytes, off, len);
+        length += len;
+        while (len > 0) {
+            if (blockLength == blockSize) {
+                submitBlock(false);
+            }
+            int count = Math.min(len, blockSize - blockLength);
+            System.arraycopy(bytes, off, block, blockLength, count);
+            blockLength += count;
+            off += count;
+            len -= count;
+        }
+    }
+
+    /**
+     * Flushes the blocks that have been compressed already. The current block is not compressed until it is full or the stream is closed,
+     * since compressing smaller blocks would make the compression ratio worse.
+     */
+    @Override
+    public void flush() throws IOException {
+        while (!pendingBlocks.isEmpty() && pendingBlocks.peekFirst().isDone()) {
+            writeNextBlock();
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            // The last block finishes the deflate stream, even when it is empty
+            submitBlock(true);
+            while (!pendingBlocks.isEmpty()) {
+                writeNextBlock();
+            }
+            writeTrailer();
+        } finally {
+            // Blocks which were not written after a failure give back their permits as well
+            pendingBlocksBudget.release(pendingBlocks.size());
+            pendingBlocks.clear();
+            out.close();
+        }
+    }
+
+    private void submitBlock(boolean last) throws IOException {
+        acquirePendingBlock();
+        byte[] data = block;
+        int dataLength = blockLength;
+        byte[] dictionary = previousBlock;
+        previousBlock = data;
+        block = last ? null : new byte[blockSize];
+        blockLength = 0;
+        pendingBlocks.addLast(CompletableFuture.supplyAsync(() -> compress(dictionary, data, dataLength, last), executor));
+    }
+
+    private void acquirePendingBlock() throws IOException {
+        while (!pendingBlocksBudget.tryAcquire()) {
+            if (pendingBlocks.isEmpty()) {
+                try {
+                    pendingBlocksBudget.acquire();
+                    return;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting to compress a block");
+                }
+            }
+            writeNextBlock();
+        }
+    }
+
+    private void writeNextBlock() throws IOException {
+        CompletableFuture<byte[]> nextBlock = pendingBlocks.removeFirst();
+        try {
+            byte[] compressed;
+            try {
+                compressed = nextBlock.join();
+            } catch (CompletionException e) {
+                Throwables.throwIfUnchecked(e.getCause());
+                throw e;
+            }
+            if (!headerWritten) {
+                out.write(HEADER);
+                headerWritten = true;
+            }
+            out.write(compressed);
+        } finally {
+            pendingBlocksBudget.release();
+        }
+    }
+
+    private void writeTrailer() throws IOException {
+        byte[] trailer = new byte[8];
+        writeIntLittleEndian(trailer, 0, (int) crc.getValue());
+        writeIntLittleEndian(trailer, 4, (int) length);
+        out.write(trailer);
+    }
+
+    private static byte[] compress(@Nullable byte[] dictionary, byte[] data, int length, boolean last) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            if (dictionary != null) {
+                // Previous blocks are always full
+                deflater.setDictionary(dictionary, dictionary.length - Math.min(dictionary.length, DICTIONARY_SIZE), Math.min(dictionary.length, DICTIONARY_SIZE));
+            }
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 2 + 64);
+            deflater.setInput(data, 0, length);
+            byte[] buffer = new byte[64 * 1024];
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    int count = deflater.deflate(buffer);
+                    compressed.write(buffer, 0, count);
+                }
+            } else {
+                // A sync flush ends the block on a byte boundary, without finishing the deflate stream
+                int count;
+                do {
+                    count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    compressed.write(buffer, 0, count);
+                } while (count == buffer.length);
+            }
+            return compressed.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void writeIntLittleEndian(byte[] output, int offset, int value) {
+        output[offset] = (byte) value;
+        output[offset + 1] = (byte) (value >> 8);
+        output[offset + 2] = (byte) (value >> 16);
+        output[offset + 3] = (byte) (value >> 24);
+    }
+}
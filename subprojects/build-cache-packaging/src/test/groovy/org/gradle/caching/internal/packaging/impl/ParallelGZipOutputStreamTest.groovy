@@ -0,0 +1,138 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging.impl
+
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Semaphore
+import java.util.concurrent.TimeUnit
+import java.util.zip.GZIPInputStream
+import java.util.zip.Inflater
+
+class ParallelGZipOutputStreamTest extends Specification {
+    @AutoCleanup("shutdownNow")
+    ExecutorService executor = Executors.newFixedThreadPool(4)
+    def pendingBlocksBudget = new Semaphore(4)
+
+    def "output of #length bytes can be read by GZIPInputStream"() {
+        def input = new byte[length]
+        def random = new Random(length)
+        // Alternate random and repeated content, so that some blocks compress well
+        for (int i = 0; i < length; i++) {
+            input[i] = i.intdiv(100) % 2 == 0 ? random.nextInt() as byte : 0 as byte
+        }
+
+        when:
+        def compressed = new ByteArrayOutputStream()
+        new ParallelGZipOutputStream(compressed, executor, pendingBlocksBudget, 1000).withStream { output ->
+            output.write(input, 0, length.intdiv(2))
+            output.write(input, length.intdiv(2), length - length.intdiv(2))
+        }
+
+        then:
+        new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray())).bytes == input
+        pendingBlocksBudget.availablePermits() == 4
+
+        where:
+        length << [0, 1, 999, 1000, 1001, 25000]
+    }
+
+    def "output of #length bytes is a single GZIP member"() {
+        def input = (0..<length).collect { it.intdiv(10) as byte } as byte[]
+
+        when:
+        def compressed = new ByteArrayOutputStream()
+        new ParallelGZipOutputStream(compressed, executor, pendingBlocksBudget, 1000).withStream { output ->
+            output.write(input)
+        }
+        def bytes = compressed.toByteArray()
+        def inflater = new Inflater(true)
+        inflater.setInput(bytes, 10, bytes.length - 10)
+        def inflated = new byte[length + 1]
+        def inflatedLength = inflater.inflate(inflated)
+
+        then:
+        inflater.finished()
+        inflatedLength == length
+        // Only the trailer of the member follows the deflate stream
+        inflater.remaining == 8
+
+        cleanup:
+        inflater.end()
+
+        where:
+        length << [0, 1000, 25000]
+    }
+
+    def "output can be read from a stream which reports no available bytes"() {
+        def input = (0..<25000).collect { it as byte } as byte[]
+
+        when:
+        def compressed = new ByteArrayOutputStream()
+        new ParallelGZipOutputStream(compressed, executor, pendingBlocksBudget, 1000).withStream { output ->
+            output.write(input)
+        }
+        def source = new FilterInputStream(new ByteArrayInputStream(compressed.toByteArray())) {
+            @Override
+            int available() {
+                return 0
+            }
+        }
+
+        then:
+        new GZIPInputStream(source).bytes == input
+    }
+
+    def "writes single bytes"() {
+        when:
+        def compressed = new ByteArrayOutputStream()
+        new ParallelGZipOutputStream(compressed, executor, pendingBlocksBudget, 4).withStream { output ->
+            "hello world".bytes.each { output.write(it) }
+        }
+
+        then:
+        new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray())).text == "hello world"
+    }
+
+    def "streams sharing a budget of a single block make progress"() {
+        def budget = new Semaphore(1)
+        def writers = Executors.newFixedThreadPool(2)
+        def input = (0..<50000).collect { it as byte } as byte[]
+
+        when:
+        def results = (1..2).collect {
+            writers.submit({
+                def compressed = new ByteArrayOutputStream()
+                new ParallelGZipOutputStream(compressed, executor, budget, 1000).withStream { output ->
+                    input.each { output.write(it) }
+                }
+                compressed.toByteArray()
+            } as Callable<byte[]>)
+        }*.get(1, TimeUnit.MINUTES)
+
+        then:
+        results.every { new GZIPInputStream(new ByteArrayInputStream(it)).bytes == input }
+        budget.availablePermits() == 1
+
+        cleanup:
+        writers.shutdownNow()
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.tasks;
+
+import com.google.common.collect.Interners;
+import org.apache.commons.io.FileUtils;
+import org.gradle.internal.hash.DefaultFileHasher;
+import org.gradle.internal.hash.DefaultStreamHasher;
+import org.gradle.internal.snapshot.impl.DirectorySnapshotter;
+import org.gradle.internal.snapshot.impl.DirectorySnapshotterStatistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Compares snapshotting a directory tree while hashing files on the walking thread with hashing them on a pool.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@State(Scope.Benchmark)
+public class DirectorySnapshottingBenchmark {
+    Path tempDirPath;
+    ExecutorService executor;
+    DirectorySnapshotter snapshotter;
+
+    @Param({"0", "4", "8"})
+    int hashingThreads;
+
+    @Param({"10", "100"})
+    int filesPerDirectory;
+
+    @Param({"4096", "65536"})
+    int fileSize;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        tempDirPath = Files.createTempDirectory("directory-snapshotting");
+        Random random = new Random(1234L);
+        byte[] content = new byte[fileSize];
+        for (int dir = 0; dir < 100; dir++) {
+            Path directory = Files.createDirectories(tempDirPath.resolve("dir" + dir % 10).resolve("sub" + dir));
+            for (int file = 0; file < filesPerDirectory; file++) {
+                random.nextBytes(content);
+                Files.write(directory.resolve("file" + file + ".txt"), content);
+            }
+        }
+        executor = hashingThreads == 0 ? null : Executors.newFixedThreadPool(hashingThreads);
+        snapshotter = new DirectorySnapshotter(
+            new DefaultFileHasher(new DefaultStreamHasher()),
+            Interners.newStrongInterner(),
+            Collections.emptyList(),
+            new DirectorySnapshotterStatistics.Collector(),
+            executor
+        );
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (executor != null) {
+            executor.shutdown();
+        }
+        FileUtils.forceDelete(tempDirPath.toFile());
+    }
+
+    @Benchmark
+    public void snapshot(Blackhole blackhole) {
+        blackhole.consume(snapshotter.snapshot(tempDirPath.toString(), null, blackhole::consume));
+    }
+}
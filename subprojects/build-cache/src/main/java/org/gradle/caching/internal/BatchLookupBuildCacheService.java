@@ -0,0 +1,39 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal;
+
+import org.gradle.caching.BuildCacheException;
+import org.gradle.caching.BuildCacheKey;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * An optional extension of a {@link org.gradle.caching.BuildCacheService}, which can check whether multiple entries are stored with a single request.
+ *
+ * A build cache service advertises support for the extension by implementing this interface.
+ */
+public interface BatchLookupBuildCacheService {
+
+    /**
+     * Returns the keys from the given keys which have an entry in the cache.
+     *
+     * Returns empty when the cache cannot look up multiple keys at once, for example when the server does not support it.
+     */
+    Optional<Set<BuildCacheKey>> findStored(Collection<BuildCacheKey> keys) throws BuildCacheException;
+}
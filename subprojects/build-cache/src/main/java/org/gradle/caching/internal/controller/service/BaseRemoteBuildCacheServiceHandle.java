@@ -19,12 +19,15 @@
 import org.gradle.caching.BuildCacheEntryReader;
 import org.gradle.caching.BuildCacheKey;
 import org.gradle.caching.BuildCacheService;
+import org.gradle.caching.internal.BatchLookupBuildCacheService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
 import java.io.File;
+import java.util.Collection;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 
 public class BaseRemoteBuildCacheServiceHandle implements RemoteBuildCacheServiceHandle {
@@ -96,6 +99,20 @@ private Optional<BuildCacheLoadResult> maybeUnpack(LoadTarget loadTarget, Functi
         return Optional.empty();
     }
 
+    @Override
+    public Optional<Set<BuildCacheKey>> maybeFindStored(Collection<BuildCacheKey> keys) {
+        if (!canLoad() || !(service instanceof BatchLookupBuildCacheService)) {
+            return Optional.empty();
+        }
+        LOGGER.debug("Look up {} entries in {} build cache", keys.size(), role.getDisplayName());
+        try {
+            return ((BatchLookupBuildCacheService) service).findStored(keys);
+        } catch (Exception e) {
+            failure("Could not look up " + keys.size() + " entries in " + role.getDisplayName() + " build cache", e);
+            return Optional.empty();
+        }
+    }
+
     @Override
     public boolean canStore() {
         return pushEnabled && !disabled;
@@ -122,11 +139,14 @@ protected void storeInner(String description, BuildCacheKey key, StoreTarget sto
     }
 
     private void failure(String verb, String preposition, BuildCacheKey key, Throwable e) {
+        failure("Could not " + verb + " entry " + key.getDisplayName() + " " + preposition + " " + role.getDisplayName() + " build cache", e);
+    }
+
+    private void failure(String description, Throwable e) {
         if (disableOnError) {
             disabled = true;
         }
 
-        String description = "Could not " + verb + " entry " + key.getDisplayName() + " " + preposition + " " + role.getDisplayName() + " build cache";
         if (LOGGER.isWarnEnabled()) {
             if (logStackTraces) {
                 LOGGER.warn(description, e);
@@ -21,7 +21,9 @@
 
 import javax.annotation.Nullable;
 import java.io.File;
+import java.util.Collection;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 
 public class NullRemoteBuildCacheServiceHandle implements RemoteBuildCacheServiceHandle {
@@ -44,6 +46,11 @@ public Optional<BuildCacheLoadResult> maybeLoad(BuildCacheKey key, File toFile,
         return Optional.empty();
     }
 
+    @Override
+    public Optional<Set<BuildCacheKey>> maybeFindStored(Collection<BuildCacheKey> keys) {
+        return Optional.empty();
+    }
+
     @Override
     public boolean canStore() {
         return false;
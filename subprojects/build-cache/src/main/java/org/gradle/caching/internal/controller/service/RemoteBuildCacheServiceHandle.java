@@ -23,7 +23,9 @@
 import javax.annotation.Nullable;
 import java.io.Closeable;
 import java.io.File;
+import java.util.Collection;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 
 public interface RemoteBuildCacheServiceHandle extends Closeable {
@@ -41,6 +43,15 @@ public interface RemoteBuildCacheServiceHandle extends Closeable {
      */
     Optional<BuildCacheLoadResult> maybeLoad(BuildCacheKey key, File toFile, Function<File, BuildCacheLoadResult> unpackFunction);
 
+    /**
+     * Looks up which of the given keys have an entry in the cache, when the cache supports looking up multiple keys at once.
+     *
+     * If canLoad() returns false or the cache does not support looking up multiple keys, then this method will return empty result.
+     *
+     * @see org.gradle.caching.internal.BatchLookupBuildCacheService
+     */
+    Optional<Set<BuildCacheKey>> maybeFindStored(Collection<BuildCacheKey> keys);
+
     boolean canStore();
 
     /**
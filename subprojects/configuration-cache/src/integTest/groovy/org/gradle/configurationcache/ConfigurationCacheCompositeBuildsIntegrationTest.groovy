@@ -16,6 +16,7 @@
 
 package org.gradle.configurationcache
 
+import org.gradle.configurationcache.initialization.ConfigurationCacheStartParameter
 import org.gradle.integtests.fixtures.BuildOperationTreeQueries
 import org.gradle.internal.operations.trace.BuildOperationRecord
 import org.gradle.internal.os.OperatingSystem
@@ -325,6 +326,54 @@ class ConfigurationCacheCompositeBuildsIntegrationTest extends AbstractConfigura
         order << ['lib', 'util'].permutations()
     }
 
+    def "can store state of included builds concurrently"() {
+        given:
+        settingsFile '''
+            includeBuild 'lib'
+            includeBuild 'util'
+        '''
+        buildFile '''
+            tasks.register('compileJava') {
+                gradle.includedBuilds.each { build ->
+                    dependsOn(build.task(':compileJava'))
+                }
+            }
+        '''
+        createDir('lib') {
+            file('settings.gradle') << 'rootProject.name = "lib"'
+            file('build.gradle') << '''
+                plugins { id 'java-library' }
+                group = 'com.example'
+                version = '1.0'
+            '''
+        }
+        createDir('util') {
+            file('settings.gradle') << 'rootProject.name = "util"'
+            file('build.gradle') << '''
+                plugins { id 'java-library' }
+                dependencies {
+                    api 'com.example:lib:1.0'
+                }
+            '''
+        }
+
+        def configurationCache = newConfigurationCacheFixture()
+
+        when:
+        configurationCacheRun 'compileJava', '--parallel', "-D${ConfigurationCacheStartParameter.PARALLEL_STORE_PROPERTY}=true"
+
+        then:
+        configurationCache.assertStateStored()
+        configurationCache.operations.all(Pattern.compile(/Store configuration cache state of .*/)).size() == 2
+
+        when:
+        configurationCacheRun 'compileJava', '--parallel', "-D${ConfigurationCacheStartParameter.PARALLEL_STORE_PROPERTY}=true"
+
+        then:
+        configurationCache.assertStateLoaded()
+        result.assertTaskOrder(':lib:compileJava', ':util:compileJava', ':compileJava')
+    }
+
     private static withEnterprisePlugin(TestFile settingsDir) {
         ApplyGradleEnterprisePluginFixture.applyEnterprisePlugin(
             settingsDir.file('settings.gradle')
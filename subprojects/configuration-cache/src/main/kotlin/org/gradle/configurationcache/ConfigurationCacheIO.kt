@@ -52,6 +52,10 @@ import org.gradle.util.Path
 import java.io.File
 import java.io.InputStream
 import java.io.OutputStream
+import java.util.zip.Deflater
+import java.util.zip.DeflaterOutputStream
+import java.util.zip.Inflater
+import java.util.zip.InflaterInputStream
 
 
 @ServiceScope(Scopes.Gradle::class)
@@ -166,7 +170,7 @@ class ConfigurationCacheIO internal constructor(
         action: suspend DefaultReadContext.(ConfigurationCacheState) -> T
     ): T {
         return withReadContextFor(stateFile.inputStream()) { codecs ->
-            ConfigurationCacheState(codecs, stateFile).run {
+            ConfigurationCacheState(codecs, stateFile, startParameter.isParallelStore).run {
                 action(this)
             }
         }
@@ -181,7 +185,7 @@ class ConfigurationCacheIO internal constructor(
         val (context, codecs) = writerContextFor(stateFile.outputStream(), build.gradle.owner.displayName.displayName + " state")
         return context.useToRun {
             runWriteOperation {
-                action(ConfigurationCacheState(codecs, stateFile))
+                action(ConfigurationCacheState(codecs, stateFile, startParameter.isParallelStore))
             }
         }
     }
@@ -206,7 +210,7 @@ class ConfigurationCacheIO internal constructor(
 
     internal
     fun writerContextFor(outputStream: OutputStream, profile: String): Pair<DefaultWriteContext, Codecs> =
-        KryoBackedEncoder(outputStream).let { encoder ->
+        KryoBackedEncoder(stateOutputStreamFor(outputStream)).let { encoder ->
             writeContextFor(
                 encoder,
                 loggingTracerFor(profile, encoder),
@@ -256,7 +260,55 @@ class ConfigurationCacheIO internal constructor(
     private
     fun readerContextFor(
         inputStream: InputStream,
-    ) = readerContextFor(KryoBackedDecoder(inputStream))
+    ) = readerContextFor(KryoBackedDecoder(stateInputStreamFor(inputStream)))
+
+    /**
+     * Writes the format of the state, so it can be read regardless of the current settings.
+     */
+    private
+    fun stateOutputStreamFor(outputStream: OutputStream): OutputStream =
+        if (startParameter.isCompressState) {
+            outputStream.write(compressedState)
+            DeflatedStateOutputStream(outputStream)
+        } else {
+            outputStream.write(uncompressedState)
+            outputStream
+        }
+
+    private
+    fun stateInputStreamFor(inputStream: InputStream): InputStream =
+        when (val format = inputStream.read()) {
+            compressedState -> DeflatedStateInputStream(inputStream)
+            uncompressedState -> inputStream
+            else -> throw IllegalStateException("Unexpected configuration cache state format: $format")
+        }
+
+    /**
+     * Compresses for speed rather than size, as the state is decompressed on every cache hit.
+     */
+    private
+    class DeflatedStateOutputStream(outputStream: OutputStream) :
+        DeflaterOutputStream(outputStream, Deflater(Deflater.BEST_SPEED), stateBufferSize) {
+        override fun close() {
+            try {
+                super.close()
+            } finally {
+                def.end()
+            }
+        }
+    }
+
+    private
+    class DeflatedStateInputStream(inputStream: InputStream) :
+        InflaterInputStream(inputStream, Inflater(), stateBufferSize) {
+        override fun close() {
+            try {
+                super.close()
+            } finally {
+                inf.end()
+            }
+        }
+    }
 
     internal
     fun readerContextFor(
@@ -334,3 +386,15 @@ class ConfigurationCacheIO internal constructor(
     inline fun <reified T> factory() =
         host.factory(T::class.java)
 }
+
+
+private
+const val uncompressedState = 0
+
+
+private
+const val compressedState = 1
+
+
+private
+const val stateBufferSize = 64 * 1024
@@ -16,6 +16,7 @@
 
 package org.gradle.configurationcache
 
+import com.google.common.collect.Sets.newConcurrentHashSet
 import org.gradle.api.artifacts.component.BuildIdentifier
 import org.gradle.api.file.FileCollection
 import org.gradle.api.internal.BuildDefinition
@@ -105,7 +106,8 @@ interface ConfigurationCacheStateFile {
 internal
 class ConfigurationCacheState(
     private val codecs: Codecs,
-    private val stateFile: ConfigurationCacheStateFile
+    private val stateFile: ConfigurationCacheStateFile,
+    private val parallelStore: Boolean
 ) {
     /**
      * Writes the state for the whole build starting from the given root [build] and returns the set
@@ -389,8 +391,9 @@ class ConfigurationCacheState(
 
     private
     suspend fun DefaultWriteContext.writeChildBuilds(gradle: GradleInternal, buildTreeState: StoredBuildTreeState) {
+        val includedBuildStates = mutableListOf<StoreIncludedBuildState>()
         writeCollection(gradle.includedBuilds()) {
-            writeIncludedBuildState(it, buildTreeState)
+            writeIncludedBuildState(it, buildTreeState)?.let(includedBuildStates::add)
         }
         if (gradle.serviceOf<VcsMappingsStore>().asResolver().hasRules()) {
             logNotImplemented(
@@ -401,8 +404,56 @@ class ConfigurationCacheState(
         } else {
             writeBoolean(false)
         }
+        storeIncludedBuildStates(gradle, includedBuildStates)
     }
 
+    /**
+     * Writes the state files of the given included builds. Each included build is stored to its own file
+     * and only requires the locks of its own projects, so the files can be written concurrently.
+     */
+    private
+    fun storeIncludedBuildStates(gradle: GradleInternal, includedBuildStates: List<StoreIncludedBuildState>) {
+        if (parallelStore && includedBuildStates.size > 1) {
+            gradle.serviceOf<BuildOperationExecutor>().runAllWithAccessToProjectState<StoreIncludedBuildState> {
+                includedBuildStates.forEach { add(it) }
+            }
+        } else {
+            includedBuildStates.forEach { it.store() }
+        }
+    }
+
+    private
+    inner class StoreIncludedBuildState(
+        private val includedBuild: IncludedBuildState,
+        private val buildDefinition: BuildDefinition,
+        private val buildTreeState: StoredBuildTreeState
+    ) : RunnableBuildOperation {
+
+        fun store() {
+            val includedGradle = includedBuild.mutableModel
+            includedBuild.projects.withMutableStateOfAllProjects {
+                includedGradle.serviceOf<ConfigurationCacheIO>().writeIncludedBuildStateTo(
+                    stateFileFor(buildDefinition),
+                    buildTreeState
+                )
+            }
+        }
+
+        override fun run(context: BuildOperationContext) =
+            store()
+
+        override fun description(): BuildOperationDescriptor.Builder =
+            BuildOperationDescriptor.displayName("Store configuration cache state of ${includedBuild.displayName.displayName}")
+    }
+
+    /**
+     * Reads the included builds of the given build, one after the other.
+     *
+     * Unlike [storeIncludedBuildStates], the state files are not read concurrently. Reading an included build
+     * registers the build, and its own included builds, with the [BuildStateRegistry]. The registry is not
+     * thread safe and assigns build identifiers in registration order, so reading the files concurrently
+     * could give the builds different identifiers from one run to the next.
+     */
     private
     suspend fun DefaultReadContext.readChildBuildsOf(
         parentBuild: ConfigurationCacheBuild
@@ -420,36 +471,36 @@ class ConfigurationCacheState(
         return includedBuilds.mapNotNull { it.second }
     }
 
+    /**
+     * Writes the reference to the given included build, and returns the operation that stores
+     * the state of the included build, if its state should be stored.
+     */
     private
     suspend fun DefaultWriteContext.writeIncludedBuildState(
         reference: IncludedBuildInternal,
         buildTreeState: StoredBuildTreeState
-    ) {
-        when (val target = reference.target) {
+    ): StoreIncludedBuildState? {
+        return when (val target = reference.target) {
             is IncludedBuildState -> {
                 writeBoolean(true)
-                val includedGradle = target.mutableModel
-                val buildDefinition = includedGradle.serviceOf<BuildDefinition>()
+                val buildDefinition = target.mutableModel.serviceOf<BuildDefinition>()
                 writeBuildDefinition(buildDefinition)
                 when {
                     buildTreeState.storedBuilds.store(buildDefinition) -> {
                         writeBoolean(true)
-                        target.projects.withMutableStateOfAllProjects {
-                            includedGradle.serviceOf<ConfigurationCacheIO>().writeIncludedBuildStateTo(
-                                stateFileFor(buildDefinition),
-                                buildTreeState
-                            )
-                        }
+                        StoreIncludedBuildState(target, buildDefinition, buildTreeState)
                     }
 
                     else -> {
                         writeBoolean(false)
+                        null
                     }
                 }
             }
 
             is RootBuildState -> {
                 writeBoolean(false)
+                null
             }
 
             else -> {
@@ -659,7 +710,8 @@ class ConfigurationCacheState(
 
     private
     fun storedBuilds() = object : StoredBuilds {
-        val buildRootDirs = hashSetOf<File>()
+        // Included builds may be stored concurrently, see storeIncludedBuildStates
+        val buildRootDirs = newConcurrentHashSet<File>()
         override fun store(build: BuildDefinition): Boolean =
             buildRootDirs.add(build.buildRootDir!!)
     }
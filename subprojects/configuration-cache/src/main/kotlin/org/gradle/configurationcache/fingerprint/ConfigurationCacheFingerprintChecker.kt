@@ -29,6 +29,9 @@ import org.gradle.internal.hash.HashCode
 import org.gradle.internal.util.NumberUtil.ordinal
 import org.gradle.util.Path
 import java.io.File
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+import java.util.concurrent.Executor
 import java.util.function.Consumer
 
 
@@ -50,24 +53,51 @@ class ConfigurationCacheFingerprintChecker(private val host: Host) {
         fun hashCodeOf(file: File): HashCode?
         fun displayNameOf(fileOrDirectory: File): String
         fun instantiateValueSourceOf(obtainedValue: ObtainedValue): ValueSource<Any, ValueSourceParameters>
+
+        /**
+         * The executor used to check file system inputs concurrently, or `null` to check them on the calling thread.
+         */
+        val fileSystemInputsExecutor: Executor?
     }
 
     suspend fun ReadContext.checkBuildScopedFingerprint(): CheckedFingerprint {
         // TODO: log some debug info
-        while (true) {
-            when (val input = read()) {
-                null -> break
-                is ConfigurationCacheFingerprint -> {
-                    // An input that is not specific to a project. If it is out-of-date, then invalidate the whole cache entry and skip any further checks
-                    val reason = check(input)
-                    if (reason != null) {
-                        return CheckedFingerprint.EntryInvalid(reason)
+        val fileSystemInputChecks = FileSystemInputChecks(host.fileSystemInputsExecutor)
+        try {
+            while (true) {
+                val input = try {
+                    read()
+                } catch (e: Exception) {
+                    // An input checked in the background may have changed in a way that prevents reading the following inputs,
+                    // for example a build logic jar, in which case the change is reported as if the inputs were checked in order
+                    fileSystemInputChecks.firstInvalidationReason()?.let {
+                        return CheckedFingerprint.EntryInvalid(it)
                     }
+                    throw e
+                }
+                when (input) {
+                    null -> break
+                    is ConfigurationCacheFingerprint -> {
+                        // An input that is not specific to a project. If it is out-of-date, then invalidate the whole cache entry and skip any further checks
+                        val reason = if (fileSystemInputChecks.submit(input)) {
+                            fileSystemInputChecks.completedInvalidationReason()
+                        } else {
+                            // Inputs checked in the background come first
+                            fileSystemInputChecks.firstInvalidationReason() ?: check(input)
+                        }
+                        if (reason != null) {
+                            return CheckedFingerprint.EntryInvalid(reason)
+                        }
+                    }
+                    else -> throw IllegalStateException("Unexpected configuration cache fingerprint: $input")
                 }
-                else -> throw IllegalStateException("Unexpected configuration cache fingerprint: $input")
             }
+            return fileSystemInputChecks.firstInvalidationReason()?.let {
+                CheckedFingerprint.EntryInvalid(it)
+            } ?: CheckedFingerprint.Valid
+        } finally {
+            fileSystemInputChecks.cancel()
         }
-        return CheckedFingerprint.Valid
     }
 
     suspend fun ReadContext.checkProjectScopedFingerprint(): CheckedFingerprint {
@@ -275,6 +305,69 @@ class ConfigurationCacheFingerprintChecker(private val host: Host) {
             it.displayName + " has changed"
         } ?: "a build logic input of type '${unpackType(valueSource).simpleName}' has changed"
 
+    /**
+     * Checks file and file collection inputs on an executor while the following inputs are read.
+     * The results are consumed in the order the inputs were recorded, so the reported invalidation reason
+     * is the same as when checking the inputs one after the other.
+     */
+    private
+    inner class FileSystemInputChecks(private val executor: Executor?) {
+
+        private
+        val pending = ArrayDeque<CompletableFuture<InvalidationReason?>>()
+
+        /**
+         * Starts checking the given input in the background, when it is a file system input.
+         * Returns false when the input needs to be checked by the caller.
+         */
+        fun submit(input: ConfigurationCacheFingerprint): Boolean {
+            if (executor == null || !(input is ConfigurationCacheFingerprint.InputFile || input is ConfigurationCacheFingerprint.WorkInputs)) {
+                return false
+            }
+            pending.addLast(CompletableFuture.supplyAsync({ check(input) }, executor))
+            return true
+        }
+
+        /**
+         * Returns the reason for the first change found by the checks that have completed so far, in order.
+         */
+        fun completedInvalidationReason(): InvalidationReason? {
+            while (pending.isNotEmpty() && pending.first().isDone) {
+                val reason = resultOf(pending.removeFirst())
+                if (reason != null) {
+                    return reason
+                }
+            }
+            return null
+        }
+
+        /**
+         * Waits for the pending checks and returns the reason for the first change found, in order.
+         */
+        fun firstInvalidationReason(): InvalidationReason? {
+            while (pending.isNotEmpty()) {
+                val reason = resultOf(pending.removeFirst())
+                if (reason != null) {
+                    return reason
+                }
+            }
+            return null
+        }
+
+        fun cancel() {
+            pending.forEach { it.cancel(false) }
+            pending.clear()
+        }
+
+        private
+        fun resultOf(check: CompletableFuture<InvalidationReason?>): InvalidationReason? =
+            try {
+                check.join()
+            } catch (e: CompletionException) {
+                throw e.cause ?: e
+            }
+    }
+
     private
     class ProjectInvalidationState {
         // When true, the project is definitely invalid
@@ -35,6 +35,7 @@ import org.gradle.configurationcache.serialization.DefaultWriteContext
 import org.gradle.configurationcache.serialization.ReadContext
 import org.gradle.configurationcache.services.EnvironmentChangeTracker
 import org.gradle.internal.buildtree.BuildModelParameters
+import org.gradle.internal.concurrent.ExecutorFactory
 import org.gradle.internal.concurrent.Stoppable
 import org.gradle.internal.event.ListenerManager
 import org.gradle.internal.execution.TaskExecutionTracker
@@ -55,6 +56,7 @@ import java.io.File
 import java.io.FileOutputStream
 import java.io.OutputStream
 import java.nio.file.Files
+import java.util.concurrent.Executor
 
 
 /**
@@ -76,6 +78,7 @@ class ConfigurationCacheFingerprintController internal constructor(
     private val userCodeApplicationContext: UserCodeApplicationContext,
     private val taskExecutionTracker: TaskExecutionTracker,
     private val environmentChangeTracker: EnvironmentChangeTracker,
+    private val executorFactory: ExecutorFactory,
 ) : Stoppable {
 
     interface Host {
@@ -239,8 +242,10 @@ class ConfigurationCacheFingerprintController internal constructor(
     }
 
     suspend fun ReadContext.checkBuildScopedFingerprint(host: Host): CheckedFingerprint =
-        ConfigurationCacheFingerprintChecker(CacheFingerprintCheckerHost(host)).run {
-            checkBuildScopedFingerprint()
+        withFileSystemInputsExecutor { executor ->
+            ConfigurationCacheFingerprintChecker(CacheFingerprintCheckerHost(host, executor)).run {
+                checkBuildScopedFingerprint()
+            }
         }
 
     suspend fun ReadContext.checkProjectScopedFingerprint(host: Host): CheckedFingerprint =
@@ -255,6 +260,19 @@ class ConfigurationCacheFingerprintController internal constructor(
             }
         }
 
+    private
+    inline fun <T> withFileSystemInputsExecutor(action: (Executor?) -> T): T {
+        if (!startParameter.isParallelFingerprintCheck) {
+            return action(null)
+        }
+        val executor = executorFactory.create("Configuration cache fingerprint checks", Runtime.getRuntime().availableProcessors())
+        try {
+            return action(executor)
+        } finally {
+            executor.stop()
+        }
+    }
+
     private
     fun addListener(listener: ConfigurationCacheFingerprintWriter) {
         listenerManager.addListener(listener)
@@ -304,7 +322,8 @@ class ConfigurationCacheFingerprintController internal constructor(
 
     private
     inner class CacheFingerprintCheckerHost(
-        private val host: Host
+        private val host: Host,
+        override val fileSystemInputsExecutor: Executor? = null
     ) : ConfigurationCacheFingerprintChecker.Host {
 
         private
@@ -32,6 +32,12 @@ class ConfigurationCacheStartParameter(
     startParameter: StartParameter
 ) {
 
+    companion object {
+        const val PARALLEL_STORE_PROPERTY = "org.gradle.internal.configuration-cache.parallel-store"
+        const val PARALLEL_FINGERPRINT_CHECK_PROPERTY = "org.gradle.internal.configuration-cache.parallel-fingerprint-check"
+        const val COMPRESS_STATE_PROPERTY = "org.gradle.internal.configuration-cache.compress-state"
+    }
+
     private
     val startParameter = startParameter as StartParameterInternal
 
@@ -53,6 +59,26 @@ class ConfigurationCacheStartParameter(
     val recreateCache: Boolean
         get() = startParameter.isConfigurationCacheRecreateCache
 
+    /**
+     * Whether the state files of included builds are written concurrently.
+     *
+     * The state files are always read sequentially, see [ConfigurationCacheState].
+     */
+    val isParallelStore: Boolean
+        get() = isEnabled(PARALLEL_STORE_PROPERTY)
+
+    /**
+     * Whether the file system inputs recorded in the fingerprint are checked concurrently.
+     */
+    val isParallelFingerprintCheck: Boolean
+        get() = isEnabled(PARALLEL_FINGERPRINT_CHECK_PROPERTY)
+
+    /**
+     * Whether the state files of new cache entries are compressed.
+     */
+    val isCompressState: Boolean
+        get() = isEnabled(COMPRESS_STATE_PROPERTY)
+
     /**
      * See [StartParameter.getProjectDir].
      */
@@ -99,4 +125,8 @@ class ConfigurationCacheStartParameter(
 
     val includedBuilds: List<File>
         get() = startParameter.includedBuilds
+
+    private
+    fun isEnabled(systemPropertyName: String) =
+        "true".equals(startParameter.systemPropertiesArgs[systemPropertyName], true)
 }
@@ -16,6 +16,8 @@
 
 package org.gradle.configurationcache.serialization
 
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap
+import it.unimi.dsi.fastutil.objects.ObjectArrayList
 import it.unimi.dsi.fastutil.objects.ReferenceArrayList
 import org.gradle.api.internal.initialization.ClassLoaderScope
 import org.gradle.api.internal.project.ProjectInternal
@@ -67,6 +69,11 @@ class DefaultWriteContext(
     private
     val scopes = WriteIdentities()
 
+    private
+    val strings = Object2IntOpenHashMap<String>().apply {
+        defaultReturnValue(-1)
+    }
+
     /**
      * Closes the given [encoder] if it is [AutoCloseable].
      */
@@ -136,9 +143,22 @@ class DefaultWriteContext(
         }
     }
 
-    // TODO: consider interning strings
-    override fun writeString(string: CharSequence) =
-        encoder.writeString(string)
+    /**
+     * Writes each distinct string once, and refers to it by id afterwards,
+     * as build state repeats the same paths, names and display names many times.
+     */
+    override fun writeString(string: CharSequence) {
+        val value = string.toString()
+        val id = strings.getInt(value)
+        if (id != -1) {
+            writeSmallInt(id)
+        } else {
+            val newId = strings.size
+            strings.put(value, newId)
+            writeSmallInt(newId)
+            encoder.writeString(value)
+        }
+    }
 
     override fun newIsolate(owner: IsolateOwner): WriteIsolate =
         DefaultWriteIsolate(owner)
@@ -219,6 +239,9 @@ class DefaultReadContext(
     private
     val scopes = ReadIdentities()
 
+    private
+    val strings = ObjectArrayList<String>()
+
     private
     lateinit var projectProvider: ProjectProvider
 
@@ -265,6 +288,16 @@ class DefaultReadContext(
     override fun beanStateReaderFor(beanType: Class<*>): BeanStateReader =
         beanStateReaderLookup.beanStateReaderFor(beanType)
 
+    override fun readString(): String {
+        val id = readSmallInt()
+        if (id < strings.size) {
+            return strings[id]
+        }
+        val string = decoder.readString()
+        strings.add(string)
+        return string
+    }
+
     override fun readClass(): Class<*> {
         val id = readSmallInt()
         val type = classes.getInstance(id)
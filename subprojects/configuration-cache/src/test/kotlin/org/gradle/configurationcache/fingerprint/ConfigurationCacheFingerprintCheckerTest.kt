@@ -18,6 +18,7 @@ package org.gradle.configurationcache.fingerprint
 
 import com.nhaarman.mockitokotlin2.any
 import com.nhaarman.mockitokotlin2.doReturn
+import com.nhaarman.mockitokotlin2.doThrow
 import com.nhaarman.mockitokotlin2.mock
 import org.gradle.api.Describable
 import org.gradle.api.internal.project.ProjectInternal
@@ -53,6 +54,7 @@ import org.junit.Test
 import java.io.File
 import java.io.InputStream
 import java.io.OutputStream
+import java.util.concurrent.Executors
 
 
 class ConfigurationCacheFingerprintCheckerTest {
@@ -201,6 +203,60 @@ class ConfigurationCacheFingerprintCheckerTest {
         )
     }
 
+    @Test
+    fun `first changed file is reported when files are checked concurrently`() {
+        val files = (1..20).map { File("file$it.txt") }
+        val executor = Executors.newFixedThreadPool(4)
+        try {
+            assertThat(
+                checkFingerprintGiven(
+                    mock {
+                        on { fileSystemInputsExecutor } doReturn executor
+                        on { hashCodeOf(any()) }.then { invocation ->
+                            val file = invocation.getArgument<File>(0)
+                            // Complete the later checks first
+                            Thread.sleep(files.size - files.indexOf(file).toLong())
+                            TestHashCodes.hashCodeFrom(if (file.name == "file7.txt" || file.name == "file15.txt") 2 else 1)
+                        }
+                        on { displayNameOf(any()) }.then { invocation ->
+                            invocation.getArgument<File>(0).name
+                        }
+                    },
+                    files.map { ConfigurationCacheFingerprint.InputFile(it, TestHashCodes.hashCodeFrom(1)) }
+                ),
+                equalTo("file 'file7.txt' has changed")
+            )
+        } finally {
+            executor.shutdownNow()
+        }
+    }
+
+    @Test
+    fun `changed file is reported before later inputs are checked when files are checked concurrently`() {
+        val scriptFile = File("build.gradle.kts")
+        val obtainedValue = obtainedValueMock()
+        val executor = Executors.newFixedThreadPool(2)
+        try {
+            assertThat(
+                checkFingerprintGiven(
+                    mock {
+                        on { fileSystemInputsExecutor } doReturn executor
+                        on { hashCodeOf(scriptFile) } doReturn TestHashCodes.hashCodeFrom(2)
+                        on { displayNameOf(scriptFile) } doReturn "build.gradle.kts"
+                        on { instantiateValueSourceOf(obtainedValue) } doThrow IllegalStateException("should not be checked")
+                    },
+                    listOf(
+                        ConfigurationCacheFingerprint.InputFile(scriptFile, TestHashCodes.hashCodeFrom(1)),
+                        ConfigurationCacheFingerprint.ValueSource(obtainedValue)
+                    )
+                ),
+                equalTo("file 'build.gradle.kts' has changed")
+            )
+        } finally {
+            executor.shutdownNow()
+        }
+    }
+
     private
     fun invalidationReasonForInitScriptsChange(
         from: Iterable<Pair<File, HashCode?>>,
@@ -226,10 +282,17 @@ class ConfigurationCacheFingerprintCheckerTest {
     fun checkFingerprintGiven(
         host: ConfigurationCacheFingerprintChecker.Host,
         fingerprint: ConfigurationCacheFingerprint
+    ): InvalidationReason? =
+        checkFingerprintGiven(host, listOf(fingerprint))
+
+    private
+    fun checkFingerprintGiven(
+        host: ConfigurationCacheFingerprintChecker.Host,
+        fingerprints: List<ConfigurationCacheFingerprint>
     ): InvalidationReason? {
 
         val readContext = recordWritingOf {
-            write(fingerprint)
+            fingerprints.forEach { write(it) }
             write(null)
         }
 
@@ -89,6 +89,15 @@ class UserTypesCodecTest : AbstractUserTypeCodecTest() {
         }
     }
 
+    @Test
+    fun `can handle repeated strings`() {
+        val strings = listOf("one", "two", "one", "", "three", "two", "", "one")
+        assertThat(
+            configurationCacheRoundtripOf(strings),
+            equalTo(strings)
+        )
+    }
+
     @Test
     fun `Peano sanity check`() {
 
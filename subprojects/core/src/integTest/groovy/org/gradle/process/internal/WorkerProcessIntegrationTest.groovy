@@ -24,12 +24,14 @@ import org.gradle.internal.Actions
 import org.gradle.internal.id.LongIdGenerator
 import org.gradle.internal.jvm.inspection.CachingJvmMetadataDetector
 import org.gradle.internal.jvm.inspection.DefaultJvmVersionDetector
+import org.gradle.internal.jvm.inspection.JvmVersionDetector
 import org.gradle.internal.remote.ObjectConnectionBuilder
 import org.gradle.process.internal.health.memory.MemoryManager
 import org.gradle.process.internal.worker.DefaultWorkerProcessFactory
 import org.gradle.process.internal.worker.WorkerProcess
 import org.gradle.process.internal.worker.WorkerProcessBuilder
 import org.gradle.process.internal.worker.WorkerProcessContext
+import org.gradle.process.internal.worker.child.WorkerClassDataSharing
 import org.gradle.util.Requires
 import org.gradle.util.TestPrecondition
 import org.gradle.util.internal.TextUtil
@@ -99,7 +101,8 @@ class WorkerProcessIntegrationTest extends AbstractWorkerProcessIntegrationSpec
             execHandleFactory,
             new DefaultJvmVersionDetector(new CachingJvmMetadataDetector(defaultJvmMetadataDetector)),
             outputEventListener,
-            Stub(MemoryManager)
+            Stub(MemoryManager),
+            new WorkerClassDataSharing(Stub(JvmVersionDetector), { tmpDir.file("worker-cds") })
         )
         and:
         execute(worker(loggingProcess))
@@ -118,7 +121,8 @@ class WorkerProcessIntegrationTest extends AbstractWorkerProcessIntegrationSpec
             execHandleFactory,
             new DefaultJvmVersionDetector(new CachingJvmMetadataDetector(defaultJvmMetadataDetector)),
             outputEventListener,
-            Stub(MemoryManager)
+            Stub(MemoryManager),
+            new WorkerClassDataSharing(Stub(JvmVersionDetector), { tmpDir.file("worker-cds") })
         )
         and:
         execute(worker(loggingProcess))
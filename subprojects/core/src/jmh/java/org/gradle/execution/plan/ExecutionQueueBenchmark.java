@@ -0,0 +1,104 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures selecting every node of a synthetic plan from the execution queue, the way {@link DefaultFinalizedExecutionPlan#selectNext()} does.
+ *
+ * Each selection visits the nodes which cannot start yet, as many as there are busy workers, before it removes the selected node.
+ * Every tenth selection first inserts a node before the selected node, like a pre-execution node.
+ * Also measures moving every node of the plan to the front of the queue, starting with the last one, the way priority nodes are moved when they become ready.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ExecutionQueueBenchmark {
+    @Param({"5000", "50000"})
+    int nodeCount;
+
+    @Param({"32"})
+    int busyWorkers;
+
+    private final DefaultFinalizedExecutionPlan.ExecutionQueue queue = new DefaultFinalizedExecutionPlan.ExecutionQueue();
+    private List<Node> nodes;
+    private Node preExecutionNode;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        OrdinalGroup group = new OrdinalGroup(0, null);
+        nodes = new ArrayList<>(nodeCount);
+        for (int i = 0; i < nodeCount; i++) {
+            nodes.add(new OrdinalNode(OrdinalNode.Type.PRODUCER, group));
+        }
+        preExecutionNode = new OrdinalNode(OrdinalNode.Type.DESTROYER, group);
+    }
+
+    @Benchmark
+    public int selectAllNodes() {
+        queue.setNodes(nodes);
+        int selections = 0;
+        while (!queue.isEmpty()) {
+            queue.restart();
+            for (int i = 0; i < busyWorkers && queue.size() - i > 1; i++) {
+                queue.next();
+            }
+            queue.next();
+            if (selections % 10 == 0) {
+                queue.startInsert();
+                queue.insert(preExecutionNode);
+                queue.restartFromInsertPoint();
+                queue.next();
+                queue.remove();
+                queue.next();
+            }
+            queue.remove();
+            selections++;
+        }
+        return selections;
+    }
+
+    @Benchmark
+    public int prioritizeAllNodes() {
+        queue.setNodes(nodes);
+        queue.restart();
+        queue.next();
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+            queue.priorityNode(nodes.get(i));
+        }
+        return queue.size();
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.instantiation.generator;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.internal.project.DefaultProject;
+import org.gradle.api.internal.tasks.DefaultTaskContainer;
+import org.gradle.api.internal.tasks.properties.annotations.OutputPropertyRoleAnnotationHandler;
+import org.gradle.api.tasks.Copy;
+import org.gradle.api.tasks.Delete;
+import org.gradle.api.tasks.Exec;
+import org.gradle.api.tasks.GradleBuild;
+import org.gradle.api.tasks.Sync;
+import org.gradle.api.tasks.WriteProperties;
+import org.gradle.api.tasks.bundling.Tar;
+import org.gradle.api.tasks.bundling.Zip;
+import org.gradle.cache.internal.DefaultCrossBuildInMemoryCacheFactory;
+import org.gradle.initialization.DefaultSettings;
+import org.gradle.internal.event.DefaultListenerManager;
+import org.gradle.internal.service.scopes.Scope.Global;
+import org.gradle.invocation.DefaultGradle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time a new JVM takes to generate the decorated classes of some core types, without the generated class cache, with an empty cache and with a populated cache.
+ *
+ * Each JVM prints the time spent generating the classes and the metaspace used by them.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class GeneratedClassBytesCacheBenchmark {
+    @Param({"none", "empty", "populated"})
+    String cache;
+
+    File cacheDir;
+    List<String> command;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        cacheDir = Files.createTempDirectory("generated-classes").toFile();
+        String java = new File(System.getProperty("java.home"), "bin/java").getAbsolutePath();
+        command = new ArrayList<>(Arrays.asList(java, "-cp", System.getProperty("java.class.path"), GenerateClasses.class.getName()));
+        if (!cache.equals("none")) {
+            command.add(cacheDir.getAbsolutePath());
+        }
+        if (cache.equals("populated")) {
+            run(command);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void clearCache() {
+        if (cache.equals("empty")) {
+            deleteCacheFiles();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        deleteCacheFiles();
+        cacheDir.delete();
+    }
+
+    @Benchmark
+    public int generateClassesInNewJvm() throws Exception {
+        return run(command);
+    }
+
+    private void deleteCacheFiles() {
+        File[] files = cacheDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    private static int run(List<String> commandLine) throws Exception {
+        Process process = new ProcessBuilder(commandLine).inheritIO().start();
+        int exitValue = process.waitFor();
+        if (exitValue != 0) {
+            throw new IllegalStateException("JVM exited with " + exitValue + ".");
+        }
+        return exitValue;
+    }
+
+    public static class GenerateClasses {
+        public static void main(String[] args) throws Exception {
+            GeneratedClassBytesCache generatedClassBytesCache = args.length == 0 ? GeneratedClassBytesCache.NONE : new DirectoryGeneratedClassBytesCache(() -> new File(args[0]));
+            ClassGenerator generator = AsmBackedClassGenerator.decorateAndInject(
+                Collections.emptyList(),
+                new OutputPropertyRoleAnnotationHandler(Collections.emptyList()),
+                Collections.emptySet(),
+                new DefaultCrossBuildInMemoryCacheFactory(new DefaultListenerManager(Global.class)),
+                0,
+                generatedClassBytesCache
+            );
+            List<Class<?>> types = Arrays.asList(
+                DefaultProject.class, DefaultGradle.class, DefaultSettings.class, DefaultTaskContainer.class,
+                DefaultTask.class, Copy.class, Sync.class, Delete.class, Exec.class, GradleBuild.class, WriteProperties.class, Zip.class, Tar.class
+            );
+            // Load the types first, so only the class generation is measured
+            for (Class<?> type : types) {
+                type.getMethods();
+            }
+            System.gc();
+            long metaspaceBefore = usedMetaspace();
+            long start = System.nanoTime();
+            for (Class<?> type : types) {
+                generator.generate(type);
+            }
+            long duration = System.nanoTime() - start;
+            System.gc();
+            System.out.printf("Generated %d classes in %.1fms using %dKB metaspace%n", types.size(), duration / 1e6, (usedMetaspace() - metaspaceBefore) / 1024);
+        }
+
+        private static long usedMetaspace() {
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getName().equals("Metaspace")) {
+                    return pool.getUsage().getUsed();
+                }
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal.worker.child;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Measures the time to start a JVM which loads the classes a worker process loads at startup, with and without a class data sharing archive.
+ *
+ * Requires Java 13 or later.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class WorkerClassDataSharingBenchmark {
+    @Param({"false", "true"})
+    boolean useArchive;
+
+    File tmpDir;
+    List<String> command;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        tmpDir = Files.createTempDirectory("worker-cds").toFile();
+        // The JVM can only archive classes loaded from jars
+        String classpath = Arrays.stream(System.getProperty("java.class.path").split(File.pathSeparator))
+            .filter(path -> new File(path).isFile())
+            .collect(Collectors.joining(File.pathSeparator));
+        String java = new File(System.getProperty("java.home"), "bin/java").getAbsolutePath();
+        File archive = new File(tmpDir, "worker.jsa");
+        if (useArchive) {
+            run(commandLine(java, classpath, "-XX:ArchiveClassesAtExit=" + archive.getAbsolutePath()));
+            if (!archive.isFile()) {
+                throw new IllegalStateException("Could not create class data sharing archive.");
+            }
+        }
+        command = commandLine(java, classpath, useArchive ? "-XX:SharedArchiveFile=" + archive.getAbsolutePath() : "-Xshare:auto");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        File[] files = tmpDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        tmpDir.delete();
+    }
+
+    @Benchmark
+    public int startWorkerJvm() throws Exception {
+        return run(command);
+    }
+
+    private static List<String> commandLine(String java, String classpath, String classDataSharingArg) {
+        List<String> commandLine = new ArrayList<>();
+        commandLine.add(java);
+        commandLine.add(classDataSharingArg);
+        commandLine.add("-cp");
+        commandLine.add(classpath);
+        commandLine.add(LoadWorkerClasses.class.getName());
+        return commandLine;
+    }
+
+    private static int run(List<String> commandLine) throws Exception {
+        Process process = new ProcessBuilder(commandLine).inheritIO().start();
+        int exitValue = process.waitFor();
+        if (exitValue != 0) {
+            throw new IllegalStateException("JVM exited with " + exitValue + ".");
+        }
+        return exitValue;
+    }
+
+    public static class LoadWorkerClasses {
+        public static void main(String[] args) throws Exception {
+            for (String className : Arrays.asList(
+                "org.gradle.process.internal.worker.child.SystemApplicationClassLoaderWorker",
+                "org.gradle.process.internal.worker.messaging.WorkerConfigSerializer",
+                "org.gradle.internal.remote.internal.inet.MultiChoiceAddress",
+                "org.gradle.internal.remote.services.MessagingServices",
+                "org.gradle.internal.logging.services.LoggingServiceRegistry",
+                "org.gradle.internal.service.DefaultServiceRegistry"
+            )) {
+                Class.forName(className);
+            }
+        }
+    }
+}
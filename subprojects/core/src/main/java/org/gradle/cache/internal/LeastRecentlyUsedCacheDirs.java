@@ -0,0 +1,70 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal;
+
+import org.gradle.cache.FileLockManager;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.scopes.GlobalScopedCache;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.resource.local.ModificationTimeFileAccessTimeJournal;
+import org.gradle.internal.service.scopes.Scopes;
+import org.gradle.internal.service.scopes.ServiceScope;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.gradle.cache.internal.LeastRecentlyUsedCacheCleanup.DEFAULT_MAX_AGE_IN_DAYS_FOR_RECREATABLE_CACHE_ENTRIES;
+import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
+
+/**
+ * Provides directories in the version specific cache of the Gradle user home, whose entries are deleted when they have not been used for some days.
+ *
+ * <p>An entry is a file or a directory directly inside one of the directories. The modification time of an entry records when it was last used,
+ * so code which uses an entry should update its modification time.</p>
+ */
+@ServiceScope(Scopes.UserHome.class)
+public class LeastRecentlyUsedCacheDirs implements Closeable {
+    private final GlobalScopedCache globalScopedCache;
+    private final Map<String, PersistentCache> caches = new ConcurrentHashMap<>();
+
+    public LeastRecentlyUsedCacheDirs(GlobalScopedCache globalScopedCache) {
+        this.globalScopedCache = globalScopedCache;
+    }
+
+    /**
+     * Returns the directory for the given cache key, which is cleaned up when the Gradle user home services are closed.
+     */
+    public File dirFor(String key) {
+        return caches.computeIfAbsent(key, this::open).getBaseDir();
+    }
+
+    private PersistentCache open(String key) {
+        return globalScopedCache.cache(key)
+            .withDisplayName(key + " cache")
+            .withLockOptions(mode(FileLockManager.LockMode.OnDemand))
+            .withCleanup(new LeastRecentlyUsedCacheCleanup(new SingleDepthFilesFinder(1), new ModificationTimeFileAccessTimeJournal(), DEFAULT_MAX_AGE_IN_DAYS_FOR_RECREATABLE_CACHE_ENTRIES))
+            .open();
+    }
+
+    @Override
+    public void close() {
+        CompositeStoppable.stoppable(caches.values()).stop();
+        caches.clear();
+    }
+}
@@ -39,6 +39,9 @@
 import org.gradle.caching.local.internal.DirectoryBuildCacheFileStoreFactory;
 import org.gradle.caching.local.internal.DirectoryBuildCacheServiceFactory;
 import org.gradle.internal.SystemProperties;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.file.Deleter;
 import org.gradle.internal.file.FileException;
 import org.gradle.internal.hash.ChecksumService;
@@ -59,14 +62,35 @@
 import org.gradle.util.GradleVersion;
 import org.gradle.util.Path;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
 
 /**
  * Build scoped services for build cache usage.
  */
 public final class BuildCacheServices extends AbstractPluginServiceRegistry {
 
+    /**
+     * When set to true, build cache entries are compressed using multiple threads.
+     */
+    public static final String PARALLEL_COMPRESSION_PROPERTY = "org.gradle.internal.build-cache.parallel-compression";
+
+    private static final int COMPRESSION_PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+    @Override
+    public void registerGlobalServices(ServiceRegistration registration) {
+        registration.addProvider(new Object() {
+            BuildCacheCompressionExecutor createBuildCacheCompressionExecutor(ExecutorFactory executorFactory) {
+                return Boolean.getBoolean(PARALLEL_COMPRESSION_PROPERTY)
+                    ? new BuildCacheCompressionExecutor(executorFactory.create("Build cache entry compression", COMPRESSION_PARALLELISM))
+                    : new BuildCacheCompressionExecutor(null);
+            }
+        });
+    }
+
     @Override
     public void registerBuildTreeServices(ServiceRegistration registration) {
         registration.addProvider(new Object() {
@@ -117,10 +141,14 @@ BuildCacheEntryPacker createResultPacker(
                 TarPackerFileSystemSupport fileSystemSupport,
                 FileSystem fileSystem,
                 StreamHasher fileHasher,
-                StringInterner stringInterner
+                StringInterner stringInterner,
+                BuildCacheCompressionExecutor compressionExecutor
             ) {
                 return new GZipBuildCacheEntryPacker(
-                    new TarBuildCacheEntryPacker(fileSystemSupport, new FilePermissionsAccessAdapter(fileSystem), fileHasher, stringInterner));
+                    new TarBuildCacheEntryPacker(fileSystemSupport, new FilePermissionsAccessAdapter(fileSystem), fileHasher, stringInterner),
+                    compressionExecutor.getExecutor(),
+                    compressionExecutor.getPendingBlocksBudget()
+                );
             }
 
             OriginMetadataFactory createOriginMetadataFactory(
@@ -220,4 +248,30 @@ public void chmod(File file, int mode) throws FileException {
             fileSystem.chmod(file, mode);
         }
     }
+
+    static final class BuildCacheCompressionExecutor implements Stoppable {
+        private final ManagedExecutor executor;
+        // Shared by all entries being packed, so the memory held by blocks waiting for compression does not grow with the number of concurrent entries
+        private final Semaphore pendingBlocksBudget = new Semaphore(2 * COMPRESSION_PARALLELISM);
+
+        public BuildCacheCompressionExecutor(@Nullable ManagedExecutor executor) {
+            this.executor = executor;
+        }
+
+        @Nullable
+        public Executor getExecutor() {
+            return executor;
+        }
+
+        public Semaphore getPendingBlocksBudget() {
+            return pendingBlocksBudget;
+        }
+
+        @Override
+        public void stop() {
+            if (executor != null) {
+                executor.stop();
+            }
+        }
+    }
 }
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import org.gradle.api.internal.tasks.TaskExecutionOutcome;
+import org.gradle.api.internal.tasks.TaskStateInternal;
+import org.gradle.internal.time.Time;
+import org.gradle.internal.time.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Orders the nodes of an execution plan by the estimated duration of the longest chain of nodes that starts with each node,
+ * so that the nodes on the critical path of the plan are started first when there are more ready nodes than workers.
+ *
+ * <p>The durations of the nodes in previous builds are used as estimates. The durations of the nodes which did their work
+ * are recorded for later builds, and the predicted critical path is reported along with the actual one once the plan has finished.
+ * Tasks which were up-to-date, loaded from the build cache, skipped or failed take much less time than executing them,
+ * so their durations are not recorded and do not replace the estimates for the builds where they execute.</p>
+ */
+class CriticalPathScheduling {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CriticalPathScheduling.class);
+
+    private final NodeDurationHistory durationHistory;
+    private final List<Node> nodes = new ArrayList<>();
+    private final Map<Node, Timer> runningNodes = new IdentityHashMap<>();
+    private final Map<Node, Long> durations = new IdentityHashMap<>();
+    private final Map<Node, Long> executedDurations = new IdentityHashMap<>();
+    private long predictedCriticalPath;
+
+    CriticalPathScheduling(NodeDurationHistory durationHistory) {
+        this.durationHistory = durationHistory;
+    }
+
+    /**
+     * Returns the given nodes, which must be in execution order, ordered by their estimated critical path.
+     *
+     * A node is always ordered before the nodes that run after it, since its critical path includes theirs.
+     * Nodes with the same estimate keep their order.
+     */
+    List<Node> prioritize(Collection<? extends Node> scheduledNodes) {
+        nodes.addAll(scheduledNodes);
+        Map<Node, Long> criticalPaths = criticalPaths(nodes, durationHistory.getPreviousDurations(nodes));
+        predictedCriticalPath = longest(criticalPaths);
+        List<Node> prioritized = new ArrayList<>(nodes);
+        prioritized.sort(Comparator.comparingLong((Node node) -> criticalPaths.get(node)).reversed());
+        return prioritized;
+    }
+
+    void nodeStarted(Node node) {
+        runningNodes.put(node, Time.startTimer());
+    }
+
+    void nodeFinished(Node node) {
+        Timer timer = runningNodes.remove(node);
+        if (timer != null) {
+            long duration = timer.getElapsedMillis();
+            durations.put(node, duration);
+            if (didWork(node)) {
+                executedDurations.put(node, duration);
+            }
+        }
+    }
+
+    private static boolean didWork(Node node) {
+        if (node instanceof LocalTaskNode) {
+            TaskStateInternal state = ((LocalTaskNode) node).getTask().getState();
+            return state.getOutcome() == TaskExecutionOutcome.EXECUTED && state.getFailure() == null;
+        }
+        return true;
+    }
+
+    /**
+     * Reports the predicted and actual critical path, and records the durations of the nodes which did their work.
+     */
+    void planFinished(String displayName) {
+        if (durations.isEmpty()) {
+            return;
+        }
+        Map<Node, Long> criticalPaths = criticalPaths(nodes, durations);
+        Node start = null;
+        long actualCriticalPath = -1;
+        for (Node node : nodes) {
+            long criticalPath = criticalPaths.get(node);
+            if (criticalPath > actualCriticalPath) {
+                start = node;
+                actualCriticalPath = criticalPath;
+            }
+        }
+        LOGGER.info("Critical path of {}: predicted {} ms, actual {} ms starting at {}.", displayName, predictedCriticalPath, actualCriticalPath, start);
+        if (!executedDurations.isEmpty()) {
+            durationHistory.recordDurations(executedDurations);
+        }
+        durations.clear();
+        executedDurations.clear();
+    }
+
+    /**
+     * Calculates the duration of the longest chain of nodes starting with each node, following the nodes which run after it.
+     * The nodes are in execution order, so visiting them in reverse visits the nodes that run after a node before the node itself.
+     */
+    private static Map<Node, Long> criticalPaths(List<Node> nodes, Map<Node, Long> durations) {
+        Map<Node, Long> criticalPaths = new IdentityHashMap<>();
+        Map<Node, Long> longestFollowingPaths = new IdentityHashMap<>();
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+            Node node = nodes.get(i);
+            long criticalPath = durations.getOrDefault(node, 0L) + longestFollowingPaths.getOrDefault(node, 0L);
+            criticalPaths.put(node, criticalPath);
+            for (Node successor : node.getAllSuccessors()) {
+                longestFollowingPaths.merge(successor, criticalPath, Math::max);
+            }
+        }
+        return criticalPaths;
+    }
+
+    private static long longest(Map<Node, Long> criticalPaths) {
+        long longest = 0;
+        for (long criticalPath : criticalPaths.values()) {
+            longest = Math.max(longest, criticalPath);
+        }
+        return longest;
+    }
+}
@@ -26,6 +26,7 @@
 import org.gradle.api.specs.Specs;
 import org.gradle.internal.resources.ResourceLockCoordinationService;
 
+import javax.annotation.Nullable;
 import java.util.AbstractCollection;
 import java.util.ArrayDeque;
 import java.util.Collection;
@@ -58,6 +59,8 @@ public class DefaultExecutionPlan implements ExecutionPlan, QueryableExecutionPl
     private int order = 0;
     private boolean requiresScheduling;
     private boolean continueOnFailure;
+    @Nullable
+    private NodeDurationHistory durationHistory;
 
     private final Set<Node> filteredNodes = newIdentityHashSet();
     private final Set<Node> finalizers = new LinkedHashSet<>();
@@ -222,7 +225,7 @@ public FinalizedExecutionPlan finalizePlan() {
         if (finalizedPlan == null) {
             dependencyResolver.clear();
             // TODO - make an immutable copy of the contents to pass to the finalized plan, and to return from
-            finalizedPlan = new DefaultFinalizedExecutionPlan(displayName, ordinalNodeAccess, outputHierarchy, destroyableHierarchy, lockCoordinator, nodeMapping, continueOnFailure, this, completionHandler);
+            finalizedPlan = new DefaultFinalizedExecutionPlan(displayName, ordinalNodeAccess, outputHierarchy, destroyableHierarchy, lockCoordinator, nodeMapping, continueOnFailure, this, completionHandler, durationHistory);
         }
         return finalizedPlan;
     }
@@ -310,6 +313,11 @@ public void setContinueOnFailure(boolean continueOnFailure) {
         this.continueOnFailure = continueOnFailure;
     }
 
+    @Override
+    public void prioritizeCriticalPath(NodeDurationHistory durationHistory) {
+        this.durationHistory = durationHistory;
+    }
+
     @Override
     public int size() {
         return nodeMapping.getNumberOfPublicNodes();
@@ -32,6 +32,7 @@
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -62,6 +63,8 @@ public class DefaultFinalizedExecutionPlan implements WorkSource<Node>, Finalize
     private final Map<Pair<Node, Node>, Boolean> reachableCache = new HashMap<>();
     private final OrdinalNodeAccess ordinalNodeAccess;
     private final Consumer<LocalTaskNode> completionHandler;
+    @Nullable
+    private final CriticalPathScheduling criticalPathScheduling;
 
     // When true, there may be nodes that are "ready", which means their dependencies have completed and the action is ready to execute
     // When false, there are definitely no nodes that are "ready"
@@ -82,7 +85,8 @@ public DefaultFinalizedExecutionPlan(
         DefaultExecutionPlan.NodeMapping nodeMapping,
         boolean continueOnFailure,
         QueryableExecutionPlan contents,
-        Consumer<LocalTaskNode> completionHandler
+        Consumer<LocalTaskNode> completionHandler,
+        @Nullable NodeDurationHistory durationHistory
     ) {
         this.displayName = displayName;
         this.outputHierarchy = outputHierarchy;
@@ -93,7 +97,13 @@ public DefaultFinalizedExecutionPlan(
         this.contents = contents;
         this.completionHandler = completionHandler;
 
-        executionQueue.setNodes(nodeMapping);
+        if (durationHistory != null) {
+            criticalPathScheduling = new CriticalPathScheduling(durationHistory);
+            executionQueue.setNodes(criticalPathScheduling.prioritize(nodeMapping));
+        } else {
+            criticalPathScheduling = null;
+            executionQueue.setNodes(nodeMapping);
+        }
 
         executionQueue.restart();
         while (executionQueue.hasNext()) {
@@ -123,6 +133,9 @@ public WorkSource<Node> asWorkSource() {
     @Override
     public void close() {
         lockCoordinator.removeLockReleaseListener(resourceUnlockListener);
+        if (criticalPathScheduling != null) {
+            criticalPathScheduling.planFinished(displayName);
+        }
         executionQueue.clear();
         runningNodes.clear();
         producedButNotYetConsumed.clear();
@@ -444,6 +457,9 @@ private boolean doesConsumerDependOnDestroyer(Node consumer, Node destroyer) {
 
     private void recordNodeExecutionStarted(Node node) {
         runningNodes.add(node);
+        if (criticalPathScheduling != null) {
+            criticalPathScheduling.nodeStarted(node);
+        }
     }
 
     private void recordNodeCompleted(Node node) {
@@ -483,6 +499,9 @@ public void finishedExecuting(Node node, @Nullable Throwable failure) {
         lockCoordinator.assertHasStateLock();
         try {
             runningNodes.remove(node);
+            if (criticalPathScheduling != null) {
+                criticalPathScheduling.nodeFinished(node);
+            }
 
             if (failure != null) {
                 node.setExecutionFailure(failure);
@@ -598,109 +617,199 @@ public boolean allExecutionComplete() {
         return executionQueue.isEmpty() && runningNodes.isEmpty();
     }
 
+    /**
+     * The queue of nodes waiting to execute, with a cursor pointing at the next node to visit.
+     *
+     * The queue is a doubly linked list, so that removing the current node and inserting nodes before the cursor do not need to shift
+     * the remaining nodes, which is significant for plans with many nodes as a node is removed from the queue each time it is selected.
+     * The entries are indexed by node, so that a priority node can be moved to the front without searching the queue.
+     */
     static class ExecutionQueue {
-        private final List<Node> nodes = new ArrayList<>();
-        private int nextPos = 0;
-        private int insertPos;
+        // The first entry of each node in the queue. A node can be in the queue more than once, for example a pre-execution node which is also scheduled
+        private final Map<Node, Entry> entries = new IdentityHashMap<>();
+        private Entry head;
+        private Entry tail;
+        private int size;
+        // The entry that next() returns, or null when at the end of the queue
+        private Entry nextEntry;
+        // The first entry inserted since startInsert(), or null when nothing has been inserted
+        private Entry firstInserted;
 
         public void setNodes(Collection<? extends Node> nodes) {
-            this.nodes.clear();
-            this.nodes.addAll(nodes);
-            nextPos = 0;
+            clear();
+            for (Node node : nodes) {
+                linkBefore(null, node);
+            }
+            nextEntry = head;
         }
 
         public void clear() {
-            nodes.clear();
+            entries.clear();
+            head = null;
+            tail = null;
+            size = 0;
+            nextEntry = null;
+            firstInserted = null;
         }
 
         public boolean isEmpty() {
-            return nodes.isEmpty();
+            return size == 0;
         }
 
         public int size() {
-            return nodes.size();
+            return size;
         }
 
         public void restart() {
-            nextPos = 0;
+            nextEntry = head;
         }
 
         public boolean hasNext() {
-            return nextPos < nodes.size();
+            return nextEntry != null;
         }
 
         /**
          * Move to the next node.
          */
         public Node next() {
-            return nodes.get(nextPos++);
+            Node node = nextEntry.node;
+            nextEntry = nextEntry.next;
+            return node;
         }
 
         /**
          * Remove the current node.
          */
         public void remove() {
-            nextPos--;
-            nodes.remove(nextPos);
+            unlink(currentEntry());
         }
 
         /**
          * Move the given node to the front of the queue. Leave the current node unchanged.
          */
         public void priorityNode(Node node) {
-            int previousPos = nodes.indexOf(node);
-            nodes.remove(previousPos);
-            nodes.add(0, node);
-            if (previousPos >= nextPos) {
-                nextPos++;
+            Entry entry = entries.get(node);
+            if (entry == null) {
+                // The indexed entry of the node was removed, but the node is in the queue again
+                entry = head;
+                while (entry.node != node) {
+                    entry = entry.next;
+                }
+            }
+            if (entry == nextEntry) {
+                nextEntry = entry.next;
             }
+            unlink(entry);
+            linkBefore(head, node);
         }
 
         /**
          * Start inserting nodes before the current node.
          */
         public void startInsert() {
-            if (nextPos > 0) {
-                nextPos--;
+            Entry current = currentEntry();
+            if (current != null) {
+                nextEntry = current;
             }
-            insertPos = nextPos;
+            firstInserted = null;
         }
 
         /**
          * Insert the given node at the current insert position.
          */
         public void insert(Node node) {
-            nodes.add(nextPos, node);
-            nextPos++;
+            Entry entry = linkBefore(nextEntry, node);
+            if (firstInserted == null) {
+                firstInserted = entry;
+            }
         }
 
         /**
          * Finish inserting nodes and make the first inserted node the next node.
          */
         public boolean restartFromInsertPoint() {
-            if (nextPos > insertPos) {
-                nextPos = insertPos;
+            if (firstInserted != null) {
+                nextEntry = firstInserted;
+                firstInserted = null;
                 return true;
             } else {
-                nextPos++;
+                if (nextEntry != null) {
+                    nextEntry = nextEntry.next;
+                }
                 return false;
             }
         }
 
+        /**
+         * The entry before the cursor, which is the node most recently returned by {@link #next()} unless the queue changed since.
+         */
+        @Nullable
+        private Entry currentEntry() {
+            return nextEntry == null ? tail : nextEntry.previous;
+        }
+
+        private Entry linkBefore(@Nullable Entry successor, Node node) {
+            Entry entry = new Entry(node);
+            Entry predecessor = successor == null ? tail : successor.previous;
+            entry.previous = predecessor;
+            entry.next = successor;
+            if (predecessor == null) {
+                head = entry;
+            } else {
+                predecessor.next = entry;
+            }
+            if (successor == null) {
+                tail = entry;
+            } else {
+                successor.previous = entry;
+            }
+            entries.putIfAbsent(node, entry);
+            size++;
+            return entry;
+        }
+
+        private void unlink(Entry entry) {
+            if (entry.previous == null) {
+                head = entry.next;
+            } else {
+                entry.previous.next = entry.next;
+            }
+            if (entry.next == null) {
+                tail = entry.previous;
+            } else {
+                entry.next.previous = entry.previous;
+            }
+            if (firstInserted == entry) {
+                firstInserted = entry.next;
+            }
+            entries.remove(entry.node, entry);
+            size--;
+        }
+
         @Override
         public String toString() {
             StringBuilder str = new StringBuilder("ExecutionQueue[");
-            for (int i = 0; i < nodes.size(); ++i) {
-                if (i > 0) {
+            for (Entry entry = head; entry != null; entry = entry.next) {
+                if (entry != head) {
                     str.append(", ");
                 }
-                if (i == nextPos) {
+                if (entry == nextEntry) {
                     str.append("(next)");
                 }
-                str.append(nodes.get(i));
+                str.append(entry.node);
             }
             str.append("]");
             return str.toString();
         }
+
+        private static class Entry {
+            private final Node node;
+            private Entry previous;
+            private Entry next;
+
+            Entry(Node node) {
+                this.node = node;
+            }
+        }
     }
 }
@@ -36,6 +36,11 @@ public interface ExecutionPlan extends Describable, Closeable {
 
     void setContinueOnFailure(boolean continueOnFailure);
 
+    /**
+     * Starts the nodes with the longest chain of work after them first, using the durations of the nodes in previous builds as estimates.
+     */
+    void prioritizeCriticalPath(NodeDurationHistory durationHistory);
+
     void setScheduledNodes(Collection<? extends Node> nodes);
 
     void addEntryTasks(Collection<? extends Task> tasks);
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import org.gradle.internal.service.scopes.Scopes;
+import org.gradle.internal.service.scopes.ServiceScope;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Keeps track of how long the nodes of an execution plan took to execute in previous builds.
+ */
+@ServiceScope(Scopes.Gradle.class)
+public interface NodeDurationHistory {
+    /**
+     * Returns the estimated duration in milliseconds of each of the given nodes, based on their previous executions. Nodes that have not executed before are not included.
+     */
+    Map<Node, Long> getPreviousDurations(Collection<? extends Node> nodes);
+
+    /**
+     * Records the durations in milliseconds of nodes which did their work in the current build.
+     */
+    void recordDurations(Map<Node, Long> durations);
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.cache.PersistentIndexedCacheParameters;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import static org.gradle.internal.serialize.BaseSerializerFactory.LONG_SERIALIZER;
+import static org.gradle.internal.serialize.BaseSerializerFactory.STRING_SERIALIZER;
+
+/**
+ * A {@link NodeDurationHistory} which stores the durations of tasks by task path, alongside the execution history of the tasks.
+ * The durations of other kinds of nodes are not tracked.
+ *
+ * <p>The stored duration of a task is an exponential moving average of its recorded durations, so a single unusually fast or slow execution
+ * does not replace the estimate.</p>
+ */
+public class PersistentNodeDurationHistory implements NodeDurationHistory {
+    // The weight of a newly recorded duration in the stored average
+    private static final double RECORDED_DURATION_WEIGHT = 0.3;
+
+    private final PersistentCache cache;
+    private final PersistentIndexedCache<String, Long> durations;
+
+    public PersistentNodeDurationHistory(PersistentCache cache) {
+        this.cache = cache;
+        this.durations = cache.createCache(PersistentIndexedCacheParameters.of("taskDurations", STRING_SERIALIZER, LONG_SERIALIZER));
+    }
+
+    @Override
+    public Map<Node, Long> getPreviousDurations(Collection<? extends Node> nodes) {
+        return cache.useCache(() -> {
+            Map<Node, Long> result = new IdentityHashMap<>();
+            for (Node node : nodes) {
+                String key = keyFor(node);
+                if (key != null) {
+                    Long duration = durations.getIfPresent(key);
+                    if (duration != null) {
+                        result.put(node, duration);
+                    }
+                }
+            }
+            return result;
+        });
+    }
+
+    @Override
+    public void recordDurations(Map<Node, Long> nodeDurations) {
+        cache.useCache(() -> nodeDurations.forEach((node, duration) -> {
+            String key = keyFor(node);
+            if (key != null) {
+                Long previousDuration = durations.getIfPresent(key);
+                durations.put(key, previousDuration == null ? duration : average(previousDuration, duration));
+            }
+        }));
+    }
+
+    private static long average(long previousDuration, long duration) {
+        return Math.round(previousDuration + RECORDED_DURATION_WEIGHT * (duration - previousDuration));
+    }
+
+    @Nullable
+    private static String keyFor(Node node) {
+        if (node instanceof LocalTaskNode) {
+            return ((LocalTaskNode) node).getTask().getPath();
+        }
+        return null;
+    }
+}
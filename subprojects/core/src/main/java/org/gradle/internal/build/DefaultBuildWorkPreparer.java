@@ -20,12 +20,18 @@
 import org.gradle.execution.plan.ExecutionPlan;
 import org.gradle.execution.plan.ExecutionPlanFactory;
 import org.gradle.execution.plan.FinalizedExecutionPlan;
+import org.gradle.execution.plan.NodeDurationHistory;
 import org.gradle.execution.taskgraph.TaskExecutionGraphInternal;
 import org.gradle.internal.execution.BuildOutputCleanupRegistry;
 
 import java.util.function.Consumer;
 
 public class DefaultBuildWorkPreparer implements BuildWorkPreparer {
+    /**
+     * When set, the nodes of the execution plan are prioritized by their estimated critical path.
+     */
+    public static final String CRITICAL_PATH_SCHEDULING_PROPERTY = "org.gradle.internal.execution.critical-path-scheduling";
+
     private final ExecutionPlanFactory executionPlanFactory;
 
     public DefaultBuildWorkPreparer(ExecutionPlanFactory executionPlanFactory) {
@@ -49,6 +55,9 @@ public FinalizedExecutionPlan finalizeWorkGraph(GradleInternal gradle, Execution
         if (gradle.getStartParameter().isContinueOnFailure()) {
             plan.setContinueOnFailure(true);
         }
+        if (Boolean.getBoolean(CRITICAL_PATH_SCHEDULING_PROPERTY)) {
+            plan.prioritizeCriticalPath(gradle.getServices().get(NodeDurationHistory.class));
+        }
         FinalizedExecutionPlan finalizedExecutionPlan = plan.finalizePlan();
         taskGraph.populate(finalizedExecutionPlan);
         BuildOutputCleanupRegistry buildOutputCleanupRegistry = gradle.getServices().get(BuildOutputCleanupRegistry.class);
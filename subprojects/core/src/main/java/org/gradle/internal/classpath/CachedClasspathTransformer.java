@@ -55,5 +55,12 @@ interface Transform {
         void applyConfigurationTo(Hasher hasher);
 
         Pair<RelativePath, ClassVisitor> apply(ClasspathEntryVisitor.Entry entry, ClassVisitor visitor) throws IOException;
+
+        /**
+         * Returns whether {@link #apply} may change the given class file or its path. When it returns false, the class file is copied as is, without being parsed.
+         */
+        default boolean mayChange(byte[] classContent) {
+            return true;
+        }
     }
 }
@@ -42,4 +42,9 @@ public void applyConfigurationTo(Hasher hasher) {
     public Pair<RelativePath, ClassVisitor> apply(ClasspathEntryVisitor.Entry entry, ClassVisitor visitor) throws IOException {
         return first.apply(entry, second.apply(entry, visitor).right);
     }
+
+    @Override
+    public boolean mayChange(byte[] classContent) {
+        return first.mayChange(classContent) || second.mayChange(classContent);
+    }
 }
@@ -43,6 +43,7 @@
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
 import static java.util.Optional.empty;
 import static org.gradle.internal.Either.left;
@@ -59,6 +60,9 @@ public class DefaultCachedClasspathTransformer implements CachedClasspathTransfo
     private final GlobalCacheLocations globalCacheLocations;
     private final FileLockManager fileLockManager;
     private final ManagedExecutor executor;
+    private final ManagedExecutor entryExecutor;
+    // Shared by all jars that are transformed concurrently, so the memory used by their pending entries is bounded
+    private final Semaphore pendingEntryBytes = new Semaphore(InstrumentingClasspathFileTransformer.MAX_PENDING_BYTES);
 
     public DefaultCachedClasspathTransformer(
         GlobalScopedCache globalScopedCache,
@@ -79,11 +83,13 @@ public DefaultCachedClasspathTransformer(
         this.cache = classpathTransformerCacheFactory.createCache(globalScopedCache, fileAccessTimeJournal);
         this.fileAccessTracker = classpathTransformerCacheFactory.createFileAccessTracker(cache, fileAccessTimeJournal);
         this.executor = executorFactory.create("jar transforms", Runtime.getRuntime().availableProcessors());
+        // A separate executor for the entries of a jar, as the jar transforms wait for their entries to be transformed
+        this.entryExecutor = executorFactory.create("jar entry transforms", Runtime.getRuntime().availableProcessors());
     }
 
     @Override
     public void close() {
-        CompositeStoppable.stoppable(executor, cache).stop();
+        CompositeStoppable.stoppable(executor, entryExecutor, cache).stop();
     }
 
     @Override
@@ -151,7 +157,7 @@ private ClasspathFileTransformer fileTransformerFor(StandardTransform transform)
     }
 
     private InstrumentingClasspathFileTransformer instrumentingClasspathFileTransformerFor(CachedClasspathTransformer.Transform transform) {
-        return new InstrumentingClasspathFileTransformer(fileLockManager, classpathWalker, classpathBuilder, transform);
+        return new InstrumentingClasspathFileTransformer(fileLockManager, classpathWalker, classpathBuilder, transform, entryExecutor, pendingEntryBytes);
     }
 
     private Optional<Either<URL, Callable<URL>>> cachedURL(URL original, ClasspathFileTransformer transformer, Set<HashCode> seen) {
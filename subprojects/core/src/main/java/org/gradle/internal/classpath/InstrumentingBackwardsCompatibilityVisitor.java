@@ -32,7 +32,7 @@
 
 class InstrumentingBackwardsCompatibilityVisitor extends ClassVisitor {
 
-    private static final List<Pair<String, String>> RENAMED_TYPE_INTERNAL_NAMES = asList(
+    static final List<Pair<String, String>> RENAMED_TYPE_INTERNAL_NAMES = asList(
         Pair.of("org/gradle/logging/LoggingManagerInternal", "org/gradle/api/logging/LoggingManager"),
         Pair.of("org/gradle/logging/StandardOutputCapture", "org/gradle/internal/logging/StandardOutputCapture")
     );
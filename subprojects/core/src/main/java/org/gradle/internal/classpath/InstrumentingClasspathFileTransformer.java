@@ -24,6 +24,7 @@
 import org.gradle.cache.FileLock;
 import org.gradle.cache.FileLockManager;
 import org.gradle.internal.Pair;
+import org.gradle.internal.UncheckedException;
 import org.gradle.internal.file.FileException;
 import org.gradle.internal.file.FileType;
 import org.gradle.internal.hash.HashCode;
@@ -39,30 +40,52 @@
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
 import static java.lang.String.format;
 import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
 
 class InstrumentingClasspathFileTransformer implements ClasspathFileTransformer {
     private static final Logger LOGGER = LoggerFactory.getLogger(InstrumentingClasspathFileTransformer.class);
-    private static final int CACHE_FORMAT = 5;
+    private static final int CACHE_FORMAT = 6;
+    /**
+     * The entries of an archive are instrumented in chunks of about this many bytes, so that the chunks of a large archive are instrumented in parallel.
+     */
+    private static final int CHUNK_SIZE = 512 * 1024;
+    /**
+     * The maximum number of bytes of entries that are waiting to be instrumented or written, across all archives that share the same limit.
+     */
+    static final int MAX_PENDING_BYTES = Runtime.getRuntime().availableProcessors() * CHUNK_SIZE;
 
     private final FileLockManager fileLockManager;
     private final ClasspathWalker classpathWalker;
     private final ClasspathBuilder classpathBuilder;
     private final CachedClasspathTransformer.Transform transform;
+    private final ExecutorService executor;
+    private final Semaphore pendingBytes;
     private final HashCode configHash;
 
     public InstrumentingClasspathFileTransformer(
         FileLockManager fileLockManager,
         ClasspathWalker classpathWalker,
         ClasspathBuilder classpathBuilder,
-        CachedClasspathTransformer.Transform transform
+        CachedClasspathTransformer.Transform transform,
+        ExecutorService executor,
+        Semaphore pendingBytes
     ) {
         this.fileLockManager = fileLockManager;
         this.classpathWalker = classpathWalker;
         this.classpathBuilder = classpathBuilder;
         this.transform = transform;
+        this.executor = executor;
+        this.pendingBytes = pendingBytes;
         this.configHash = configHashFor(transform);
     }
 
@@ -145,22 +168,188 @@ private void instrument(File source, File dest) {
     }
 
     private void visitEntries(File source, ClasspathBuilder.EntryBuilder builder) throws IOException, FileException {
-        classpathWalker.visit(source, entry -> {
+        ChunkedEntryInstrumenter instrumenter = new ChunkedEntryInstrumenter(source, builder);
+        try {
+            classpathWalker.visit(source, instrumenter::add);
+            instrumenter.finish();
+        } finally {
+            instrumenter.discardPending();
+        }
+    }
+
+    private List<InstrumentedEntry> instrument(File source, List<BufferedEntry> entries) throws IOException {
+        List<InstrumentedEntry> result = new ArrayList<>(entries.size());
+        for (BufferedEntry entry : entries) {
+            result.add(instrument(source, entry));
+        }
+        return result;
+    }
+
+    private InstrumentedEntry instrument(File source, BufferedEntry entry) throws IOException {
+        try {
+            if (entry.getName().endsWith(".class") && transform.mayChange(entry.getContent())) {
+                ClassReader reader = new ClassReader(entry.getContent());
+                ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+                Pair<RelativePath, ClassVisitor> chain = transform.apply(entry, classWriter);
+                reader.accept(chain.right, 0);
+                byte[] bytes = classWriter.toByteArray();
+                return new InstrumentedEntry(chain.left.getPathString(), bytes, entry.getCompressionMethod());
+            } else {
+                return new InstrumentedEntry(entry.getName(), entry.getContent(), entry.getCompressionMethod());
+            }
+        } catch (Throwable e) {
+            throw new IOException("Failed to process the entry '" + entry.getName() + "' from '" + source + "'", e);
+        }
+    }
+
+    /**
+     * Collects the entries of an archive into chunks and instruments each chunk on the executor,
+     * while the entries are written to the result in their original order.
+     *
+     * A chunk holds permits of the shared pending bytes limit until it is written. When the limit is reached,
+     * the pending chunks of this archive are written first, and the chunk is instrumented on the calling thread when
+     * there are none, so an archive never waits for permits held by another archive.
+     */
+    private class ChunkedEntryInstrumenter {
+        private final File source;
+        private final ClasspathBuilder.EntryBuilder builder;
+        private final Deque<PendingChunk> pendingChunks = new ArrayDeque<>();
+        private List<BufferedEntry> chunk = new ArrayList<>();
+        private long chunkSize;
+
+        ChunkedEntryInstrumenter(File source, ClasspathBuilder.EntryBuilder builder) {
+            this.source = source;
+            this.builder = builder;
+        }
+
+        void add(ClasspathEntryVisitor.Entry entry) throws IOException {
+            byte[] content = entry.getContent();
+            chunk.add(new BufferedEntry(entry.getName(), entry.getPath(), entry.getCompressionMethod(), content));
+            chunkSize += content.length;
+            if (chunkSize >= CHUNK_SIZE) {
+                List<BufferedEntry> entries = chunk;
+                int permits = (int) Math.min(chunkSize, MAX_PENDING_BYTES);
+                chunk = new ArrayList<>();
+                chunkSize = 0;
+                submit(entries, permits);
+            }
+        }
+
+        private void submit(List<BufferedEntry> entries, int permits) throws IOException {
+            while (!pendingBytes.tryAcquire(permits)) {
+                if (pendingChunks.isEmpty()) {
+                    write(instrument(source, entries));
+                    return;
+                }
+                writeNextPendingChunk();
+            }
+            pendingChunks.add(new PendingChunk(executor.submit(() -> instrument(source, entries)), permits));
+        }
+
+        void finish() throws IOException {
+            // The last chunk is instrumented on this thread, which also covers archives that are smaller than a single chunk
+            List<InstrumentedEntry> lastChunk = instrument(source, chunk);
+            chunk = new ArrayList<>();
+            while (!pendingChunks.isEmpty()) {
+                writeNextPendingChunk();
+            }
+            write(lastChunk);
+        }
+
+        void discardPending() {
+            for (PendingChunk pendingChunk : pendingChunks) {
+                pendingChunk.entries.cancel(false);
+                pendingBytes.release(pendingChunk.permits);
+            }
+            pendingChunks.clear();
+        }
+
+        private void writeNextPendingChunk() throws IOException {
+            PendingChunk pendingChunk = pendingChunks.remove();
             try {
-                if (entry.getName().endsWith(".class")) {
-                    ClassReader reader = new ClassReader(entry.getContent());
-                    ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
-                    Pair<RelativePath, ClassVisitor> chain = transform.apply(entry, classWriter);
-                    reader.accept(chain.right, 0);
-                    byte[] bytes = classWriter.toByteArray();
-                    builder.put(chain.left.getPathString(), bytes, entry.getCompressionMethod());
-                } else {
-                    builder.put(entry.getName(), entry.getContent(), entry.getCompressionMethod());
+                write(waitFor(pendingChunk.entries));
+            } finally {
+                pendingBytes.release(pendingChunk.permits);
+            }
+        }
+
+        private void write(List<InstrumentedEntry> entries) throws IOException {
+            for (InstrumentedEntry entry : entries) {
+                builder.put(entry.name, entry.content, entry.compressionMethod);
+            }
+        }
+
+        private List<InstrumentedEntry> waitFor(Future<List<InstrumentedEntry>> pendingChunk) throws IOException {
+            try {
+                return pendingChunk.get();
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
                 }
-            } catch (Throwable e) {
-                throw new IOException("Failed to process the entry '" + entry.getName() + "' from '" + source + "'", e);
+                throw UncheckedException.throwAsUncheckedException(e.getCause());
             }
-        });
+        }
+    }
+
+    private static class PendingChunk {
+        private final Future<List<InstrumentedEntry>> entries;
+        private final int permits;
+
+        PendingChunk(Future<List<InstrumentedEntry>> entries, int permits) {
+            this.entries = entries;
+            this.permits = permits;
+        }
+    }
+
+    /**
+     * An entry whose content has been read, so that it can be instrumented after the archive has moved on to the next entry.
+     */
+    private static class BufferedEntry implements ClasspathEntryVisitor.Entry {
+        private final String name;
+        private final RelativePath path;
+        private final CompressionMethod compressionMethod;
+        private final byte[] content;
+
+        BufferedEntry(String name, RelativePath path, CompressionMethod compressionMethod, byte[] content) {
+            this.name = name;
+            this.path = path;
+            this.compressionMethod = compressionMethod;
+            this.content = content;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public RelativePath getPath() {
+            return path;
+        }
+
+        @Override
+        public CompressionMethod getCompressionMethod() {
+            return compressionMethod;
+        }
+
+        @Override
+        public byte[] getContent() {
+            return content;
+        }
+    }
+
+    private static class InstrumentedEntry {
+        private final String name;
+        private final byte[] content;
+        private final ClasspathEntryVisitor.Entry.CompressionMethod compressionMethod;
+
+        InstrumentedEntry(String name, byte[] content, ClasspathEntryVisitor.Entry.CompressionMethod compressionMethod) {
+            this.name = name;
+            this.content = content;
+            this.compressionMethod = compressionMethod;
+        }
     }
 
     private boolean isSignedJar(File source) {
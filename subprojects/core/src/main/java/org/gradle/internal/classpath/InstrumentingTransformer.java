@@ -16,6 +16,7 @@
 
 package org.gradle.internal.classpath;
 
+import com.google.common.primitives.Bytes;
 import org.codehaus.groovy.runtime.ProcessGroovyMethods;
 import org.codehaus.groovy.runtime.callsite.CallSiteArray;
 import org.codehaus.groovy.vmplugin.v8.IndyInterface;
@@ -40,13 +41,16 @@
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
 import java.lang.invoke.SerializedLambda;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.stream.Stream;
 
+import static java.util.stream.Collectors.toList;
 import static org.gradle.internal.classanalysis.AsmConstants.ASM_LEVEL;
 import static org.objectweb.asm.Opcodes.ACC_INTERFACE;
 import static org.objectweb.asm.Opcodes.ACC_PRIVATE;
@@ -189,6 +193,27 @@ class InstrumentingTransformer implements CachedClasspathTransformer.Transform {
 
     private static final String[] NO_EXCEPTIONS = new String[0];
 
+    /**
+     * At least one of these appears in the constant pool of every class that this transformer changes.
+     * Update this when intercepting more calls.
+     */
+    private static final List<byte[]> INTERCEPTED_NAMES = Stream.concat(
+        Stream.of(
+            // System, Integer, Long and Boolean methods
+            "getPropert", "setPropert", "clearProperty", "getenv", "getInteger", "getLong", "getBoolean",
+            // Runtime.exec() and ProcessGroovyMethods.execute()
+            "exec",
+            PROCESS_BUILDER_TYPE.getInternalName(),
+            FILE_INPUT_STREAM_TYPE.getInternalName(),
+            CREATE_CALL_SITE_ARRAY_METHOD,
+            DESERIALIZE_LAMBDA,
+            LAMBDA_METAFACTORY_TYPE,
+            GROOVY_INDY_INTERFACE_TYPE,
+            GROOVY_INDY_INTERFACE_V7_TYPE
+        ),
+        InstrumentingBackwardsCompatibilityVisitor.RENAMED_TYPE_INTERNAL_NAMES.stream().map(renamed -> renamed.left)
+    ).map(name -> name.getBytes(StandardCharsets.UTF_8)).collect(toList());
+
     @Override
     public void applyConfigurationTo(Hasher hasher) {
         hasher.putString(InstrumentingTransformer.class.getSimpleName());
@@ -200,6 +225,17 @@ public Pair<RelativePath, ClassVisitor> apply(ClasspathEntryVisitor.Entry entry,
         return Pair.of(entry.getPath(), new InstrumentingVisitor(new InstrumentingBackwardsCompatibilityVisitor(visitor)));
     }
 
+    @Override
+    public boolean mayChange(byte[] classContent) {
+        // The names are stored as (modified) UTF-8 in the constant pool, so searching the raw class file finds every class that references them
+        for (byte[] name : INTERCEPTED_NAMES) {
+            if (Bytes.indexOf(classContent, name) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private static class InstrumentingVisitor extends ClassVisitor {
         String className;
         private final List<LambdaFactoryDetails> lambdaFactories = new ArrayList<>();
@@ -24,6 +24,8 @@
 import org.gradle.cache.internal.InMemoryCacheDecoratorFactory;
 import org.gradle.cache.scopes.BuildScopedCache;
 import org.gradle.caching.internal.controller.BuildCacheController;
+import org.gradle.execution.plan.NodeDurationHistory;
+import org.gradle.execution.plan.PersistentNodeDurationHistory;
 import org.gradle.initialization.BuildCancellationToken;
 import org.gradle.internal.enterprise.core.GradleEnterprisePluginManager;
 import org.gradle.internal.event.ListenerManager;
@@ -99,6 +101,10 @@ ExecutionHistoryStore createExecutionHistoryStore(
         );
     }
 
+    NodeDurationHistory createNodeDurationHistory(ExecutionHistoryCacheAccess executionHistoryCacheAccess) {
+        return new PersistentNodeDurationHistory(executionHistoryCacheAccess.get());
+    }
+
     OutputFilesRepository createOutputFilesRepository(BuildScopedCache cacheRepository, InMemoryCacheDecoratorFactory inMemoryCacheDecoratorFactory) {
         PersistentCache cacheAccess = cacheRepository
             .crossVersionCache("buildOutputCleanup")
@@ -45,6 +45,7 @@
 import org.gradle.cache.internal.CleaningInMemoryCacheDecoratorFactory;
 import org.gradle.cache.internal.CrossBuildInMemoryCacheFactory;
 import org.gradle.cache.internal.InMemoryCacheDecoratorFactory;
+import org.gradle.cache.internal.LeastRecentlyUsedCacheDirs;
 import org.gradle.configuration.DefaultImportsReader;
 import org.gradle.configuration.ImportsReader;
 import org.gradle.execution.DefaultWorkValidationWarningRecorder;
@@ -71,6 +72,8 @@
 import org.gradle.internal.instantiation.InstanceGenerator;
 import org.gradle.internal.instantiation.InstantiatorFactory;
 import org.gradle.internal.instantiation.generator.DefaultInstantiatorFactory;
+import org.gradle.internal.instantiation.generator.DirectoryGeneratedClassBytesCache;
+import org.gradle.internal.instantiation.generator.GeneratedClassBytesCache;
 import org.gradle.internal.logging.LoggingManagerInternal;
 import org.gradle.internal.operations.BuildOperationListenerManager;
 import org.gradle.internal.operations.BuildOperationProgressEventEmitter;
@@ -111,6 +114,10 @@
  * only needs these services if it is running in --no-daemon mode.
  */
 public class GlobalScopeServices extends WorkerSharedGlobalScopeServices {
+    /**
+     * Enables the cache of generated class bytecode. Off by default, as GeneratedClassBytesCacheBenchmark shows that it does not make class generation faster in a new daemon.
+     */
+    public static final String GENERATED_CLASS_CACHE_PROPERTY = "org.gradle.internal.instantiation.generated-class-cache";
 
     protected final ClassPath additionalModuleClassPath;
     private final GradleBuildEnvironment environment;
@@ -214,8 +221,13 @@ StringInterner createStringInterner() {
         return new StringInterner();
     }
 
-    InstantiatorFactory createInstantiatorFactory(CrossBuildInMemoryCacheFactory cacheFactory, List<InjectAnnotationHandler> injectHandlers, List<AbstractOutputPropertyAnnotationHandler> outputHandlers) {
-        return new DefaultInstantiatorFactory(cacheFactory, injectHandlers, new OutputPropertyRoleAnnotationHandler(outputHandlers));
+    InstantiatorFactory createInstantiatorFactory(CrossBuildInMemoryCacheFactory cacheFactory, List<InjectAnnotationHandler> injectHandlers, List<AbstractOutputPropertyAnnotationHandler> outputHandlers, GradleUserHomeScopeServiceRegistry userHomeServiceRegistry) {
+        GeneratedClassBytesCache generatedClassBytesCache = Boolean.getBoolean(GENERATED_CLASS_CACHE_PROPERTY)
+            ? new DirectoryGeneratedClassBytesCache(() -> userHomeServiceRegistry.getCurrentServices()
+                .map(userHomeServices -> userHomeServices.get(LeastRecentlyUsedCacheDirs.class).dirFor("generated-classes"))
+                .orElse(null))
+            : GeneratedClassBytesCache.NONE;
+        return new DefaultInstantiatorFactory(cacheFactory, injectHandlers, new OutputPropertyRoleAnnotationHandler(outputHandlers), generatedClassBytesCache);
     }
 
     GradleUserHomeScopeServiceRegistry createGradleUserHomeScopeServiceRegistry(ServiceRegistry globalServices) {
@@ -41,6 +41,7 @@
 import org.gradle.cache.internal.FileContentCacheFactory;
 import org.gradle.cache.internal.GradleUserHomeCleanupServices;
 import org.gradle.cache.internal.InMemoryCacheDecoratorFactory;
+import org.gradle.cache.internal.LeastRecentlyUsedCacheDirs;
 import org.gradle.cache.internal.scopes.DefaultCacheScopeMapping;
 import org.gradle.cache.internal.scopes.DefaultGlobalScopedCache;
 import org.gradle.cache.scopes.GlobalScopedCache;
@@ -84,6 +85,7 @@
 import org.gradle.process.internal.health.memory.MemoryManager;
 import org.gradle.process.internal.worker.DefaultWorkerProcessFactory;
 import org.gradle.process.internal.worker.WorkerProcessFactory;
+import org.gradle.process.internal.worker.child.WorkerClassDataSharing;
 import org.gradle.process.internal.worker.child.WorkerProcessClassPathProvider;
 import org.gradle.util.GradleVersion;
 
@@ -108,6 +110,7 @@ public void configure(ServiceRegistration registration) {
         registration.add(DefaultClasspathTransformerCacheFactory.class);
         registration.add(GradleUserHomeScopeFileTimeStampInspector.class);
         registration.add(DefaultCachedClasspathTransformer.class);
+        registration.add(LeastRecentlyUsedCacheDirs.class);
         for (PluginServiceRegistry plugin : globalServices.getAll(PluginServiceRegistry.class)) {
             plugin.registerGradleUserHomeServices(registration);
         }
@@ -176,7 +179,8 @@ ExecFactory createExecFactory(ExecFactory parent, FileResolver fileResolver, Fil
     WorkerProcessFactory createWorkerProcessFactory(
         LoggingManagerInternal loggingManagerInternal, MessagingServer messagingServer, ClassPathRegistry classPathRegistry,
         TemporaryFileProvider temporaryFileProvider, JavaExecHandleFactory execHandleFactory, JvmVersionDetector jvmVersionDetector,
-        MemoryManager memoryManager, GradleUserHomeDirProvider gradleUserHomeDirProvider, OutputEventListener outputEventListener
+        MemoryManager memoryManager, GradleUserHomeDirProvider gradleUserHomeDirProvider, OutputEventListener outputEventListener,
+        LeastRecentlyUsedCacheDirs cacheDirs
     ) {
         return new DefaultWorkerProcessFactory(
             loggingManagerInternal,
@@ -188,7 +192,8 @@ WorkerProcessFactory createWorkerProcessFactory(
             execHandleFactory,
             jvmVersionDetector,
             outputEventListener,
-            memoryManager
+            memoryManager,
+            new WorkerClassDataSharing(jvmVersionDetector, () -> cacheDirs.dirFor("worker-cds"))
         );
     }
 
@@ -44,11 +44,15 @@
 import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.cache.PersistentIndexedCacheParameters;
 import org.gradle.cache.internal.InMemoryCacheDecoratorFactory;
+import org.gradle.cache.internal.LeastRecentlyUsedCacheDirs;
 import org.gradle.cache.scopes.BuildTreeScopedCache;
 import org.gradle.cache.scopes.GlobalScopedCache;
 import org.gradle.initialization.RootBuildLifecycleListener;
 import org.gradle.internal.build.BuildAddedListener;
 import org.gradle.internal.classloader.ClasspathHasher;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.execution.OutputChangeListener;
 import org.gradle.internal.execution.OutputSnapshotter;
@@ -65,8 +69,11 @@
 import org.gradle.internal.fingerprint.impl.DefaultFileCollectionSnapshotter;
 import org.gradle.internal.fingerprint.impl.FileCollectionFingerprinterRegistrations;
 import org.gradle.internal.hash.DefaultFileHasher;
+import org.gradle.internal.hash.DefaultStreamHasher;
 import org.gradle.internal.hash.FileHasher;
 import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.HashFunction;
+import org.gradle.internal.hash.Hashing;
 import org.gradle.internal.hash.StreamHasher;
 import org.gradle.internal.nativeintegration.NativeCapabilities;
 import org.gradle.internal.nativeintegration.filesystem.FileSystem;
@@ -87,8 +94,10 @@
 import org.gradle.internal.watch.registry.impl.WindowsFileWatcherRegistryFactory;
 import org.gradle.internal.watch.vfs.BuildLifecycleAwareVirtualFileSystem;
 import org.gradle.internal.watch.vfs.FileChangeListeners;
+import org.gradle.internal.watch.vfs.VirtualFileSystemCheckpoint;
 import org.gradle.internal.watch.vfs.WatchableFileSystemDetector;
 import org.gradle.internal.watch.vfs.impl.DefaultWatchableFileSystemDetector;
+import org.gradle.internal.watch.vfs.impl.FileBackedVirtualFileSystemCheckpoint;
 import org.gradle.internal.watch.vfs.impl.LocationsWrittenByCurrentBuild;
 import org.gradle.internal.watch.vfs.impl.WatchingNotSupportedVirtualFileSystem;
 import org.gradle.internal.watch.vfs.impl.WatchingVirtualFileSystem;
@@ -97,8 +106,10 @@
 
 import javax.annotation.Nullable;
 import java.io.File;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 import java.util.function.Predicate;
 
 import static org.gradle.internal.snapshot.CaseSensitivity.CASE_INSENSITIVE;
@@ -117,9 +128,33 @@ public class VirtualFileSystemServices extends AbstractPluginServiceRegistry {
 
     public static final String MAX_HIERARCHIES_TO_WATCH_PROPERTY = "org.gradle.vfs.watch.hierarchies.max";
 
+    /**
+     * When set to true, the files of a directory are hashed concurrently while snapshotting the directory.
+     */
+    public static final String PARALLEL_DIRECTORY_SNAPSHOTTING_PROPERTY = "org.gradle.internal.vfs.parallel-snapshotting";
+
+    /**
+     * When set to true and file system watching is enabled, the virtual file system is stored at the end of each build,
+     * so a new daemon can start from the stored state instead of from an empty virtual file system.
+     */
+    public static final String VFS_CHECKPOINT_PROPERTY = "org.gradle.internal.vfs.checkpoint";
+
     private static final int DEFAULT_MAX_HIERARCHIES_TO_WATCH = 50;
     private static final int FILE_HASHER_MEMORY_CACHE_SIZE = 400000;
 
+    /**
+     * Content hashes created with a non-default hash function are kept in separate caches, so switching the hash function never mixes up hashes.
+     */
+    private static String fileHashesCacheName(StreamHasher streamHasher) {
+        if (streamHasher instanceof DefaultStreamHasher) {
+            HashFunction hashFunction = ((DefaultStreamHasher) streamHasher).getHashFunction();
+            if (hashFunction != Hashing.defaultFunction()) {
+                return "fileHashes-" + hashFunction.getAlgorithm().toLowerCase(Locale.ROOT);
+            }
+        }
+        return "fileHashes";
+    }
+
     public static boolean isDropVfs(StartParameter startParameter) {
         String dropVfs = getSystemProperty(VFS_DROP_PROPERTY, startParameter.getSystemPropertiesArgs());
         return dropVfs != null && !"false".equalsIgnoreCase(dropVfs);
@@ -160,6 +195,33 @@ FileHasherStatistics.Collector createCachingFileHasherStatisticsCollector() {
         DirectorySnapshotterStatistics.Collector createDirectorySnapshotterStatisticsCollector() {
             return new DirectorySnapshotterStatistics.Collector();
         }
+
+        DirectorySnapshottingExecutor createDirectorySnapshottingExecutor(ExecutorFactory executorFactory) {
+            return Boolean.getBoolean(PARALLEL_DIRECTORY_SNAPSHOTTING_PROPERTY)
+                ? new DirectorySnapshottingExecutor(executorFactory.create("Directory snapshotting", Runtime.getRuntime().availableProcessors()))
+                : new DirectorySnapshottingExecutor(null);
+        }
+    }
+
+    @VisibleForTesting
+    static class DirectorySnapshottingExecutor implements Stoppable {
+        private final ManagedExecutor executor;
+
+        public DirectorySnapshottingExecutor(@Nullable ManagedExecutor executor) {
+            this.executor = executor;
+        }
+
+        @Nullable
+        public Executor getExecutor() {
+            return executor;
+        }
+
+        @Override
+        public void stop() {
+            if (executor != null) {
+                executor.stop();
+            }
+        }
     }
 
     @VisibleForTesting
@@ -177,7 +239,7 @@ FileHasher createCachingFileHasher(
             StreamHasher streamHasher,
             StringInterner stringInterner
         ) {
-            CachingFileHasher fileHasher = new CachingFileHasher(new DefaultFileHasher(streamHasher), fileStore, stringInterner, fileTimeStampInspector, "fileHashes", fileSystem, FILE_HASHER_MEMORY_CACHE_SIZE, statisticsCollector);
+            CachingFileHasher fileHasher = new CachingFileHasher(new DefaultFileHasher(streamHasher), fileStore, stringInterner, fileTimeStampInspector, fileHashesCacheName(streamHasher), fileSystem, FILE_HASHER_MEMORY_CACHE_SIZE, statisticsCollector);
             fileTimeStampInspector.attach(fileHasher);
             return fileHasher;
         }
@@ -210,7 +272,10 @@ BuildLifecycleAwareVirtualFileSystem createVirtualFileSystem(
             FileChangeListeners fileChangeListeners,
             FileSystem fileSystem,
             GlobalCacheLocations globalCacheLocations,
-            WatchableFileSystemDetector watchableFileSystemDetector
+            WatchableFileSystemDetector watchableFileSystemDetector,
+            LeastRecentlyUsedCacheDirs cacheDirs,
+            StreamHasher streamHasher,
+            ExecutorFactory executorFactory
         ) {
             CaseSensitivity caseSensitivity = fileSystem.isCaseSensitive() ? CASE_SENSITIVE : CASE_INSENSITIVE;
             SnapshotHierarchy root = DefaultSnapshotHierarchy.empty(caseSensitivity);
@@ -228,7 +293,13 @@ BuildLifecycleAwareVirtualFileSystem createVirtualFileSystem(
                     sectionId -> documentationRegistry.getDocumentationFor("gradle_daemon", sectionId),
                     locationsWrittenByCurrentBuild,
                     watchableFileSystemDetector,
-                    fileChangeListeners
+                    fileChangeListeners,
+                    Boolean.getBoolean(VFS_CHECKPOINT_PROPERTY)
+                        ? new FileBackedVirtualFileSystemCheckpoint(
+                            cacheDirs.dirFor(fileHashesCacheName(streamHasher) + "-checkpoints"),
+                            fileSystem,
+                            executorFactory.create("VFS checkpoint writer", 1))
+                        : VirtualFileSystemCheckpoint.NONE
                 ))
                 .orElse(new WatchingNotSupportedVirtualFileSystem(root));
             listenerManager.addListener((BuildAddedListener) buildState -> {
@@ -247,7 +318,8 @@ FileSystemAccess createFileSystemAccess(
             ListenerManager listenerManager,
             PatternSpecFactory patternSpecFactory,
             FileSystemAccess.WriteListener writeListener,
-            DirectorySnapshotterStatistics.Collector statisticsCollector
+            DirectorySnapshotterStatistics.Collector statisticsCollector,
+            DirectorySnapshottingExecutor directorySnapshottingExecutor
         ) {
             DefaultFileSystemAccess fileSystemAccess = new DefaultFileSystemAccess(
                 hasher,
@@ -256,6 +328,7 @@ FileSystemAccess createFileSystemAccess(
                 virtualFileSystem,
                 writeListener,
                 statisticsCollector,
+                directorySnapshottingExecutor.getExecutor(),
                 DirectoryScanner.getDefaultExcludes()
             );
             listenerManager.addListener(new DefaultExcludesBuildListener(fileSystemAccess) {
@@ -347,7 +420,7 @@ FileHasher createFileHasher(
             StringInterner stringInterner,
             FileHasherStatistics.Collector statisticsCollector
         ) {
-            CachingFileHasher localHasher = new CachingFileHasher(new DefaultFileHasher(streamHasher), cacheAccess, stringInterner, fileTimeStampInspector, "fileHashes", fileSystem, FILE_HASHER_MEMORY_CACHE_SIZE, statisticsCollector);
+            CachingFileHasher localHasher = new CachingFileHasher(new DefaultFileHasher(streamHasher), cacheAccess, stringInterner, fileTimeStampInspector, fileHashesCacheName(streamHasher), fileSystem, FILE_HASHER_MEMORY_CACHE_SIZE, statisticsCollector);
             return new SplitFileHasher(globalHasher, localHasher, globalCacheLocations);
         }
 
@@ -358,7 +431,8 @@ FileSystemAccess createFileSystemAccess(
             StringInterner stringInterner,
             VirtualFileSystem root,
             FileSystemAccess.WriteListener writeListener,
-            DirectorySnapshotterStatistics.Collector statisticsCollector
+            DirectorySnapshotterStatistics.Collector statisticsCollector,
+            DirectorySnapshottingExecutor directorySnapshottingExecutor
         ) {
             DefaultFileSystemAccess buildSessionsScopedVirtualFileSystem = new DefaultFileSystemAccess(
                 hasher,
@@ -367,6 +441,7 @@ FileSystemAccess createFileSystemAccess(
                 root,
                 writeListener,
                 statisticsCollector,
+                directorySnapshottingExecutor.getExecutor(),
                 DirectoryScanner.getDefaultExcludes()
             );
 
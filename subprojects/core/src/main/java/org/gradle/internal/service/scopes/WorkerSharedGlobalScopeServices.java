@@ -39,6 +39,7 @@
 import org.gradle.internal.file.Deleter;
 import org.gradle.internal.file.impl.DefaultDeleter;
 import org.gradle.internal.hash.DefaultStreamHasher;
+import org.gradle.internal.hash.Hashing;
 import org.gradle.internal.hash.StreamHasher;
 import org.gradle.internal.instantiation.InstantiatorFactory;
 import org.gradle.internal.logging.events.OutputEventListener;
@@ -67,6 +68,11 @@
 
 public class WorkerSharedGlobalScopeServices extends BasicGlobalScopeServices {
 
+    /**
+     * When set to true, file content is hashed with 128-bit MurmurHash3 instead of MD5.
+     */
+    public static final String MURMUR3_CONTENT_HASHING_PROPERTY = "org.gradle.internal.hash.murmur3-content-hashing";
+
     protected CacheFactory createCacheFactory(FileLockManager fileLockManager, ExecutorFactory executorFactory, ProgressLoggerFactory progressLoggerFactory) {
         return new DefaultCacheFactory(fileLockManager, executorFactory, progressLoggerFactory);
     }
@@ -104,7 +110,9 @@ DefaultFilePropertyFactory createFilePropertyFactory(PropertyHost propertyHost,
     }
 
     StreamHasher createStreamHasher() {
-        return new DefaultStreamHasher();
+        return Boolean.getBoolean(MURMUR3_CONTENT_HASHING_PROPERTY)
+            ? new DefaultStreamHasher(Hashing.murmur3())
+            : new DefaultStreamHasher();
     }
 
     Deleter createDeleter(Clock clock, FileSystem fileSystem, OperatingSystem os) {
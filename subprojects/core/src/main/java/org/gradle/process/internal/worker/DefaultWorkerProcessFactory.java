@@ -28,6 +28,7 @@
 import org.gradle.process.internal.JavaExecHandleFactory;
 import org.gradle.process.internal.health.memory.MemoryManager;
 import org.gradle.process.internal.worker.child.ApplicationClassesInSystemClassLoaderWorkerImplementationFactory;
+import org.gradle.process.internal.worker.child.WorkerClassDataSharing;
 
 import java.io.File;
 
@@ -45,14 +46,15 @@ public class DefaultWorkerProcessFactory implements WorkerProcessFactory {
 
     public DefaultWorkerProcessFactory(LoggingManager loggingManager, MessagingServer server, ClassPathRegistry classPathRegistry, IdGenerator<Long> idGenerator,
                                        File gradleUserHomeDir, TemporaryFileProvider temporaryFileProvider, JavaExecHandleFactory execHandleFactory,
-                                       JvmVersionDetector jvmVersionDetector, OutputEventListener outputEventListener, MemoryManager memoryManager) {
+                                       JvmVersionDetector jvmVersionDetector, OutputEventListener outputEventListener, MemoryManager memoryManager,
+                                       WorkerClassDataSharing classDataSharing) {
         this.loggingManager = loggingManager;
         this.server = server;
         this.idGenerator = idGenerator;
         this.execHandleFactory = execHandleFactory;
         this.jvmVersionDetector = jvmVersionDetector;
         this.outputEventListener = outputEventListener;
-        this.workerImplementationFactory = new ApplicationClassesInSystemClassLoaderWorkerImplementationFactory(classPathRegistry, temporaryFileProvider, gradleUserHomeDir);
+        this.workerImplementationFactory = new ApplicationClassesInSystemClassLoaderWorkerImplementationFactory(classPathRegistry, temporaryFileProvider, gradleUserHomeDir, classDataSharing);
         this.memoryManager = memoryManager;
     }
 
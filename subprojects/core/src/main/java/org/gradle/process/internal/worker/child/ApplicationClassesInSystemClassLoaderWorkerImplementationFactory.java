@@ -70,15 +70,18 @@ public class ApplicationClassesInSystemClassLoaderWorkerImplementationFactory {
     private final ClassPathRegistry classPathRegistry;
     private final TemporaryFileProvider temporaryFileProvider;
     private final File gradleUserHomeDir;
+    private final WorkerClassDataSharing classDataSharing;
 
     public ApplicationClassesInSystemClassLoaderWorkerImplementationFactory(
         ClassPathRegistry classPathRegistry,
         TemporaryFileProvider temporaryFileProvider,
-        File gradleUserHomeDir
+        File gradleUserHomeDir,
+        WorkerClassDataSharing classDataSharing
     ) {
         this.classPathRegistry = classPathRegistry;
         this.temporaryFileProvider = temporaryFileProvider;
         this.gradleUserHomeDir = gradleUserHomeDir;
+        this.classDataSharing = classDataSharing;
     }
 
     /**
@@ -103,6 +106,11 @@ public void prepareJavaCommand(long workerId, String displayName, WorkerProcessB
             File optionsFile = temporaryFileProvider.createTemporaryFile("gradle-worker-classpath", "txt");
             List<String> jvmArgs = writeOptionsFile(runAsModule, workerMainClassPath, implementationModulePath, applicationClasspath, applicationModulePath, optionsFile);
             execSpec.jvmArgs(jvmArgs);
+            if (applicationModulePath.isEmpty()) {
+                List<File> classpath = new ArrayList<>(workerMainClassPath);
+                classpath.addAll(applicationClasspath);
+                classDataSharing.configure(execSpec, classpath);
+            }
         } else {
             // Use a dummy security manager, which hacks the application classpath into the system ClassLoader
             execSpec.classpath(workerMainClassPath);
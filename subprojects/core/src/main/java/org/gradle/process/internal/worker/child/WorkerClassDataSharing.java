@@ -0,0 +1,183 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal.worker.child;
+
+import org.gradle.api.JavaVersion;
+import org.gradle.internal.Factory;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.jvm.inspection.JvmVersionDetector;
+import org.gradle.process.ExecResult;
+import org.gradle.process.internal.ExecHandle;
+import org.gradle.process.internal.ExecHandleListener;
+import org.gradle.process.internal.JavaExecHandleBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Launches worker processes with a dynamic class data sharing (AppCDS) archive of the classes they load from their classpath.
+ *
+ * <p>The archive for a classpath is written by the first worker process that uses the classpath when it exits, and is mapped by the worker processes started after it.
+ * Archives are named after a hash of the Java executable and of the classpath files, so a worker with a changed classpath creates a new archive.</p>
+ *
+ * <p>The modification time of an archive is updated when a worker process uses it, so unused archives can be cleaned up.</p>
+ *
+ * <p>Only Java 13 and later can create dynamic archives, and the JVM refuses to archive a classpath that contains a directory,
+ * so workers with a directory on their classpath do not use an archive.</p>
+ */
+public class WorkerClassDataSharing {
+    /**
+     * Enables class data sharing for worker processes.
+     */
+    public static final String ENABLED_PROPERTY = "org.gradle.internal.workers.cds";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorkerClassDataSharing.class);
+
+    private final JvmVersionDetector jvmVersionDetector;
+    private final Factory<File> archiveDir;
+    private final boolean enabled;
+    private final Set<HashCode> archivesInProgress = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param archiveDir provides the directory to store the archives in, when the first archive is used or created.
+     */
+    public WorkerClassDataSharing(JvmVersionDetector jvmVersionDetector, Factory<File> archiveDir) {
+        this(jvmVersionDetector, archiveDir, Boolean.getBoolean(ENABLED_PROPERTY));
+    }
+
+    WorkerClassDataSharing(JvmVersionDetector jvmVersionDetector, Factory<File> archiveDir, boolean enabled) {
+        this.jvmVersionDetector = jvmVersionDetector;
+        this.archiveDir = archiveDir;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Configures the given command, which starts a JVM with the given classpath, to use or to create the archive for the classpath.
+     */
+    public void configure(JavaExecHandleBuilder execSpec, List<File> classpath) {
+        if (!enabled || classpath.isEmpty() || !classpath.stream().allMatch(File::isFile) || hasClassDataSharingArgs(execSpec.getJvmArgs())) {
+            return;
+        }
+        String executable = execSpec.getExecutable();
+        JavaVersion javaVersion = jvmVersionDetector.getJavaVersion(executable);
+        if (!javaVersion.isCompatibleWith(JavaVersion.VERSION_13)) {
+            return;
+        }
+
+        HashCode key = keyFor(executable, javaVersion, classpath);
+        File archiveDir = this.archiveDir.create();
+        File archive = new File(archiveDir, key + ".jsa");
+        if (archive.isFile()) {
+            LOGGER.debug("Using class data sharing archive {}", archive);
+            // Record that the archive is still used, so it is not cleaned up
+            if (!archive.setLastModified(System.currentTimeMillis())) {
+                LOGGER.debug("Could not update the modification time of class data sharing archive {}", archive);
+            }
+            // The JVM validates the archive against the classpath and silently runs without it when they do not match
+            execSpec.jvmArgs("-XX:SharedArchiveFile=" + archive.getAbsolutePath(), "-Xlog:cds=off", "-Xlog:cds+dynamic=off");
+        } else if (archivesInProgress.add(key)) {
+            try {
+                Files.createDirectories(archiveDir.toPath());
+            } catch (IOException e) {
+                LOGGER.debug("Could not create class data sharing archive directory {}", archiveDir, e);
+                archivesInProgress.remove(key);
+                return;
+            }
+            // Another daemon may be creating the same archive, so the worker writes a file of its own that replaces the archive when it is complete
+            File tempArchive = new File(archiveDir, key + "-" + UUID.randomUUID() + ".tmp");
+            LOGGER.debug("Creating class data sharing archive {}", archive);
+            execSpec.jvmArgs("-XX:ArchiveClassesAtExit=" + tempArchive.getAbsolutePath(), "-Xlog:cds=off", "-Xlog:cds+dynamic=off");
+            execSpec.listener(new ArchiveCreatingListener(key, tempArchive, archive));
+        }
+    }
+
+    private static boolean hasClassDataSharingArgs(List<String> jvmArgs) {
+        for (String jvmArg : jvmArgs) {
+            if (jvmArg.startsWith("-Xshare") || jvmArg.startsWith("-XX:SharedArchiveFile") || jvmArg.startsWith("-XX:ArchiveClassesAtExit")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static HashCode keyFor(String executable, JavaVersion javaVersion, List<File> classpath) {
+        Hasher hasher = Hashing.newHasher();
+        // An update of the JVM usually replaces the executable, and the archives of the previous build of the JVM cannot be used
+        putFile(hasher, new File(executable));
+        hasher.putString(javaVersion.getMajorVersion());
+        hasher.putInt(classpath.size());
+        for (File file : classpath) {
+            putFile(hasher, file);
+        }
+        return hasher.hash();
+    }
+
+    private static void putFile(Hasher hasher, File file) {
+        hasher.putString(file.getAbsolutePath());
+        hasher.putLong(file.length());
+        hasher.putLong(file.lastModified());
+    }
+
+    private class ArchiveCreatingListener implements ExecHandleListener {
+        private final HashCode key;
+        private final File tempArchive;
+        private final File archive;
+
+        ArchiveCreatingListener(HashCode key, File tempArchive, File archive) {
+            this.key = key;
+            this.tempArchive = tempArchive;
+            this.archive = archive;
+        }
+
+        @Override
+        public void beforeExecutionStarted(ExecHandle execHandle) {
+        }
+
+        @Override
+        public void executionStarted(ExecHandle execHandle) {
+        }
+
+        @Override
+        public void executionFinished(ExecHandle execHandle, ExecResult execResult) {
+            try {
+                // A worker which did not exit normally may have written a partial archive
+                if (execResult.getExitValue() == 0 && tempArchive.isFile()) {
+                    Files.move(tempArchive.toPath(), archive.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                }
+            } catch (IOException e) {
+                LOGGER.debug("Could not store class data sharing archive {}", archive, e);
+            } finally {
+                try {
+                    Files.deleteIfExists(tempArchive.toPath());
+                } catch (IOException e) {
+                    LOGGER.debug("Could not delete {}", tempArchive, e);
+                }
+                archivesInProgress.remove(key);
+            }
+        }
+    }
+}
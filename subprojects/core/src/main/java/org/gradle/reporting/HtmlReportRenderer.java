@@ -93,7 +93,8 @@ public DefaultHtmlReportContext(File outputDirectory) {
             this.outputDirectory = outputDirectory;
         }
 
-        Resource addResource(URL source) {
+        // Pages may be rendered in parallel
+        synchronized Resource addResource(URL source) {
             String urlString = source.toString();
             Resource resource = resources.get(urlString);
             if (resource == null) {
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal
+
+import org.gradle.cache.CacheBuilder
+import org.gradle.cache.FileLockManager
+import org.gradle.cache.PersistentCache
+import org.gradle.cache.scopes.GlobalScopedCache
+import spock.lang.Specification
+
+import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode
+
+class LeastRecentlyUsedCacheDirsTest extends Specification {
+    def globalScopedCache = Mock(GlobalScopedCache)
+    def cacheBuilder = Mock(CacheBuilder)
+    def cache = Mock(PersistentCache)
+    def cacheDirs = new LeastRecentlyUsedCacheDirs(globalScopedCache)
+
+    def "opens each cache with least recently used cleanup once and closes it"() {
+        def baseDir = new File("generated-classes")
+
+        when:
+        def first = cacheDirs.dirFor("generated-classes")
+        def second = cacheDirs.dirFor("generated-classes")
+
+        then:
+        first == baseDir
+        second == baseDir
+        1 * globalScopedCache.cache("generated-classes") >> cacheBuilder
+        1 * cacheBuilder.withDisplayName("generated-classes cache") >> cacheBuilder
+        1 * cacheBuilder.withLockOptions(mode(FileLockManager.LockMode.OnDemand)) >> cacheBuilder
+        1 * cacheBuilder.withCleanup({ it instanceof LeastRecentlyUsedCacheCleanup }) >> cacheBuilder
+        1 * cacheBuilder.open() >> cache
+        _ * cache.getBaseDir() >> baseDir
+
+        when:
+        cacheDirs.close()
+
+        then:
+        1 * cache.close()
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan
+
+import org.gradle.api.internal.TaskInternal
+import org.gradle.api.internal.tasks.TaskExecutionOutcome
+import org.gradle.api.internal.tasks.TaskStateInternal
+import spock.lang.Specification
+
+class CriticalPathSchedulingTest extends Specification {
+    def durationHistory = Mock(NodeDurationHistory)
+    def scheduling = new CriticalPathScheduling(durationHistory)
+
+    def "starts the longest chain of nodes first"() {
+        def shortChain = node()
+        def codegen = node()
+        def compile = node(codegen)
+        def test = node(compile)
+
+        given:
+        durationHistory.getPreviousDurations(_) >> [(shortChain): 40L, (codegen): 10L, (compile): 20L, (test): 30L]
+
+        expect:
+        scheduling.prioritize([shortChain, codegen, compile, test]) == [codegen, compile, shortChain, test]
+    }
+
+    def "keeps the order of nodes with the same estimate"() {
+        def a = node()
+        def b = node(a)
+        def c = node()
+        def d = node(c)
+
+        given:
+        durationHistory.getPreviousDurations(_) >> [:]
+
+        expect:
+        scheduling.prioritize([a, b, c, d]) == [a, b, c, d]
+    }
+
+    def "orders nodes before the nodes that run after them when their own estimate is zero"() {
+        def a = node()
+        def b = node(a)
+        def c = node()
+
+        given:
+        durationHistory.getPreviousDurations(_) >> [(b): 100L, (c): 50L]
+
+        expect:
+        scheduling.prioritize([a, b, c]) == [a, b, c]
+    }
+
+    def "records the durations of executed nodes when the plan finishes"() {
+        def a = node()
+        def b = node(a)
+
+        given:
+        durationHistory.getPreviousDurations(_) >> [:]
+        scheduling.prioritize([a, b])
+
+        when:
+        scheduling.nodeStarted(a)
+        scheduling.nodeFinished(a)
+        scheduling.planFinished("plan")
+
+        then:
+        1 * durationHistory.recordDurations({ it.keySet() == [a] as Set })
+
+        when:
+        scheduling.planFinished("plan")
+
+        then:
+        0 * durationHistory.recordDurations(_)
+    }
+
+    def "does not record the durations of tasks which did not do their work"() {
+        def executed = taskNode(TaskExecutionOutcome.EXECUTED)
+        def upToDate = taskNode(TaskExecutionOutcome.UP_TO_DATE)
+        def fromCache = taskNode(TaskExecutionOutcome.FROM_CACHE)
+        def skipped = taskNode(TaskExecutionOutcome.SKIPPED)
+        def failed = taskNode(TaskExecutionOutcome.EXECUTED, new RuntimeException())
+        def nodes = [executed, upToDate, fromCache, skipped, failed]
+
+        given:
+        durationHistory.getPreviousDurations(_) >> [:]
+        scheduling.prioritize(nodes)
+
+        when:
+        nodes.each {
+            scheduling.nodeStarted(it)
+            scheduling.nodeFinished(it)
+        }
+        scheduling.planFinished("plan")
+
+        then:
+        1 * durationHistory.recordDurations({ it.keySet() == [executed] as Set })
+    }
+
+    def "does not record durations when no task did its work"() {
+        def upToDate = taskNode(TaskExecutionOutcome.UP_TO_DATE)
+
+        given:
+        durationHistory.getPreviousDurations(_) >> [:]
+        scheduling.prioritize([upToDate])
+
+        when:
+        scheduling.nodeStarted(upToDate)
+        scheduling.nodeFinished(upToDate)
+        scheduling.planFinished("plan")
+
+        then:
+        0 * durationHistory.recordDurations(_)
+    }
+
+    private LocalTaskNode taskNode(TaskExecutionOutcome outcome, RuntimeException failure = null) {
+        def state = new TaskStateInternal()
+        if (failure == null) {
+            state.outcome = outcome
+        } else {
+            state.setOutcome(failure)
+        }
+        def task = Stub(TaskInternal) {
+            getState() >> state
+        }
+        return Stub(LocalTaskNode) {
+            getTask() >> task
+            getAllSuccessors() >> []
+        }
+    }
+
+    private Node node(Node... successors) {
+        def node = Stub(Node)
+        node.getAllSuccessors() >> (successors as List)
+        return node
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan
+
+import spock.lang.Specification
+
+class ExecutionQueueTest extends Specification {
+    def a = Stub(Node)
+    def b = Stub(Node)
+    def c = Stub(Node)
+    def d = Stub(Node)
+    def queue = new DefaultFinalizedExecutionPlan.ExecutionQueue()
+
+    def "visits nodes in order"() {
+        when:
+        queue.setNodes([a, b, c])
+
+        then:
+        queue.size() == 3
+        remaining() == [a, b, c]
+        !queue.hasNext()
+
+        when:
+        queue.restart()
+
+        then:
+        remaining() == [a, b, c]
+    }
+
+    def "removes the current node"() {
+        given:
+        queue.setNodes([a, b, c])
+
+        when:
+        queue.next()
+        queue.next()
+        queue.remove()
+
+        then:
+        queue.size() == 2
+        queue.next() == c
+        contents() == [a, c]
+
+        when:
+        queue.next()
+        queue.remove()
+        queue.next()
+        queue.remove()
+
+        then:
+        queue.empty
+        !queue.hasNext()
+    }
+
+    def "inserts nodes before the current node and continues from the first inserted node"() {
+        given:
+        queue.setNodes([a, b])
+
+        when:
+        queue.next()
+        queue.next()
+        queue.startInsert()
+        queue.insert(c)
+        queue.insert(d)
+
+        then:
+        queue.restartFromInsertPoint()
+        remaining() == [c, d, b]
+        contents() == [a, c, d, b]
+    }
+
+    def "continues after the current node when nothing is inserted"() {
+        given:
+        queue.setNodes([a, b, c])
+
+        when:
+        queue.next()
+        queue.startInsert()
+
+        then:
+        !queue.restartFromInsertPoint()
+        remaining() == [b, c]
+    }
+
+    def "inserts nodes at the start of the queue after restart"() {
+        given:
+        queue.setNodes([a, b])
+
+        when:
+        queue.restart()
+        queue.startInsert()
+        queue.insert(c)
+
+        then:
+        queue.restartFromInsertPoint()
+        remaining() == [c, a, b]
+    }
+
+    def "moves node to the front of the queue without changing the next node"() {
+        given:
+        queue.setNodes([a, b, c, d])
+
+        when:
+        queue.next()
+        queue.priorityNode(c)
+
+        then:
+        queue.next() == b
+        contents() == [c, a, b, d]
+
+        when:
+        queue.priorityNode(d)
+
+        then:
+        !queue.hasNext()
+        contents() == [d, c, a, b]
+    }
+
+    def "next node moves on when it is moved to the front of the queue"() {
+        given:
+        queue.setNodes([a, b, c])
+
+        when:
+        queue.next()
+        queue.priorityNode(b)
+
+        then:
+        remaining() == [c]
+        contents() == [b, a, c]
+    }
+
+    def "moves node which is in the queue more than once to the front of the queue after its first entry was removed"() {
+        given:
+        queue.setNodes([a, b, c])
+
+        when:
+        queue.next()
+        queue.next()
+        queue.startInsert()
+        queue.insert(c)
+        queue.restartFromInsertPoint()
+        queue.next()
+        queue.next()
+        queue.next()
+        queue.remove()
+
+        then:
+        contents() == [a, c, b]
+
+        when:
+        queue.restart()
+        queue.next()
+        queue.priorityNode(c)
+
+        then:
+        remaining() == [b]
+        contents() == [c, a, b]
+    }
+
+    private List<Node> remaining() {
+        def nodes = []
+        while (queue.hasNext()) {
+            nodes << queue.next()
+        }
+        return nodes
+    }
+
+    private List<Node> contents() {
+        queue.restart()
+        return remaining()
+    }
+}
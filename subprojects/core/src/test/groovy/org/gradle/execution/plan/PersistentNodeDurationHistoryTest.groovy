@@ -0,0 +1,98 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan
+
+import org.gradle.api.internal.TaskInternal
+import org.gradle.api.internal.tasks.TaskExecutionOutcome
+import org.gradle.api.internal.tasks.TaskStateInternal
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.testfixtures.internal.TestInMemoryCacheFactory
+import org.junit.Rule
+import spock.lang.Specification
+
+class PersistentNodeDurationHistoryTest extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+
+    def history = new PersistentNodeDurationHistory(new TestInMemoryCacheFactory().open(tmpDir.file("executionHistory"), "execution history"))
+
+    def "averages the recorded durations of a task"() {
+        def task = taskNode(":task", TaskExecutionOutcome.EXECUTED)
+
+        when:
+        history.recordDurations([(task): 100L])
+
+        then:
+        history.getPreviousDurations([task]) == [(task): 100L]
+
+        when:
+        history.recordDurations([(task): 200L])
+
+        then:
+        history.getPreviousDurations([task]) == [(task): 130L]
+    }
+
+    def "does not track nodes which are not tasks"() {
+        def node = Stub(Node)
+
+        when:
+        history.recordDurations([(node): 100L])
+
+        then:
+        history.getPreviousDurations([node]).isEmpty()
+    }
+
+    def "keeps the priorities of an executed build when the next build is up-to-date"() {
+        def executedFast = taskNode(":fast", TaskExecutionOutcome.EXECUTED)
+        def executedSlow = taskNode(":slow", TaskExecutionOutcome.EXECUTED)
+        def upToDateFast = taskNode(":fast", TaskExecutionOutcome.UP_TO_DATE)
+        def upToDateSlow = taskNode(":slow", TaskExecutionOutcome.UP_TO_DATE)
+
+        given:
+        // The fast and slow tasks executed in a previous build
+        history.recordDurations([(executedFast): 10L, (executedSlow): 1000L])
+
+        when:
+        def upToDateBuild = new CriticalPathScheduling(history)
+        def prioritized = upToDateBuild.prioritize([upToDateFast, upToDateSlow])
+        [upToDateFast, upToDateSlow].each {
+            upToDateBuild.nodeStarted(it)
+            upToDateBuild.nodeFinished(it)
+        }
+        upToDateBuild.planFinished("up-to-date build")
+
+        then:
+        prioritized == [upToDateSlow, upToDateFast]
+
+        and:
+        new CriticalPathScheduling(history).prioritize([executedFast, executedSlow]) == [executedSlow, executedFast]
+        history.getPreviousDurations([executedFast, executedSlow]) == [(executedFast): 10L, (executedSlow): 1000L]
+    }
+
+    private LocalTaskNode taskNode(String path, TaskExecutionOutcome outcome) {
+        def state = new TaskStateInternal()
+        state.outcome = outcome
+        def task = Stub(TaskInternal) {
+            getPath() >> path
+            getState() >> state
+        }
+        return Stub(LocalTaskNode) {
+            getTask() >> task
+            getAllSuccessors() >> []
+        }
+    }
+}
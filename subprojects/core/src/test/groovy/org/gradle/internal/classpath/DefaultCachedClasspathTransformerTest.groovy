@@ -37,6 +37,7 @@ import org.junit.Rule
 import spock.lang.Subject
 
 import java.util.zip.ZipEntry
+import java.util.zip.ZipFile
 
 import static org.gradle.internal.classpath.CachedClasspathTransformer.StandardTransform.BuildLogic
 import static org.gradle.internal.classpath.CachedClasspathTransformer.StandardTransform.None
@@ -421,6 +422,72 @@ class DefaultCachedClasspathTransformerTest extends ConcurrentSpec {
         zip.hasCompression("res.txt", ZipEntry.STORED)
     }
 
+    def "copies classes which need no instrumentation as they are"() {
+        given:
+        def file = testDir.file("thing.jar")
+        modifiedJar(file)
+        def classpath = DefaultClassPath.of(file)
+
+        when:
+        def cachedClasspath = transformer.transform(classpath, BuildLogic)
+
+        then:
+        def zip = new ZipFile(cachedClasspath.asFiles.first())
+        zip.getInputStream(zip.getEntry("b.class")).bytes == classTwo()
+
+        cleanup:
+        zip?.close()
+    }
+
+    def "instruments the entries of a large archive in chunks and keeps their order"() {
+        given:
+        def file = testDir.file("thing.jar")
+        def resourceNames = (0..<200).collect { "res${it}.txt" }
+        classpathBuilder.jar(file) { builder ->
+            resourceNames.each { builder.put(it, new byte[8192]) }
+            builder.put("a.class", classOne())
+        }
+        def classpath = DefaultClassPath.of(file)
+
+        when:
+        def cachedClasspath = transformer.transform(classpath, BuildLogic)
+
+        then:
+        def zip = new ZipFile(cachedClasspath.asFiles.first())
+        zip.entries().collect { it.name } == resourceNames + ["a.class"]
+        zip.getInputStream(zip.getEntry("a.class")).bytes != classOne()
+
+        cleanup:
+        zip?.close()
+    }
+
+    def "instruments the entries of large archives which share the pending entries limit"() {
+        given:
+        def files = (0..<4).collect { testDir.file("thing${it}.jar") }
+        def resourceNames = (0..<400).collect { "res${it}.txt" }
+        files.each { file ->
+            classpathBuilder.jar(file) { builder ->
+                resourceNames.each { builder.put(it, new byte[8192]) }
+                builder.put("a.class", classOne())
+            }
+        }
+        def classpath = DefaultClassPath.of(files)
+
+        when:
+        def cachedClasspath = transformer.transform(classpath, BuildLogic)
+
+        then:
+        cachedClasspath.asFiles.size() == 4
+        cachedClasspath.asFiles.every { cachedFile ->
+            def zip = new ZipFile(cachedFile)
+            try {
+                zip.entries().collect { it.name } == resourceNames + ["a.class"]
+            } finally {
+                zip.close()
+            }
+        }
+    }
+
     def "uses non-file URL from origin"() {
         given:
         def file = testDir.file("thing.jar")
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal.worker.child
+
+import org.gradle.api.JavaVersion
+import org.gradle.internal.jvm.inspection.JvmVersionDetector
+import org.gradle.process.ExecResult
+import org.gradle.process.internal.ExecHandleListener
+import org.gradle.process.internal.JavaExecHandleBuilder
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class WorkerClassDataSharingTest extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+
+    def jvmVersionDetector = Stub(JvmVersionDetector) {
+        getJavaVersion("java") >> JavaVersion.VERSION_17
+    }
+    def archiveDir = tmpDir.file("archives")
+    def classpath = [tmpDir.createFile("worker-main.jar"), tmpDir.createFile("lib.jar")]
+    def classDataSharing = new WorkerClassDataSharing(jvmVersionDetector, { archiveDir }, true)
+
+    def "first worker creates the archive and later workers use it"() {
+        def firstWorker = Mock(JavaExecHandleBuilder)
+        def secondWorker = Mock(JavaExecHandleBuilder)
+        String tempArchive = null
+        ExecHandleListener listener = null
+
+        when:
+        classDataSharing.configure(firstWorker, classpath)
+
+        then:
+        _ * firstWorker.getExecutable() >> "java"
+        _ * firstWorker.getJvmArgs() >> []
+        1 * firstWorker.jvmArgs(_) >> { args ->
+            tempArchive = (args[0][0] as String) - "-XX:ArchiveClassesAtExit="
+        }
+        1 * firstWorker.listener(_) >> { args -> listener = args[0] }
+        tempArchive != null
+
+        when:
+        new File(tempArchive).text = "archive"
+        listener.executionFinished(null, Stub(ExecResult) { getExitValue() >> 0 })
+
+        then:
+        !new File(tempArchive).exists()
+        archiveDir.listFiles().size() == 1
+
+        when:
+        def archive = archiveDir.listFiles()[0]
+        archive.setLastModified(0)
+        classDataSharing.configure(secondWorker, classpath)
+
+        then:
+        _ * secondWorker.getExecutable() >> "java"
+        _ * secondWorker.getJvmArgs() >> []
+        1 * secondWorker.jvmArgs(_) >> { args ->
+            assert args[0][0] == "-XX:SharedArchiveFile=" + archive.absolutePath
+        }
+        0 * secondWorker.listener(_)
+        archive.lastModified() > 0
+    }
+
+    def "only one worker at a time creates the archive of a classpath"() {
+        def firstWorker = Mock(JavaExecHandleBuilder)
+        def secondWorker = Mock(JavaExecHandleBuilder)
+
+        when:
+        classDataSharing.configure(firstWorker, classpath)
+        classDataSharing.configure(secondWorker, classpath)
+
+        then:
+        _ * firstWorker.getExecutable() >> "java"
+        _ * firstWorker.getJvmArgs() >> []
+        1 * firstWorker.jvmArgs(_)
+        1 * firstWorker.listener(_)
+        _ * secondWorker.getExecutable() >> "java"
+        _ * secondWorker.getJvmArgs() >> []
+        0 * secondWorker.jvmArgs(_)
+        0 * secondWorker.listener(_)
+    }
+
+    def "does not keep the archive of a worker which failed"() {
+        def worker = Mock(JavaExecHandleBuilder)
+        String tempArchive = null
+        ExecHandleListener listener = null
+
+        when:
+        classDataSharing.configure(worker, classpath)
+        new File(tempArchive).text = "partial archive"
+        listener.executionFinished(null, Stub(ExecResult) { getExitValue() >> 1 })
+
+        then:
+        _ * worker.getExecutable() >> "java"
+        _ * worker.getJvmArgs() >> []
+        1 * worker.jvmArgs(_) >> { args ->
+            tempArchive = (args[0][0] as String) - "-XX:ArchiveClassesAtExit="
+        }
+        1 * worker.listener(_) >> { args -> listener = args[0] }
+        archiveDir.listFiles().size() == 0
+    }
+
+    def "workers with a changed classpath create a new archive"() {
+        def worker = Mock(JavaExecHandleBuilder)
+        def archives = []
+
+        when:
+        classDataSharing.configure(worker, classpath)
+        classpath[1].text = "changed"
+        classDataSharing.configure(worker, classpath)
+
+        then:
+        _ * worker.getExecutable() >> "java"
+        _ * worker.getJvmArgs() >> []
+        2 * worker.jvmArgs(_) >> { args -> archives << args[0][0] }
+        2 * worker.listener(_)
+        archives[0].startsWith("-XX:ArchiveClassesAtExit=")
+        archives[1].startsWith("-XX:ArchiveClassesAtExit=")
+        archives[0] != archives[1]
+    }
+
+    def "does not use an archive when #description"() {
+        def worker = Mock(JavaExecHandleBuilder)
+        def classDataSharing = new WorkerClassDataSharing(Stub(JvmVersionDetector) { getJavaVersion("java") >> javaVersion }, { archiveDir }, enabled)
+        def workerClasspath = directoryOnClasspath ? classpath + [tmpDir.createDir("classes")] : classpath
+
+        when:
+        classDataSharing.configure(worker, workerClasspath)
+
+        then:
+        _ * worker.getExecutable() >> "java"
+        _ * worker.getJvmArgs() >> jvmArgs
+        0 * worker.jvmArgs(_)
+        0 * worker.listener(_)
+
+        where:
+        description                                | enabled | javaVersion            | directoryOnClasspath | jvmArgs
+        "disabled"                                 | false   | JavaVersion.VERSION_17 | false                | []
+        "the worker runs on Java 11"               | true    | JavaVersion.VERSION_11 | false                | []
+        "the classpath contains a directory"       | true    | JavaVersion.VERSION_17 | true                 | []
+        "the worker configures class data sharing" | true    | JavaVersion.VERSION_17 | false                | ["-Xshare:off"]
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.integtests.resolve
+
+import org.gradle.api.internal.artifacts.configurations.PrefetchConfigurationsListener
+import org.gradle.integtests.fixtures.AbstractIntegrationSpec
+
+class PrefetchConfigurationsIntegrationTest extends AbstractIntegrationSpec {
+
+    def setup() {
+        executer.withArgument("-D${PrefetchConfigurationsListener.PREFETCH_CONFIGURATIONS_PROPERTY}=conf")
+    }
+
+    def "configurations can be changed when the task graph is ready after they were prefetched"() {
+        settingsFile << "include 'a', 'b'"
+        mavenRepo.module("org", "foo").publish()
+        mavenRepo.module("org", "bar").publish()
+
+        buildFile << """
+            allprojects {
+                configurations {
+                    conf
+                }
+                repositories {
+                    maven { url "${mavenRepo.uri}" }
+                }
+                dependencies {
+                    conf "org:foo:1.0"
+                }
+                def conf = configurations.conf
+                def projectPath = path
+                tasks.register("resolve") {
+                    doLast {
+                        println "\${projectPath} resolved \${conf.files*.name.sort()}"
+                    }
+                }
+            }
+            gradle.taskGraph.whenReady {
+                allprojects {
+                    dependencies {
+                        conf "org:bar:1.0"
+                    }
+                }
+            }
+        """
+
+        when:
+        run "resolve"
+
+        then:
+        outputContains(":a resolved [bar-1.0.jar, foo-1.0.jar]")
+        outputContains(":b resolved [bar-1.0.jar, foo-1.0.jar]")
+    }
+
+    def "reports failure to resolve a prefetched configuration when it is used"() {
+        buildFile << """
+            configurations {
+                conf
+            }
+            repositories {
+                maven { url "${mavenRepo.uri}" }
+            }
+            dependencies {
+                conf "org:missing:1.0"
+            }
+            def conf = configurations.conf
+            tasks.register("resolve") {
+                doLast {
+                    conf.files
+                }
+            }
+        """
+
+        when:
+        fails "resolve"
+
+        then:
+        failure.assertHasCause("Could not resolve all files for configuration ':conf'.")
+        failure.assertHasCause("Could not find org:missing:1.0.")
+    }
+}
@@ -16,6 +16,8 @@
 
 package org.gradle.api.internal.artifacts;
 
+import org.gradle.api.internal.artifacts.configurations.ConcurrentConfigurationResolver;
+import org.gradle.api.internal.artifacts.configurations.PrefetchConfigurationsListener;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ArtifactSetToFileCollectionFactory;
 import org.gradle.api.internal.artifacts.transform.ArtifactTransformListener;
 import org.gradle.internal.event.ListenerManager;
@@ -35,7 +37,9 @@ public void registerGradleUserHomeServices(ServiceRegistration registration) {
 
     @Override
     public void registerBuildServices(ServiceRegistration registration) {
+        registration.add(ConcurrentConfigurationResolver.class);
         registration.addProvider(new DependencyManagementBuildScopeServices());
+        registration.addProvider(new ConfigurationPrefetchServices());
     }
 
     @Override
@@ -54,6 +58,16 @@ public void registerGradleServices(ServiceRegistration registration) {
         registration.addProvider(new DependencyManagementGradleServices());
     }
 
+    @SuppressWarnings("unused")
+    private static class ConfigurationPrefetchServices {
+        void configure(ServiceRegistration registration, ListenerManager listenerManager) {
+            PrefetchConfigurationsListener listener = PrefetchConfigurationsListener.fromSystemProperty();
+            if (listener != null) {
+                listenerManager.addListener(listener);
+            }
+        }
+    }
+
     @SuppressWarnings("unused")
     private static class DependencyManagementGradleServices {
         ArtifactTransformListener createArtifactTransformListener(ListenerManager listenerManager) {
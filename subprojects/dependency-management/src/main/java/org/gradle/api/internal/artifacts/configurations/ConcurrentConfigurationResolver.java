@@ -0,0 +1,118 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.configurations;
+
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.artifacts.ProjectDependency;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.internal.project.ProjectState;
+import org.gradle.api.specs.Spec;
+import org.gradle.internal.deprecation.DeprecatableConfiguration;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.gradle.internal.resources.ProjectLeaseRegistry;
+import org.gradle.internal.service.scopes.Scopes;
+import org.gradle.internal.service.scopes.ServiceScope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Resolves the dependency graphs of the configurations of many projects ahead of their use, for example to warm up the metadata caches
+ * before the results are used while configuring the build.
+ *
+ * <p>When the build allows projects to be accessed in parallel, the configurations of different projects are resolved concurrently,
+ * each project while holding its lock, as is the case when tasks of different projects resolve their configurations in parallel.
+ * Otherwise the projects are visited one after the other.</p>
+ *
+ * <p>A detached copy of each configuration is resolved, rather than the configuration itself, so the configuration can still be changed by the build afterwards,
+ * for example when the task graph is ready. Project dependencies are left out of the copy, so the configurations of other projects are not observed either.
+ * A failure to resolve a copy is logged, and the configuration reports it again when its result is used.</p>
+ *
+ * @see PrefetchConfigurationsListener
+ */
+@ServiceScope(Scopes.Build.class)
+public class ConcurrentConfigurationResolver {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConcurrentConfigurationResolver.class);
+
+    private final BuildOperationExecutor buildOperationExecutor;
+    private final ProjectLeaseRegistry projectLeaseRegistry;
+
+    public ConcurrentConfigurationResolver(BuildOperationExecutor buildOperationExecutor, ProjectLeaseRegistry projectLeaseRegistry) {
+        this.buildOperationExecutor = buildOperationExecutor;
+        this.projectLeaseRegistry = projectLeaseRegistry;
+    }
+
+    /**
+     * Resolves the dependency graph of the configurations of the given projects which match the given spec and can be resolved.
+     */
+    public void resolveGraphs(Collection<? extends ProjectState> projects, Spec<? super Configuration> spec) {
+        if (projectLeaseRegistry.getAllowsParallelExecution() && projects.size() > 1) {
+            // Release the project locks held by this thread, as the operations acquire the locks of the projects they resolve
+            projectLeaseRegistry.runAsIsolatedTask(() -> buildOperationExecutor.runAllWithAccessToProjectState(queue -> {
+                for (ProjectState project : projects) {
+                    queue.add(new ResolveProjectConfigurations(project, spec));
+                }
+            }));
+        } else {
+            for (ProjectState project : projects) {
+                buildOperationExecutor.run(new ResolveProjectConfigurations(project, spec));
+            }
+        }
+    }
+
+    private static class ResolveProjectConfigurations implements RunnableBuildOperation {
+        private final ProjectState project;
+        private final Spec<? super Configuration> spec;
+
+        public ResolveProjectConfigurations(ProjectState project, Spec<? super Configuration> spec) {
+            this.project = project;
+            this.spec = spec;
+        }
+
+        @Override
+        public void run(BuildOperationContext context) {
+            project.applyToMutableState(this::resolveConfigurations);
+        }
+
+        private void resolveConfigurations(ProjectInternal mutableProject) {
+            // Copy the configurations, as resolving a configuration may add configurations to the project
+            for (Configuration configuration : new ArrayList<>(mutableProject.getConfigurations())) {
+                if (((DeprecatableConfiguration) configuration).canSafelyBeResolved() && spec.isSatisfiedBy(configuration)) {
+                    Configuration copy = configuration.copyRecursive(dependency -> !(dependency instanceof ProjectDependency));
+                    try {
+                        copy.getIncoming().getResolutionResult().getRoot();
+                    } catch (Exception e) {
+                        LOGGER.warn("Could not resolve the dependencies of configuration '{}' of {} ahead of their use: {}", configuration.getName(), project.getDisplayName(), e.getMessage());
+                        LOGGER.debug("Failure resolving the dependencies of configuration '{}' of {}", configuration.getName(), project.getDisplayName(), e);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public BuildOperationDescriptor.Builder description() {
+            String displayName = "Resolving configurations of " + project.getDisplayName().getDisplayName();
+            return BuildOperationDescriptor.displayName(displayName)
+                .progressDisplayName(displayName);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.configurations;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSet;
+import org.gradle.api.internal.GradleInternal;
+import org.gradle.api.internal.project.ProjectState;
+import org.gradle.initialization.ModelConfigurationListener;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves the dependencies of the given configurations of all configured projects of a build concurrently, once the build has been configured,
+ * to warm up the dependency caches. The configurations themselves are not resolved and can still be changed.
+ *
+ * @see ConcurrentConfigurationResolver
+ */
+public class PrefetchConfigurationsListener implements ModelConfigurationListener {
+    /**
+     * A comma separated list of configuration names, for example {@code compileClasspath,runtimeClasspath}.
+     * When set, the dependencies of these configurations of all projects are resolved concurrently once the build has been configured.
+     */
+    public static final String PREFETCH_CONFIGURATIONS_PROPERTY = "org.gradle.internal.dependency-resolution.prefetch-configurations";
+
+    private final Set<String> configurationNames;
+
+    public PrefetchConfigurationsListener(Set<String> configurationNames) {
+        this.configurationNames = configurationNames;
+    }
+
+    /**
+     * Creates a listener for the configurations named by {@value #PREFETCH_CONFIGURATIONS_PROPERTY}, or returns null when no configurations are named.
+     */
+    @Nullable
+    public static PrefetchConfigurationsListener fromSystemProperty() {
+        String value = System.getProperty(PREFETCH_CONFIGURATIONS_PROPERTY);
+        if (value == null) {
+            return null;
+        }
+        Set<String> names = ImmutableSet.copyOf(Splitter.on(',').trimResults().omitEmptyStrings().split(value));
+        return names.isEmpty() ? null : new PrefetchConfigurationsListener(names);
+    }
+
+    @Override
+    public void onConfigure(GradleInternal gradle) {
+        // With configure on demand, the projects which were not needed are not configured and have no configurations to resolve yet
+        List<ProjectState> configuredProjects = gradle.getOwner().getProjects().getAllProjects().stream()
+            .filter(project -> project.getMutableModel().getState().getExecuted())
+            .collect(Collectors.toList());
+        gradle.getServices().get(ConcurrentConfigurationResolver.class)
+            .resolveGraphs(configuredProjects, configuration -> configurationNames.contains(configuration.getName()));
+    }
+}
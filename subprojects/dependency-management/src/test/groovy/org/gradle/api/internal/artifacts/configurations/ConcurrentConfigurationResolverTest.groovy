@@ -0,0 +1,148 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.configurations
+
+import org.gradle.api.artifacts.Configuration
+import org.gradle.api.artifacts.ConfigurationContainer
+import org.gradle.api.artifacts.Dependency
+import org.gradle.api.artifacts.ExternalModuleDependency
+import org.gradle.api.artifacts.ProjectDependency
+import org.gradle.api.artifacts.ResolvableDependencies
+import org.gradle.api.artifacts.result.ResolutionResult
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.api.internal.project.ProjectState
+import org.gradle.api.specs.Spec
+import org.gradle.internal.Describables
+import org.gradle.internal.operations.TestBuildOperationExecutor
+import org.gradle.internal.resources.ProjectLeaseRegistry
+import spock.lang.Specification
+
+import java.util.function.Consumer
+
+class ConcurrentConfigurationResolverTest extends Specification {
+    def buildOperationExecutor = new TestBuildOperationExecutor()
+    def projectLeaseRegistry = Mock(ProjectLeaseRegistry)
+    def resolver = new ConcurrentConfigurationResolver(buildOperationExecutor, projectLeaseRegistry)
+    def classpaths = { it.name.endsWith("Classpath") } as Spec
+
+    def "resolves the matching configurations of each project while releasing the current project lock"() {
+        def compileClasspath1 = resolutionResult()
+        def compileClasspath2 = resolutionResult()
+        def other = resolutionResult()
+        def project1 = project("p1", configuration("compileClasspath", compileClasspath1), configuration("other", other))
+        def project2 = project("p2", configuration("compileClasspath", compileClasspath2))
+
+        when:
+        resolver.resolveGraphs([project1, project2], classpaths)
+
+        then:
+        _ * projectLeaseRegistry.allowsParallelExecution >> true
+        1 * projectLeaseRegistry.runAsIsolatedTask(_ as Runnable) >> { Runnable action -> action.run() }
+        1 * compileClasspath1.root
+        1 * compileClasspath2.root
+        0 * other.root
+        buildOperationExecutor.operations*.displayName == ["Resolving configurations of p1", "Resolving configurations of p2"]
+    }
+
+    def "resolves projects one after the other when parallel project access is not allowed"() {
+        def compileClasspath = resolutionResult()
+        def runtimeClasspath = resolutionResult()
+        def project1 = project("p1", configuration("compileClasspath", compileClasspath))
+        def project2 = project("p2", configuration("runtimeClasspath", runtimeClasspath))
+
+        when:
+        resolver.resolveGraphs([project1, project2], classpaths)
+
+        then:
+        _ * projectLeaseRegistry.allowsParallelExecution >> false
+        0 * projectLeaseRegistry.runAsIsolatedTask(_)
+        1 * compileClasspath.root
+
+        then:
+        1 * runtimeClasspath.root
+    }
+
+    def "does not resolve configurations which cannot be resolved and continues after resolution failures"() {
+        def notResolvable = resolutionResult()
+        def failing = resolutionResult()
+        def resolvable = resolutionResult()
+        def project = project("p1", configuration("apiClasspath", notResolvable, false), configuration("compileClasspath", failing), configuration("runtimeClasspath", resolvable))
+
+        when:
+        resolver.resolveGraphs([project], classpaths)
+
+        then:
+        0 * notResolvable.root
+        1 * failing.root >> { throw new RuntimeException("broken") }
+        1 * resolvable.root
+    }
+
+    def "resolves a copy of the configuration without its project dependencies"() {
+        def copy = Stub(Configuration) {
+            getIncoming() >> Stub(ResolvableDependencies) {
+                getResolutionResult() >> resolutionResult()
+            }
+        }
+        def configuration = Mock(ConfigurationInternal) {
+            getName() >> "compileClasspath"
+            canSafelyBeResolved() >> true
+        }
+
+        when:
+        resolver.resolveGraphs([project("p1", configuration)], classpaths)
+
+        then:
+        1 * configuration.copyRecursive(_ as Spec) >> { Spec<Dependency> spec ->
+            assert !spec.isSatisfiedBy(Stub(ProjectDependency))
+            assert spec.isSatisfiedBy(Stub(ExternalModuleDependency))
+            copy
+        }
+        0 * configuration.getIncoming()
+    }
+
+    private ResolutionResult resolutionResult() {
+        return Mock(ResolutionResult)
+    }
+
+    private ConfigurationInternal configuration(String name, ResolutionResult result, boolean resolvable = true) {
+        def incoming = Stub(ResolvableDependencies) {
+            getResolutionResult() >> result
+        }
+        def copy = Stub(Configuration) {
+            getIncoming() >> incoming
+        }
+        return Stub(ConfigurationInternal) {
+            getName() >> name
+            canSafelyBeResolved() >> resolvable
+            copyRecursive(_ as Spec) >> copy
+        }
+    }
+
+    private ProjectState project(String name, ConfigurationInternal... configurations) {
+        def container = Stub(ConfigurationContainer) {
+            toArray() >> (configurations as Object[])
+            size() >> configurations.length
+        }
+        def mutableProject = Stub(ProjectInternal) {
+            getConfigurations() >> container
+        }
+        return Stub(ProjectState) {
+            getDisplayName() >> Describables.of(name)
+            applyToMutableState(_) >> { Consumer action -> action.accept(mutableProject) }
+        }
+    }
+}
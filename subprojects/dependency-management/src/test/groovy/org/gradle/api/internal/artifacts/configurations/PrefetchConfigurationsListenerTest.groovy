@@ -0,0 +1,107 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.configurations
+
+import org.gradle.api.artifacts.Configuration
+import org.gradle.api.internal.GradleInternal
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.api.internal.project.ProjectState
+import org.gradle.api.internal.project.ProjectStateInternal
+import org.gradle.api.specs.Spec
+import org.gradle.internal.build.BuildProjectRegistry
+import org.gradle.internal.build.BuildState
+import org.gradle.internal.service.ServiceRegistry
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
+import spock.lang.Specification
+
+class PrefetchConfigurationsListenerTest extends Specification {
+    @Rule
+    SetSystemProperties systemProperties = new SetSystemProperties()
+
+    def resolver = Mock(ConcurrentConfigurationResolver)
+
+    def "resolves the named configurations of the configured projects"() {
+        def configured = project(true)
+        def notConfigured = project(false)
+        def gradle = gradle(configured, notConfigured)
+        def listener = new PrefetchConfigurationsListener(["compileClasspath", "runtimeClasspath"] as Set)
+
+        when:
+        listener.onConfigure(gradle)
+
+        then:
+        1 * resolver.resolveGraphs([configured], _) >> { projects, Spec<Configuration> spec ->
+            assert spec.isSatisfiedBy(configuration("compileClasspath"))
+            assert spec.isSatisfiedBy(configuration("runtimeClasspath"))
+            assert !spec.isSatisfiedBy(configuration("annotationProcessor"))
+        }
+    }
+
+    def "is created when configurations are named by the system property"() {
+        when:
+        System.setProperty(PrefetchConfigurationsListener.PREFETCH_CONFIGURATIONS_PROPERTY, value)
+
+        then:
+        (PrefetchConfigurationsListener.fromSystemProperty() != null) == created
+
+        where:
+        value                                | created
+        "compileClasspath, runtimeClasspath" | true
+        ""                                   | false
+        " , "                                | false
+    }
+
+    def "is not created when the system property is not set"() {
+        expect:
+        PrefetchConfigurationsListener.fromSystemProperty() == null
+    }
+
+    private GradleInternal gradle(ProjectState... projects) {
+        def registry = Stub(BuildProjectRegistry) {
+            getAllProjects() >> (projects as Set)
+        }
+        def owner = Stub(BuildState) {
+            getProjects() >> registry
+        }
+        def services = Stub(ServiceRegistry) {
+            get(ConcurrentConfigurationResolver) >> resolver
+        }
+        return Stub(GradleInternal) {
+            getOwner() >> owner
+            getServices() >> services
+        }
+    }
+
+    private ProjectState project(boolean executed) {
+        def state = Stub(ProjectStateInternal) {
+            getExecuted() >> executed
+        }
+        def mutableProject = Stub(ProjectInternal) {
+            getState() >> state
+        }
+        return Stub(ProjectState) {
+            getMutableModel() >> mutableProject
+        }
+    }
+
+    private Configuration configuration(String name) {
+        return Stub(Configuration) {
+            getName() >> name
+        }
+    }
+}
@@ -1,5 +1,6 @@
 plugins {
     id("gradlebuild.distribution.api-java")
+    id("gradlebuild.jmh")
 }
 
 description = "Execution engine that takes a unit of work and makes it happen"
@@ -43,4 +44,15 @@ dependencies {
     testFixturesImplementation(project(":model-core"))
 
     integTestDistributionRuntimeOnly(project(":distributions-core"))
+
+    jmh(platform(project(":distributions-dependencies")))
+    jmh(project(":base-services"))
+    jmh(project(":messaging"))
+    jmh(project(":snapshots"))
+    jmh(project(":build-cache"))
+    jmh(project(":files"))
+    jmh(project(":model-core"))
+    jmh(testFixtures(project(":core")))
+    jmh(libs.guava)
+    jmh(libs.commonsIo)
 }
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.execution.history.impl;
+
+import com.google.common.collect.ImmutableMultimap;
+import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.internal.file.FileType;
+import org.gradle.internal.fingerprint.FileCollectionFingerprint;
+import org.gradle.internal.fingerprint.FileSystemLocationFingerprint;
+import org.gradle.internal.fingerprint.impl.DefaultFileSystemLocationFingerprint;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Measures the size and the time to write and read the fingerprint of a file collection as stored in the execution history.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class FileCollectionFingerprintSerializerBenchmark {
+    @Param({"100", "10000"})
+    int files;
+
+    FileCollectionFingerprintSerializer serializer;
+    FileCollectionFingerprint fingerprint;
+    byte[] serialized;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        serializer = new FileCollectionFingerprintSerializer(new StringInterner());
+        Map<String, FileSystemLocationFingerprint> fingerprints = new LinkedHashMap<>();
+        ImmutableMultimap.Builder<String, HashCode> rootHashes = ImmutableMultimap.builder();
+        String root = "/home/user/projects/some-project/subproject/build/classes/java/main";
+        rootHashes.put(root, Hashing.hashString(root));
+        for (int i = 0; i < files; i++) {
+            String relativePath = "org/gradle/package" + i / 100 + "/SomeClass" + i + ".class";
+            fingerprints.put(root + "/" + relativePath, new DefaultFileSystemLocationFingerprint(relativePath, FileType.RegularFile, Hashing.hashString(relativePath)));
+        }
+        fingerprint = new SerializableFileCollectionFingerprint(fingerprints, rootHashes.build(), Hashing.hashString("strategy"));
+        serialized = write();
+    }
+
+    /**
+     * Reports the size of the written fingerprint next to the time to write it.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class SizeCounters {
+        public long serializedBytes;
+    }
+
+    @Benchmark
+    public byte[] writeFingerprint(SizeCounters counters) throws Exception {
+        byte[] bytes = write();
+        counters.serializedBytes = bytes.length;
+        return bytes;
+    }
+
+    @Benchmark
+    public FileCollectionFingerprint readFingerprint() throws Exception {
+        return serializer.read(new KryoBackedDecoder(new ByteArrayInputStream(serialized)));
+    }
+
+    private byte[] write() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        KryoBackedEncoder encoder = new KryoBackedEncoder(outputStream);
+        serializer.write(encoder, fingerprint);
+        encoder.flush();
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,420 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.execution.impl;
+
+import com.google.common.collect.ImmutableSortedMap;
+import org.apache.commons.io.FileUtils;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.internal.DocumentationRegistry;
+import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.api.internal.file.TestFiles;
+import org.gradle.caching.internal.controller.NoOpBuildCacheController;
+import org.gradle.internal.concurrent.DefaultExecutorFactory;
+import org.gradle.internal.concurrent.DefaultParallelismConfiguration;
+import org.gradle.internal.execution.ExecutionEngine;
+import org.gradle.internal.execution.ExecutionOutcome;
+import org.gradle.internal.execution.OutputChangeListener;
+import org.gradle.internal.execution.UnitOfWork;
+import org.gradle.internal.execution.fingerprint.InputFingerprinter;
+import org.gradle.internal.execution.fingerprint.impl.DefaultFileCollectionFingerprinterRegistry;
+import org.gradle.internal.execution.fingerprint.impl.DefaultInputFingerprinter;
+import org.gradle.internal.execution.fingerprint.impl.FingerprinterRegistration;
+import org.gradle.internal.execution.history.AfterExecutionState;
+import org.gradle.internal.execution.history.ExecutionHistoryStore;
+import org.gradle.internal.execution.history.OutputFilesRepository;
+import org.gradle.internal.execution.history.PreviousExecutionState;
+import org.gradle.internal.execution.history.changes.DefaultExecutionStateChangeDetector;
+import org.gradle.internal.execution.history.impl.DefaultOverlappingOutputDetector;
+import org.gradle.internal.execution.history.impl.DefaultPreviousExecutionState;
+import org.gradle.internal.execution.history.impl.DefaultPreviousExecutionStateSerializer;
+import org.gradle.internal.execution.history.impl.FileCollectionFingerprintSerializer;
+import org.gradle.internal.execution.history.impl.FileSystemSnapshotSerializer;
+import org.gradle.internal.execution.history.impl.SerializableFileCollectionFingerprint;
+import org.gradle.internal.execution.steps.AssignWorkspaceStep;
+import org.gradle.internal.execution.steps.CaptureStateAfterExecutionStep;
+import org.gradle.internal.execution.steps.CaptureStateBeforeExecutionStep;
+import org.gradle.internal.execution.steps.CreateOutputsStep;
+import org.gradle.internal.execution.steps.ExecuteStep;
+import org.gradle.internal.execution.steps.IdentifyStep;
+import org.gradle.internal.execution.steps.IdentityCacheStep;
+import org.gradle.internal.execution.steps.LoadPreviousExecutionStateStep;
+import org.gradle.internal.execution.steps.RecordOutputsStep;
+import org.gradle.internal.execution.steps.RemovePreviousOutputsStep;
+import org.gradle.internal.execution.steps.RemoveUntrackedExecutionStateStep;
+import org.gradle.internal.execution.steps.ResolveCachingStateStep;
+import org.gradle.internal.execution.steps.ResolveChangesStep;
+import org.gradle.internal.execution.steps.ResolveInputChangesStep;
+import org.gradle.internal.execution.steps.SkipUpToDateStep;
+import org.gradle.internal.execution.steps.StoreExecutionStateStep;
+import org.gradle.internal.execution.steps.ValidateStep;
+import org.gradle.internal.execution.workspace.WorkspaceProvider;
+import org.gradle.internal.file.TreeType;
+import org.gradle.internal.fingerprint.AbsolutePathInputNormalizer;
+import org.gradle.internal.fingerprint.CurrentFileCollectionFingerprint;
+import org.gradle.internal.fingerprint.DirectorySensitivity;
+import org.gradle.internal.fingerprint.FileCollectionFingerprint;
+import org.gradle.internal.fingerprint.LineEndingSensitivity;
+import org.gradle.internal.fingerprint.hashing.FileSystemLocationSnapshotHasher;
+import org.gradle.internal.fingerprint.impl.AbsolutePathFileCollectionFingerprinter;
+import org.gradle.internal.fingerprint.impl.DefaultFileCollectionSnapshotter;
+import org.gradle.internal.hash.ClassLoaderHierarchyHasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.id.UniqueId;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationListener;
+import org.gradle.internal.operations.DefaultBuildOperationExecutor;
+import org.gradle.internal.operations.DefaultBuildOperationIdFactory;
+import org.gradle.internal.operations.DefaultBuildOperationQueueFactory;
+import org.gradle.internal.operations.OperationFinishEvent;
+import org.gradle.internal.operations.OperationIdentifier;
+import org.gradle.internal.operations.OperationProgressEvent;
+import org.gradle.internal.operations.OperationStartEvent;
+import org.gradle.internal.progress.NoOpProgressLoggerFactory;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.gradle.internal.snapshot.FileSystemSnapshot;
+import org.gradle.internal.snapshot.ValueSnapshot;
+import org.gradle.internal.snapshot.impl.DefaultValueSnapshotter;
+import org.gradle.internal.snapshot.impl.ImplementationSnapshot;
+import org.gradle.internal.time.Time;
+import org.gradle.internal.vfs.FileSystemAccess;
+import org.gradle.internal.vfs.VirtualFileSystem;
+import org.gradle.test.fixtures.work.TestWorkerLeaseService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.google.common.collect.ImmutableSortedMap.copyOfSorted;
+import static com.google.common.collect.Maps.transformValues;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+
+/**
+ * Measures the overhead of the incremental execution pipeline for a single unit of work,
+ * from identifying the work to storing its execution state.
+ *
+ * The work itself does nothing, so the measured time is spent fingerprinting its inputs, snapshotting its outputs,
+ * detecting changes and reading and writing its serialized execution history.
+ * The file system state is either retained between executions, as with file system watching, or invalidated before each execution.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class ExecutionEngineBenchmark {
+    private static final int INPUT_PROPERTIES = 10;
+
+    @Param({"10", "1000"})
+    int inputFiles;
+
+    @Param({"10", "1000"})
+    int outputFiles;
+
+    @Param({"true", "false"})
+    boolean retainFileSystemState;
+
+    File rootDir;
+    File inputDir;
+    File outputDir;
+    VirtualFileSystem virtualFileSystem;
+    ExecutionEngine executionEngine;
+    BenchmarkWork upToDateWork;
+    int executions;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        rootDir = Files.createTempDirectory("execution-engine-benchmark").toFile();
+        inputDir = createFiles(new File(rootDir, "inputs"), inputFiles);
+        outputDir = createFiles(new File(rootDir, "outputs"), outputFiles);
+
+        virtualFileSystem = TestFiles.virtualFileSystem();
+        FileSystemAccess fileSystemAccess = TestFiles.fileSystemAccess(virtualFileSystem);
+        DefaultFileCollectionSnapshotter snapshotter = new DefaultFileCollectionSnapshotter(fileSystemAccess, TestFiles.fileSystem());
+        ClassLoaderHierarchyHasher classLoaderHierarchyHasher = classLoader -> Hashing.signature(ExecutionEngineBenchmark.class);
+        InputFingerprinter inputFingerprinter = new DefaultInputFingerprinter(
+            snapshotter,
+            new DefaultFileCollectionFingerprinterRegistry(singletonList(FingerprinterRegistration.registration(
+                DirectorySensitivity.DEFAULT,
+                LineEndingSensitivity.DEFAULT,
+                new AbsolutePathFileCollectionFingerprinter(DirectorySensitivity.DEFAULT, snapshotter, FileSystemLocationSnapshotHasher.DEFAULT)
+            ))),
+            new DefaultValueSnapshotter(emptyList(), classLoaderHierarchyHasher)
+        );
+        DefaultOutputSnapshotter outputSnapshotter = new DefaultOutputSnapshotter(snapshotter);
+        OutputChangeListener outputChangeListener = affectedOutputPaths -> fileSystemAccess.write(affectedOutputPaths, () -> {});
+        DefaultBuildOperationExecutor buildOperationExecutor = new DefaultBuildOperationExecutor(
+            new NoOpBuildOperationListener(),
+            Time.clock(),
+            new NoOpProgressLoggerFactory(),
+            new DefaultBuildOperationQueueFactory(new TestWorkerLeaseService()),
+            new DefaultExecutorFactory(),
+            new DefaultParallelismConfiguration(false, 1),
+            new DefaultBuildOperationIdFactory()
+        );
+
+        // @formatter:off
+        executionEngine = new DefaultExecutionEngine(new DocumentationRegistry(),
+            new IdentifyStep<>(
+            new IdentityCacheStep<>(
+            new AssignWorkspaceStep<>(
+            new LoadPreviousExecutionStateStep<>(
+            new RemoveUntrackedExecutionStateStep<>(
+            new CaptureStateBeforeExecutionStep<>(buildOperationExecutor, classLoaderHierarchyHasher, outputSnapshotter, new DefaultOverlappingOutputDetector(),
+            new ValidateStep<>(virtualFileSystem, (work, warnings) -> {},
+            new ResolveCachingStateStep<>(NoOpBuildCacheController.INSTANCE, true,
+            new ResolveChangesStep<>(new DefaultExecutionStateChangeDetector(),
+            new SkipUpToDateStep<>(
+            new RecordOutputsStep<>(new GeneratedOutputFilesRepository(),
+            new StoreExecutionStateStep<>(
+            new ResolveInputChangesStep<>(
+            new CaptureStateAfterExecutionStep<>(buildOperationExecutor, UniqueId.generate(), outputSnapshotter, outputChangeListener,
+            new CreateOutputsStep<>(
+            new RemovePreviousOutputsStep<>(TestFiles.deleter(), outputChangeListener,
+            new ExecuteStep<>(buildOperationExecutor
+        ))))))))))))))))));
+        // @formatter:on
+
+        SerializingExecutionHistoryStore history = new SerializingExecutionHistoryStore(classLoaderHierarchyHasher);
+        upToDateWork = new BenchmarkWork(inputFingerprinter, history, "up-to-date");
+        execute(upToDateWork, ExecutionOutcome.EXECUTED_NON_INCREMENTALLY);
+        execute(upToDateWork, ExecutionOutcome.UP_TO_DATE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileUtils.forceDelete(rootDir);
+    }
+
+    @Benchmark
+    public ExecutionEngine.Result executeUpToDateWork() {
+        return execute(upToDateWork);
+    }
+
+    @Benchmark
+    public ExecutionEngine.Result executeChangedWork() {
+        return execute(new BenchmarkWork(upToDateWork.inputFingerprinter, upToDateWork.history, "changed-" + executions++));
+    }
+
+    private ExecutionEngine.Result execute(BenchmarkWork work) {
+        if (!retainFileSystemState) {
+            virtualFileSystem.invalidateAll();
+        }
+        return executionEngine.createRequest(work).execute();
+    }
+
+    private void execute(BenchmarkWork work, ExecutionOutcome expectedOutcome) {
+        ExecutionOutcome outcome = execute(work).getExecutionResult().get().getOutcome();
+        if (outcome != expectedOutcome) {
+            throw new IllegalStateException("Expected the work to be " + expectedOutcome + " but was " + outcome);
+        }
+    }
+
+    private static File createFiles(File dir, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            File file = new File(dir, "dir" + i / 100 + "/file" + i + ".txt");
+            FileUtils.writeStringToFile(file, "content of file " + i, "UTF-8");
+        }
+        return dir;
+    }
+
+    private class BenchmarkWork implements UnitOfWork {
+        final InputFingerprinter inputFingerprinter;
+        final ExecutionHistoryStore history;
+        private final String propertyValue;
+
+        BenchmarkWork(InputFingerprinter inputFingerprinter, ExecutionHistoryStore history, String propertyValue) {
+            this.inputFingerprinter = inputFingerprinter;
+            this.history = history;
+            this.propertyValue = propertyValue;
+        }
+
+        @Override
+        public Identity identify(Map<String, ValueSnapshot> identityInputs, Map<String, CurrentFileCollectionFingerprint> identityFileInputs) {
+            return () -> "benchmark-work";
+        }
+
+        @Override
+        public WorkspaceProvider getWorkspaceProvider() {
+            return new WorkspaceProvider() {
+                @Override
+                public <T> T withWorkspace(String path, WorkspaceAction<T> action) {
+                    return action.executeInWorkspace(null, history);
+                }
+            };
+        }
+
+        @Override
+        public InputFingerprinter getInputFingerprinter() {
+            return inputFingerprinter;
+        }
+
+        @Override
+        public void visitImplementations(ImplementationVisitor visitor) {
+            visitor.visitImplementation(ImplementationSnapshot.of(BenchmarkWork.class.getName(), Hashing.signature(BenchmarkWork.class)));
+        }
+
+        @Override
+        public void visitRegularInputs(InputFingerprinter.InputVisitor visitor) {
+            for (int i = 0; i < INPUT_PROPERTIES; i++) {
+                String value = i == 0 ? propertyValue : "value" + i;
+                visitor.visitInputProperty("property" + i, () -> value);
+            }
+            FileCollection files = TestFiles.fixed(inputDir);
+            visitor.visitInputFileProperty(
+                "inputDir",
+                InputFingerprinter.InputPropertyType.NON_INCREMENTAL,
+                new InputFingerprinter.FileValueSupplier(
+                    inputDir,
+                    AbsolutePathInputNormalizer.class,
+                    DirectorySensitivity.DEFAULT,
+                    LineEndingSensitivity.DEFAULT,
+                    () -> files
+                )
+            );
+        }
+
+        @Override
+        public void visitOutputs(File workspace, OutputVisitor visitor) {
+            visitor.visitOutputProperty("outputDir", TreeType.DIRECTORY, outputDir, TestFiles.fixed(outputDir));
+        }
+
+        @Override
+        public WorkOutput execute(ExecutionRequest executionRequest) {
+            return new WorkOutput() {
+                @Override
+                public WorkResult getDidWork() {
+                    return WorkResult.DID_WORK;
+                }
+
+                @Override
+                public Object getOutput() {
+                    return null;
+                }
+            };
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "benchmark work";
+        }
+    }
+
+    /**
+     * Keeps the execution history serialized in memory, the same way as the persistent store does on disk.
+     */
+    private static class SerializingExecutionHistoryStore implements ExecutionHistoryStore {
+        private final Map<String, byte[]> executionHistory = new HashMap<>();
+        private final DefaultPreviousExecutionStateSerializer serializer;
+
+        SerializingExecutionHistoryStore(ClassLoaderHierarchyHasher classLoaderHasher) {
+            StringInterner stringInterner = new StringInterner();
+            this.serializer = new DefaultPreviousExecutionStateSerializer(
+                new FileCollectionFingerprintSerializer(stringInterner),
+                new FileSystemSnapshotSerializer(stringInterner),
+                classLoaderHasher
+            );
+        }
+
+        @Override
+        public Optional<PreviousExecutionState> load(String key) {
+            byte[] serialized = executionHistory.get(key);
+            if (serialized == null) {
+                return Optional.empty();
+            }
+            try {
+                return Optional.of(serializer.read(new KryoBackedDecoder(new ByteArrayInputStream(serialized))));
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public void store(String key, boolean successful, AfterExecutionState executionState) {
+            PreviousExecutionState previousExecutionState = new DefaultPreviousExecutionState(
+                executionState.getOriginMetadata(),
+                executionState.getImplementation(),
+                executionState.getAdditionalImplementations(),
+                executionState.getInputProperties(),
+                prepareForSerialization(executionState.getInputFileProperties()),
+                executionState.getOutputFilesProducedByWork(),
+                successful
+            );
+            try {
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                KryoBackedEncoder encoder = new KryoBackedEncoder(outputStream);
+                serializer.write(encoder, previousExecutionState);
+                encoder.flush();
+                executionHistory.put(key, outputStream.toByteArray());
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public void remove(String key) {
+            executionHistory.remove(key);
+        }
+
+        private static ImmutableSortedMap<String, FileCollectionFingerprint> prepareForSerialization(ImmutableSortedMap<String, CurrentFileCollectionFingerprint> fingerprints) {
+            return copyOfSorted(transformValues(
+                fingerprints,
+                value -> value.archive(SerializableFileCollectionFingerprint::new)
+            ));
+        }
+    }
+
+    private static class GeneratedOutputFilesRepository implements OutputFilesRepository {
+        @Override
+        public boolean isGeneratedByGradle(File file) {
+            return true;
+        }
+
+        @Override
+        public void recordOutputs(Iterable<? extends FileSystemSnapshot> outputSnapshots) {
+        }
+    }
+
+    private static class NoOpBuildOperationListener implements BuildOperationListener {
+        @Override
+        public void started(BuildOperationDescriptor buildOperation, OperationStartEvent startEvent) {
+        }
+
+        @Override
+        public void progress(OperationIdentifier operationIdentifier, OperationProgressEvent progressEvent) {
+        }
+
+        @Override
+        public void finished(BuildOperationDescriptor buildOperation, OperationFinishEvent finishEvent) {
+        }
+    }
+}
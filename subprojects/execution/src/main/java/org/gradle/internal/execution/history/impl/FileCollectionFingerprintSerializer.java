@@ -59,10 +59,12 @@ private ImmutableMultimap<String, HashCode> readRootHashes(Decoder decoder) thro
             return ImmutableMultimap.of();
         }
         ImmutableMultimap.Builder<String, HashCode> builder = ImmutableMultimap.builder();
+        String previousPath = "";
         for (int i = 0; i < numberOfRoots; i++) {
-            String absolutePath = stringInterner.intern(decoder.readString());
+            String absolutePath = stringInterner.intern(FingerprintMapSerializer.readPath(decoder, previousPath));
             HashCode rootHash = hashCodeSerializer.read(decoder);
             builder.put(absolutePath, rootHash);
+            previousPath = absolutePath;
         }
         return builder.build();
     }
@@ -78,9 +80,11 @@ public void write(Encoder encoder, FileCollectionFingerprint value) throws Excep
 
     private void writeRootHashes(Encoder encoder, ImmutableMultimap<String, HashCode> rootHashes) throws IOException {
         encoder.writeSmallInt(rootHashes.size());
+        String previousPath = "";
         for (Map.Entry<String, HashCode> entry : rootHashes.entries()) {
-            encoder.writeString(entry.getKey());
+            FingerprintMapSerializer.writePath(encoder, entry.getKey(), previousPath);
             hashCodeSerializer.write(encoder, entry.getValue());
+            previousPath = entry.getKey();
         }
     }
 
@@ -17,6 +17,7 @@
 package org.gradle.internal.execution.history.impl;
 
 import com.google.common.base.Objects;
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Interner;
 import org.gradle.internal.file.FileType;
@@ -32,9 +33,16 @@
 import java.io.IOException;
 import java.util.Map;
 
+/**
+ * Serializes the fingerprints of a file collection.
+ *
+ * Each absolute path is written as the length of the prefix it shares with the previous path, followed by the rest of the path.
+ * A normalized path which is a suffix of the absolute path, like a relative path or a file name, is written as its length only.
+ */
 public class FingerprintMapSerializer extends AbstractSerializer<Map<String, FileSystemLocationFingerprint>> {
     private static final byte DEFAULT_NORMALIZATION = 1;
     private static final byte IGNORED_PATH_NORMALIZATION = 2;
+    private static final byte ABSOLUTE_PATH_SUFFIX_NORMALIZATION = 3;
 
     private static final byte DIR_FINGERPRINT = 1;
     private static final byte MISSING_FILE_FINGERPRINT = 2;
@@ -51,15 +59,17 @@ public FingerprintMapSerializer(Interner<String> stringInterner) {
     public Map<String, FileSystemLocationFingerprint> read(Decoder decoder) throws IOException {
         int fingerprintCount = decoder.readSmallInt();
         ImmutableMap.Builder<String, FileSystemLocationFingerprint> fingerprints = ImmutableMap.builderWithExpectedSize(fingerprintCount);
+        String previousPath = "";
         for (int i = 0; i < fingerprintCount; i++) {
-            String absolutePath = stringInterner.intern(decoder.readString());
-            FileSystemLocationFingerprint fingerprint = readFingerprint(decoder);
+            String absolutePath = stringInterner.intern(readPath(decoder, previousPath));
+            FileSystemLocationFingerprint fingerprint = readFingerprint(decoder, absolutePath);
             fingerprints.put(absolutePath, fingerprint);
+            previousPath = absolutePath;
         }
         return fingerprints.build();
     }
 
-    private FileSystemLocationFingerprint readFingerprint(Decoder decoder) throws IOException {
+    private FileSystemLocationFingerprint readFingerprint(Decoder decoder, String absolutePath) throws IOException {
         FileType fileType = readFileType(decoder);
         HashCode contentHash = readContentHash(fileType, decoder);
 
@@ -70,6 +80,10 @@ private FileSystemLocationFingerprint readFingerprint(Decoder decoder) throws IO
                 return new DefaultFileSystemLocationFingerprint(stringInterner.intern(normalizedPath), fileType, contentHash);
             case IGNORED_PATH_NORMALIZATION:
                 return IgnoredPathFileSystemLocationFingerprint.create(fileType, contentHash);
+            case ABSOLUTE_PATH_SUFFIX_NORMALIZATION:
+                int normalizedPathLength = decoder.readSmallInt();
+                String normalizedPathSuffix = absolutePath.substring(absolutePath.length() - normalizedPathLength);
+                return new DefaultFileSystemLocationFingerprint(stringInterner.intern(normalizedPathSuffix), fileType, contentHash);
             default:
                 throw new RuntimeException("Unable to read serialized file fingerprint. Unrecognized value found in the data stream.");
         }
@@ -105,13 +119,28 @@ private FileType readFileType(Decoder decoder) throws IOException {
     @Override
     public void write(Encoder encoder, Map<String, FileSystemLocationFingerprint> value) throws Exception {
         encoder.writeSmallInt(value.size());
-        for (String key : value.keySet()) {
-            encoder.writeString(key);
-            FileSystemLocationFingerprint fingerprint = value.get(key);
-            writeFingerprint(encoder, fingerprint);
+        String previousPath = "";
+        for (Map.Entry<String, FileSystemLocationFingerprint> entry : value.entrySet()) {
+            String absolutePath = entry.getKey();
+            writePath(encoder, absolutePath, previousPath);
+            writeFingerprint(encoder, absolutePath, entry.getValue());
+            previousPath = absolutePath;
         }
     }
 
+    static String readPath(Decoder decoder, String previousPath) throws IOException {
+        int sharedPrefixLength = decoder.readSmallInt();
+        String suffix = decoder.readString();
+        return sharedPrefixLength == 0 ? suffix : previousPath.substring(0, sharedPrefixLength) + suffix;
+    }
+
+    static void writePath(Encoder encoder, String path, String previousPath) throws IOException {
+        // Does not split surrogate pairs
+        int sharedPrefixLength = Strings.commonPrefix(previousPath, path).length();
+        encoder.writeSmallInt(sharedPrefixLength);
+        encoder.writeString(path.substring(sharedPrefixLength));
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (!super.equals(obj)) {
@@ -127,7 +156,7 @@ public int hashCode() {
         return Objects.hashCode(super.hashCode(), hashCodeSerializer);
     }
 
-    private void writeFingerprint(Encoder encoder, FileSystemLocationFingerprint value) throws IOException {
+    private void writeFingerprint(Encoder encoder, String absolutePath, FileSystemLocationFingerprint value) throws IOException {
         switch (value.getType()) {
             case Directory:
                 encoder.writeByte(DIR_FINGERPRINT);
@@ -144,8 +173,14 @@ private void writeFingerprint(Encoder encoder, FileSystemLocationFingerprint val
         }
 
         if (value instanceof DefaultFileSystemLocationFingerprint) {
-            encoder.writeByte(DEFAULT_NORMALIZATION);
-            encoder.writeString(value.getNormalizedPath());
+            String normalizedPath = value.getNormalizedPath();
+            if (absolutePath.endsWith(normalizedPath)) {
+                encoder.writeByte(ABSOLUTE_PATH_SUFFIX_NORMALIZATION);
+                encoder.writeSmallInt(normalizedPath.length());
+            } else {
+                encoder.writeByte(DEFAULT_NORMALIZATION);
+                encoder.writeString(normalizedPath);
+            }
         } else if (value instanceof IgnoredPathFileSystemLocationFingerprint) {
             encoder.writeByte(IGNORED_PATH_NORMALIZATION);
         } else {
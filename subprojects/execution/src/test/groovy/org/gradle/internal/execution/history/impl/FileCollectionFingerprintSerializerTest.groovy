@@ -93,4 +93,26 @@ class FileCollectionFingerprintSerializerTest extends SerializerSpec {
         out.fingerprints.keySet() as List == ["/3", "/2", "/1"]
         out.rootHashes.keySet() as List == ["/3", "/2", "/1"]
     }
+
+    def "writes paths which share a prefix compactly"() {
+        def fingerprints = [:]
+        def rootHashes = ImmutableMultimap.builder()
+        (1..100).each {
+            def absolutePath = "/some/long/path/to/the/project/build/classes/java/main/org/example/Class${it}.class"
+            def hash = TestHashCodes.hashCodeFrom(it)
+            fingerprints[absolutePath] = new DefaultFileSystemLocationFingerprint("org/example/Class${it}.class", FileType.RegularFile, hash)
+            rootHashes.put(absolutePath, hash)
+        }
+        def fingerprint = new SerializableFileCollectionFingerprint(fingerprints, rootHashes.build(), TestHashCodes.hashCodeFrom(1))
+
+        when:
+        def bytes = toBytes(fingerprint, serializer)
+        def out = fromBytes(bytes, serializer)
+
+        then:
+        bytes.length < fingerprints.keySet().sum { it.length() }
+        out.fingerprints.keySet() as List == fingerprints.keySet() as List
+        out.fingerprints.every { path, value -> value.normalizedPath == fingerprints[path].normalizedPath && value.normalizedContentHash == fingerprints[path].normalizedContentHash }
+        out.rootHashes == fingerprint.rootHashes
+    }
 }
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.watch.vfs;
+
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
+import org.gradle.internal.snapshot.SnapshotHierarchy;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Keeps the contents of the virtual file system between daemons.
+ *
+ * A daemon which starts watching a hierarchy can load the snapshots of the hierarchy stored by a previous daemon,
+ * instead of starting with no snapshots for it.
+ */
+public interface VirtualFileSystemCheckpoint extends Closeable {
+    VirtualFileSystemCheckpoint NONE = new VirtualFileSystemCheckpoint() {
+        @Override
+        public List<FileSystemLocationSnapshot> load(File watchableHierarchy) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void store(File watchableHierarchy, SnapshotHierarchy root) {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    /**
+     * Loads the stored snapshots of the given watchable hierarchy which still match the file system.
+     */
+    List<FileSystemLocationSnapshot> load(File watchableHierarchy);
+
+    /**
+     * Stores the snapshots of the given hierarchy from the given root, replacing the previously stored snapshots of the hierarchy.
+     *
+     * The snapshots may be written after this method returns.
+     */
+    void store(File watchableHierarchy, SnapshotHierarchy root);
+
+    /**
+     * Waits for snapshots which are still being stored.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.watch.vfs.impl;
+
+import org.gradle.internal.file.FileException;
+import org.gradle.internal.file.FileMetadata;
+import org.gradle.internal.file.FileType;
+import org.gradle.internal.file.Stat;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
+import org.gradle.internal.snapshot.FileSystemSnapshotHierarchyVisitor;
+import org.gradle.internal.snapshot.PathUtil;
+import org.gradle.internal.snapshot.RegularFileSnapshot;
+import org.gradle.internal.snapshot.SnapshotHierarchy;
+import org.gradle.internal.snapshot.SnapshotVisitResult;
+import org.gradle.internal.watch.vfs.VirtualFileSystemCheckpoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * A {@link VirtualFileSystemCheckpoint} which stores the regular file snapshots of each watchable hierarchy in a file of its own.
+ *
+ * When loading, a snapshot is only used when the file still has the same length and modification time,
+ * so the content hash of the file can be reused without reading the file again.
+ * Directory snapshots are not stored, since detecting changes to a directory requires listing its contents anyway.
+ *
+ * The snapshots are written by the given executor, so storing them does not delay the end of the build.
+ * A hierarchy whose snapshots did not change since they were last written by this daemon is not written again.
+ *
+ * The modification time of a checkpoint file records when it was last loaded or written, so the checkpoints of hierarchies which are no longer built can be cleaned up.
+ */
+public class FileBackedVirtualFileSystemCheckpoint implements VirtualFileSystemCheckpoint {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileBackedVirtualFileSystemCheckpoint.class);
+    private static final int FORMAT_VERSION = 1;
+
+    private final File checkpointDir;
+    private final Stat stat;
+    private final ExecutorService writer;
+    private final Map<File, SnapshotHierarchy> pendingStores = new ConcurrentHashMap<>();
+    // Only used by the writer
+    private final Map<File, List<FileSystemLocationSnapshot>> storedRootSnapshots = new HashMap<>();
+
+    /**
+     * @param writer the executor which writes the checkpoints. It should run one task at a time, and is shut down when the checkpoint is closed.
+     */
+    public FileBackedVirtualFileSystemCheckpoint(File checkpointDir, Stat stat, ExecutorService writer) {
+        this.checkpointDir = checkpointDir;
+        this.stat = stat;
+        this.writer = writer;
+    }
+
+    private File checkpointFileFor(File watchableHierarchy) {
+        return new File(checkpointDir, Hashing.hashString(watchableHierarchy.getAbsolutePath()) + ".bin");
+    }
+
+    @Override
+    public List<FileSystemLocationSnapshot> load(File watchableHierarchy) {
+        File checkpointFile = checkpointFileFor(watchableHierarchy);
+        List<FileSystemLocationSnapshot> snapshots = new ArrayList<>();
+        if (!checkpointFile.isFile()) {
+            return snapshots;
+        }
+        try {
+            // Record that the checkpoint is still used, so it is not cleaned up
+            Files.setLastModifiedTime(checkpointFile.toPath(), FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            LOGGER.debug("Could not update the modification time of virtual file system checkpoint {}", checkpointFile, e);
+        }
+        int discarded = 0;
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(checkpointFile)))) {
+            if (input.readInt() != FORMAT_VERSION) {
+                LOGGER.info("Ignoring virtual file system checkpoint {} with unknown format", checkpointFile);
+                return snapshots;
+            }
+            while (input.readBoolean()) {
+                String absolutePath = input.readUTF();
+                FileMetadata.AccessType accessType = FileMetadata.AccessType.values()[input.readByte()];
+                byte[] hash = new byte[input.readUnsignedByte()];
+                input.readFully(hash);
+                long lastModified = input.readLong();
+                long length = input.readLong();
+                FileMetadata currentMetadata = statIfPossible(absolutePath);
+                if (currentMetadata != null
+                    && currentMetadata.getType() == FileType.RegularFile
+                    && currentMetadata.getAccessType() == accessType
+                    && currentMetadata.getLastModified() == lastModified
+                    && currentMetadata.getLength() == length) {
+                    snapshots.add(new RegularFileSnapshot(absolutePath, PathUtil.getFileName(absolutePath), HashCode.fromBytes(hash), currentMetadata));
+                } else {
+                    discarded++;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.info("Could not load virtual file system checkpoint {}", checkpointFile, e);
+            snapshots.clear();
+            return snapshots;
+        }
+        LOGGER.info("Loaded {} file snapshots from virtual file system checkpoint, discarded {} changed files", snapshots.size(), discarded);
+        return snapshots;
+    }
+
+    @Nullable
+    private FileMetadata statIfPossible(String absolutePath) {
+        try {
+            return stat.stat(new File(absolutePath));
+        } catch (FileException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void store(File watchableHierarchy, SnapshotHierarchy root) {
+        // When a write for the hierarchy is already queued, it picks up the newer root instead
+        if (pendingStores.put(watchableHierarchy, root) == null) {
+            try {
+                writer.execute(() -> writePending(watchableHierarchy));
+            } catch (RejectedExecutionException e) {
+                pendingStores.remove(watchableHierarchy);
+                LOGGER.debug("Not storing virtual file system checkpoint for {} after the checkpoint has been closed", watchableHierarchy);
+            }
+        }
+    }
+
+    private void writePending(File watchableHierarchy) {
+        SnapshotHierarchy root = pendingStores.remove(watchableHierarchy);
+        if (root == null) {
+            return;
+        }
+        List<FileSystemLocationSnapshot> rootSnapshots = root.rootSnapshotsUnder(watchableHierarchy.getAbsolutePath()).collect(Collectors.toList());
+        if (isSameSnapshots(rootSnapshots, storedRootSnapshots.get(watchableHierarchy))) {
+            // Snapshots are immutable, so the same snapshot instances mean nothing changed since the last write
+            return;
+        }
+        if (writeCheckpoint(checkpointFileFor(watchableHierarchy), rootSnapshots)) {
+            storedRootSnapshots.put(watchableHierarchy, rootSnapshots);
+        }
+    }
+
+    private static boolean isSameSnapshots(List<FileSystemLocationSnapshot> snapshots, @Nullable List<FileSystemLocationSnapshot> previousSnapshots) {
+        if (previousSnapshots == null || previousSnapshots.size() != snapshots.size()) {
+            return false;
+        }
+        for (int i = 0; i < snapshots.size(); i++) {
+            if (snapshots.get(i) != previousSnapshots.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean writeCheckpoint(File checkpointFile, List<FileSystemLocationSnapshot> rootSnapshots) {
+        File parentDir = checkpointFile.getParentFile();
+        try {
+            Files.createDirectories(parentDir.toPath());
+            File tempFile = File.createTempFile(checkpointFile.getName(), ".tmp", parentDir);
+            try {
+                try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                    output.writeInt(FORMAT_VERSION);
+                    rootSnapshots.forEach(rootSnapshot -> rootSnapshot.accept((FileSystemSnapshotHierarchyVisitor) snapshot -> {
+                        if (snapshot instanceof RegularFileSnapshot) {
+                            write(output, (RegularFileSnapshot) snapshot);
+                        }
+                        return SnapshotVisitResult.CONTINUE;
+                    }));
+                    output.writeBoolean(false);
+                }
+                // Replace the checkpoint atomically, so a daemon never reads a partially written checkpoint
+                Files.move(tempFile.toPath(), checkpointFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tempFile.toPath());
+            }
+            return true;
+        } catch (IOException | UncheckedIOException e) {
+            LOGGER.info("Could not store virtual file system checkpoint {}", checkpointFile, e);
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(1, TimeUnit.MINUTES)) {
+                LOGGER.info("Timed out waiting for the virtual file system checkpoint to be stored");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void write(DataOutputStream output, RegularFileSnapshot snapshot) {
+        try {
+            byte[] hash = snapshot.getHash().toByteArray();
+            FileMetadata metadata = snapshot.getMetadata();
+            output.writeBoolean(true);
+            output.writeUTF(snapshot.getAbsolutePath());
+            output.writeByte(metadata.getAccessType().ordinal());
+            output.writeByte(hash.length);
+            output.write(hash);
+            output.writeLong(metadata.getLastModified());
+            output.writeLong(metadata.getLength());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -24,6 +24,7 @@
 import org.gradle.internal.operations.BuildOperationDescriptor;
 import org.gradle.internal.operations.BuildOperationRunner;
 import org.gradle.internal.operations.CallableBuildOperation;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
 import org.gradle.internal.snapshot.FileSystemNode;
 import org.gradle.internal.snapshot.SnapshotHierarchy;
 import org.gradle.internal.vfs.impl.AbstractVirtualFileSystem;
@@ -40,6 +41,7 @@
 import org.gradle.internal.watch.vfs.FileSystemWatchingInformation;
 import org.gradle.internal.watch.vfs.FileSystemWatchingStatistics;
 import org.gradle.internal.watch.vfs.VfsLogging;
+import org.gradle.internal.watch.vfs.VirtualFileSystemCheckpoint;
 import org.gradle.internal.watch.vfs.WatchLogging;
 import org.gradle.internal.watch.vfs.WatchableFileSystemDetector;
 import org.slf4j.Logger;
@@ -52,6 +54,7 @@
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
@@ -67,6 +70,7 @@ public class WatchingVirtualFileSystem extends AbstractVirtualFileSystem impleme
     private final LocationsWrittenByCurrentBuild locationsWrittenByCurrentBuild;
     private final WatchableFileSystemDetector watchableFileSystemDetector;
     private final FileChangeListeners fileChangeListeners;
+    private final VirtualFileSystemCheckpoint checkpoint;
     private final List<File> unsupportedFileSystems = new ArrayList<>();
     private Logger warningLogger = LOGGER;
 
@@ -75,6 +79,16 @@ public class WatchingVirtualFileSystem extends AbstractVirtualFileSystem impleme
      */
     private final Set<File> watchableHierarchiesRegisteredEarly = new LinkedHashSet<>();
 
+    /**
+     * Watchable hierarchies registered during the current build, whose snapshots are stored in the checkpoint at the end of the build.
+     */
+    private final Set<File> watchableHierarchiesOfCurrentBuild = new LinkedHashSet<>();
+
+    /**
+     * Watchable hierarchies whose snapshots have been restored from the checkpoint since watching started.
+     */
+    private final Set<File> watchableHierarchiesRestoredFromCheckpoint = new HashSet<>();
+
     private FileWatcherRegistry watchRegistry;
     private Exception reasonForNotWatchingFiles;
     private boolean stateInvalidatedAtStartOfBuild;
@@ -85,7 +99,8 @@ public WatchingVirtualFileSystem(
         DaemonDocumentationIndex daemonDocumentationIndex,
         LocationsWrittenByCurrentBuild locationsWrittenByCurrentBuild,
         WatchableFileSystemDetector watchableFileSystemDetector,
-        FileChangeListeners fileChangeListeners
+        FileChangeListeners fileChangeListeners,
+        VirtualFileSystemCheckpoint checkpoint
     ) {
         super(root);
         this.watcherRegistryFactory = watcherRegistryFactory;
@@ -93,6 +108,7 @@ public WatchingVirtualFileSystem(
         this.locationsWrittenByCurrentBuild = locationsWrittenByCurrentBuild;
         this.watchableFileSystemDetector = watchableFileSystemDetector;
         this.fileChangeListeners = fileChangeListeners;
+        this.checkpoint = checkpoint;
     }
 
     @Override
@@ -205,14 +221,16 @@ public BuildOperationDescriptor.Builder description() {
     @Override
     public void registerWatchableHierarchy(File watchableHierarchy) {
         updateRootUnderLock(currentRoot -> {
+            watchableHierarchiesOfCurrentBuild.add(watchableHierarchy);
             if (watchRegistry == null) {
                 watchableHierarchiesRegisteredEarly.add(watchableHierarchy);
                 return currentRoot;
             }
-            return withWatcherChangeErrorHandling(
+            SnapshotHierarchy newRoot = withWatcherChangeErrorHandling(
                 currentRoot,
                 () -> watchRegistry.registerWatchableHierarchy(watchableHierarchy, currentRoot)
             );
+            return watchRegistry == null ? newRoot : restoreFromCheckpoint(newRoot, watchableHierarchy);
         });
     }
 
@@ -228,6 +246,8 @@ public void beforeBuildFinished(
             @Override
             public SnapshotHierarchy call(BuildOperationContext context) {
                 watchableHierarchiesRegisteredEarly.clear();
+                List<File> watchableHierarchiesToCheckpoint = new ArrayList<>(watchableHierarchiesOfCurrentBuild);
+                watchableHierarchiesOfCurrentBuild.clear();
                 if (watchMode.isEnabled()) {
                     if (reasonForNotWatchingFiles != null) {
                         // Log exception again so it doesn't get lost.
@@ -246,6 +266,11 @@ public SnapshotHierarchy call(BuildOperationContext context) {
                         } else {
                             newRoot = withWatcherChangeErrorHandling(currentRoot, () -> watchRegistry.updateVfsOnBuildFinished(currentRoot, watchMode, maximumNumberOfWatchedHierarchies, unsupportedFileSystems));
                         }
+                        if (watchRegistry != null) {
+                            for (File watchableHierarchy : watchableHierarchiesToCheckpoint) {
+                                checkpoint.store(watchableHierarchy, newRoot);
+                            }
+                        }
                         statisticsDuringBuild = new DefaultFileSystemWatchingStatistics(statistics, newRoot);
                         if (vfsLogging == VfsLogging.VERBOSE) {
                             LOGGER.warn("Received {} file system events during the current build while watching {} locations",
@@ -315,8 +340,13 @@ private SnapshotHierarchy startWatching(SnapshotHierarchy currentRoot, WatchMode
                 )));
             SnapshotHierarchy newRoot = watchRegistry.updateVfsOnBuildStarted(currentRoot.empty(), watchMode, unsupportedFileSystems);
             watchableHierarchiesRegisteredEarly.forEach(watchableHierarchy -> watchRegistry.registerWatchableHierarchy(watchableHierarchy, newRoot));
+            watchableHierarchiesRestoredFromCheckpoint.clear();
+            SnapshotHierarchy restoredRoot = newRoot;
+            for (File watchableHierarchy : watchableHierarchiesRegisteredEarly) {
+                restoredRoot = restoreFromCheckpoint(restoredRoot, watchableHierarchy);
+            }
             watchableHierarchiesRegisteredEarly.clear();
-            return newRoot;
+            return restoredRoot;
         } catch (Exception ex) {
             logWatchingError(ex, FILE_WATCHING_ERROR_MESSAGE_DURING_BUILD, null);
             closeUnderLock();
@@ -324,6 +354,28 @@ private SnapshotHierarchy startWatching(SnapshotHierarchy currentRoot, WatchMode
         }
     }
 
+    /**
+     * Adds the snapshots of the watchable hierarchy which are still up-to-date from the checkpoint written by a previous daemon.
+     * The snapshots are added after the hierarchy has been registered, so the watchers pick up any changes to them from now on.
+     */
+    @CheckReturnValue
+    private SnapshotHierarchy restoreFromCheckpoint(SnapshotHierarchy currentRoot, File watchableHierarchy) {
+        if (!watchableHierarchiesRestoredFromCheckpoint.add(watchableHierarchy)) {
+            return currentRoot;
+        }
+        List<FileSystemLocationSnapshot> restoredSnapshots = checkpoint.load(watchableHierarchy);
+        if (restoredSnapshots.isEmpty()) {
+            return currentRoot;
+        }
+        return updateNotifyingListeners(diffListener -> {
+            SnapshotHierarchy newRoot = currentRoot;
+            for (FileSystemLocationSnapshot restoredSnapshot : restoredSnapshots) {
+                newRoot = newRoot.store(restoredSnapshot.getAbsolutePath(), restoredSnapshot, diffListener);
+            }
+            return newRoot;
+        });
+    }
+
     @Override
     public boolean isWatchingAnyLocations() {
         FileWatcherRegistry watchRegistry = this.watchRegistry;
@@ -509,6 +561,7 @@ public void close() {
             closeUnderLock();
             return currentRoot.empty();
         });
+        checkpoint.close();
     }
 
     private void closeUnderLock() {
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.watch.vfs.impl
+
+import com.google.common.util.concurrent.MoreExecutors
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.internal.file.FileMetadata
+import org.gradle.internal.file.impl.DefaultFileMetadata
+import org.gradle.internal.hash.TestHashCodes
+import org.gradle.internal.snapshot.CaseSensitivity
+import org.gradle.internal.snapshot.DirectorySnapshot
+import org.gradle.internal.snapshot.RegularFileSnapshot
+import org.gradle.internal.snapshot.SnapshotHierarchy
+import org.gradle.internal.vfs.impl.DefaultSnapshotHierarchy
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class FileBackedVirtualFileSystemCheckpointTest extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+
+    def checkpointDir = tmpDir.file("vfs/checkpoints")
+    def checkpoint = new FileBackedVirtualFileSystemCheckpoint(checkpointDir, TestFiles.fileSystem(), MoreExecutors.newDirectExecutorService())
+    def hierarchy = tmpDir.file("dir")
+
+    def "loads nothing when no checkpoint has been stored"() {
+        expect:
+        checkpoint.load(hierarchy).empty
+    }
+
+    def "restores regular files which did not change"() {
+        def unchanged = tmpDir.file("dir/unchanged.txt") << "unchanged"
+        def changed = tmpDir.file("dir/changed.txt") << "changed"
+        def removed = tmpDir.file("dir/removed.txt") << "removed"
+        def directory = new DirectorySnapshot(tmpDir.file("dir").absolutePath, "dir", FileMetadata.AccessType.DIRECT, TestHashCodes.hashCodeFrom(1), [
+            snapshotOf(changed, 2),
+            snapshotOf(removed, 3),
+            snapshotOf(unchanged, 4)
+        ])
+
+        when:
+        checkpoint.store(hierarchy, hierarchyWith(directory))
+        changed << " again"
+        removed.delete()
+        def restored = checkpoint.load(hierarchy)
+
+        then:
+        restored.size() == 1
+        with(restored[0] as RegularFileSnapshot) {
+            absolutePath == unchanged.absolutePath
+            name == "unchanged.txt"
+            hash == TestHashCodes.hashCodeFrom(4)
+        }
+    }
+
+    def "stores the snapshots of each hierarchy separately"() {
+        def file = tmpDir.file("dir/file.txt") << "content"
+        def otherFile = tmpDir.file("other/file.txt") << "other content"
+        def root = hierarchyWith(
+            new DirectorySnapshot(hierarchy.absolutePath, "dir", FileMetadata.AccessType.DIRECT, TestHashCodes.hashCodeFrom(1), [snapshotOf(file, 2)]),
+            new DirectorySnapshot(otherFile.parentFile.absolutePath, "other", FileMetadata.AccessType.DIRECT, TestHashCodes.hashCodeFrom(3), [snapshotOf(otherFile, 4)])
+        )
+
+        when:
+        checkpoint.store(hierarchy, root)
+
+        then:
+        checkpoint.load(hierarchy)*.absolutePath == [file.absolutePath]
+        checkpoint.load(otherFile.parentFile).empty
+    }
+
+    def "does not write the checkpoint of a hierarchy again when its snapshots did not change"() {
+        def file = tmpDir.file("dir/file.txt") << "content"
+        def root = hierarchyWith(new DirectorySnapshot(hierarchy.absolutePath, "dir", FileMetadata.AccessType.DIRECT, TestHashCodes.hashCodeFrom(1), [snapshotOf(file, 2)]))
+        checkpoint.store(hierarchy, root)
+
+        when:
+        checkpointDir.listFiles()*.delete()
+        checkpoint.store(hierarchy, root)
+
+        then:
+        checkpoint.load(hierarchy).empty
+
+        when:
+        checkpoint.store(hierarchy, root.invalidate(file.absolutePath, SnapshotHierarchy.NodeDiffListener.NOOP).store(file.absolutePath, snapshotOf(file, 3), SnapshotHierarchy.NodeDiffListener.NOOP))
+
+        then:
+        checkpoint.load(hierarchy)*.hash == [TestHashCodes.hashCodeFrom(3)]
+    }
+
+    def "records use of checkpoint when it is loaded"() {
+        def file = tmpDir.file("dir/file.txt") << "content"
+        checkpoint.store(hierarchy, hierarchyWith(new DirectorySnapshot(hierarchy.absolutePath, "dir", FileMetadata.AccessType.DIRECT, TestHashCodes.hashCodeFrom(1), [snapshotOf(file, 2)])))
+        def checkpointFile = checkpointDir.listFiles().first()
+        checkpointFile.setLastModified(0)
+
+        when:
+        checkpoint.load(hierarchy)
+
+        then:
+        checkpointFile.lastModified() > 0
+    }
+
+    def "ignores corrupt checkpoint"() {
+        checkpoint.store(hierarchy, hierarchyWith())
+        checkpointDir.listFiles().each { it.text = "corrupt" }
+
+        expect:
+        checkpoint.load(hierarchy).empty
+    }
+
+    def "does not store snapshots after it has been closed"() {
+        def file = tmpDir.file("dir/file.txt") << "content"
+
+        when:
+        checkpoint.close()
+        checkpoint.store(hierarchy, hierarchyWith(new DirectorySnapshot(hierarchy.absolutePath, "dir", FileMetadata.AccessType.DIRECT, TestHashCodes.hashCodeFrom(1), [snapshotOf(file, 2)])))
+
+        then:
+        checkpoint.load(hierarchy).empty
+    }
+
+    private static RegularFileSnapshot snapshotOf(TestFile file, int hash) {
+        new RegularFileSnapshot(file.absolutePath, file.name, TestHashCodes.hashCodeFrom(hash), DefaultFileMetadata.file(file.lastModified(), file.length(), FileMetadata.AccessType.DIRECT))
+    }
+
+    private static SnapshotHierarchy hierarchyWith(DirectorySnapshot... directories) {
+        directories.inject(DefaultSnapshotHierarchy.empty(CaseSensitivity.CASE_SENSITIVE)) { SnapshotHierarchy root, directory ->
+            root.store(directory.absolutePath, directory, SnapshotHierarchy.NodeDiffListener.NOOP)
+        }
+    }
+}
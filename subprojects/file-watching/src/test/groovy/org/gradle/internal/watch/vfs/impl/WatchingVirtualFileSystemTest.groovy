@@ -27,6 +27,7 @@ import org.gradle.internal.watch.registry.WatchMode
 import org.gradle.internal.watch.registry.impl.DaemonDocumentationIndex
 import org.gradle.internal.watch.vfs.FileChangeListeners
 import org.gradle.internal.watch.vfs.VfsLogging
+import org.gradle.internal.watch.vfs.VirtualFileSystemCheckpoint
 import org.gradle.internal.watch.vfs.WatchLogging
 import org.gradle.internal.watch.vfs.WatchableFileSystemDetector
 import spock.lang.Specification
@@ -49,7 +50,8 @@ class WatchingVirtualFileSystemTest extends Specification {
         daemonDocumentationIndex,
         locationsUpdatedByCurrentBuild,
         watchableFileSystemDetector,
-        fileChangeListeners
+        fileChangeListeners,
+        VirtualFileSystemCheckpoint.NONE
     )
 
     def "invalidates the virtual file system before and after the build when watching is disabled"() {
@@ -164,6 +166,46 @@ class WatchingVirtualFileSystemTest extends Specification {
         1 * watcherRegistry.registerWatchableHierarchy(newWatchableHierarchy, _)
     }
 
+    def "restores and stores the checkpoint of each hierarchy registered during the build"() {
+        def checkpoint = Mock(VirtualFileSystemCheckpoint)
+        def watchingVirtualFileSystem = new WatchingVirtualFileSystem(
+            watcherRegistryFactory,
+            nonEmptySnapshotHierarchy,
+            daemonDocumentationIndex,
+            locationsUpdatedByCurrentBuild,
+            watchableFileSystemDetector,
+            fileChangeListeners,
+            checkpoint
+        )
+        def watchableHierarchy = new File("watchable")
+        def anotherWatchableHierarchy = new File("anotherWatchable")
+
+        when:
+        watchingVirtualFileSystem.registerWatchableHierarchy(watchableHierarchy)
+        watchingVirtualFileSystem.afterBuildStarted(WatchMode.ENABLED, VfsLogging.NORMAL, WatchLogging.NORMAL, buildOperationRunner)
+        watchingVirtualFileSystem.registerWatchableHierarchy(anotherWatchableHierarchy)
+        watchingVirtualFileSystem.registerWatchableHierarchy(watchableHierarchy)
+        then:
+        1 * watcherRegistryFactory.createFileWatcherRegistry(_) >> watcherRegistry
+        1 * watcherRegistry.updateVfsOnBuildStarted(_, _, _) >> watchingVirtualFileSystem.root
+        1 * checkpoint.load(watchableHierarchy) >> []
+        1 * checkpoint.load(anotherWatchableHierarchy) >> []
+
+        when:
+        watchingVirtualFileSystem.beforeBuildFinished(WatchMode.ENABLED, VfsLogging.NORMAL, WatchLogging.NORMAL, buildOperationRunner, Integer.MAX_VALUE)
+        then:
+        1 * watcherRegistry.getAndResetStatistics() >> Stub(FileWatcherRegistry.FileWatchingStatistics)
+        1 * watcherRegistry.updateVfsOnBuildFinished(_, WatchMode.ENABLED, Integer.MAX_VALUE, []) >> watchingVirtualFileSystem.root
+        1 * checkpoint.store(watchableHierarchy, _)
+        1 * checkpoint.store(anotherWatchableHierarchy, _)
+        0 * checkpoint._
+
+        when:
+        watchingVirtualFileSystem.close()
+        then:
+        1 * checkpoint.close()
+    }
+
     def "detects unsupported file systems on default watch mode"() {
         def unsupportedFileSystems = [new File("unsupported")]
 
@@ -28,13 +28,36 @@ public class DefaultStreamHasher implements StreamHasher {
     private static final HashCode SIGNATURE = Hashing.signature(DefaultStreamHasher.class);
 
     private final Queue<byte[]> buffers = new ArrayBlockingQueue<byte[]>(16);
+    private final HashFunction hashFunction;
+    private final HashCode signature;
+
+    public DefaultStreamHasher() {
+        this(Hashing.defaultFunction());
+    }
+
+    /**
+     * Creates a stream hasher using the given hash function for the content.
+     *
+     * The algorithm is part of the signature mixed into each hash, so content hashes created with different hash functions never match.
+     * The signature for the default hash function stays the same, so existing content hashes remain valid.
+     */
+    public DefaultStreamHasher(HashFunction hashFunction) {
+        this.hashFunction = hashFunction;
+        this.signature = hashFunction == Hashing.defaultFunction()
+            ? SIGNATURE
+            : Hashing.signature("CLASS:" + DefaultStreamHasher.class.getName() + ":" + hashFunction.getAlgorithm());
+    }
+
+    public HashFunction getHashFunction() {
+        return hashFunction;
+    }
 
     @Override
     public HashCode hash(InputStream inputStream) {
         try {
             return doHash(inputStream, ByteStreams.nullOutputStream());
         } catch (IOException e) {
-            throw new UncheckedIOException("Failed to create MD5 hash for file content.", e);
+            throw new UncheckedIOException(String.format("Failed to create %s hash for file content.", hashFunction.getAlgorithm()), e);
         }
     }
 
@@ -46,8 +69,8 @@ public HashCode hashCopy(InputStream inputStream, OutputStream outputStream) thr
     private HashCode doHash(InputStream inputStream, OutputStream outputStream) throws IOException {
         byte[] buffer = takeBuffer();
         try {
-            PrimitiveHasher hasher = Hashing.newPrimitiveHasher();
-            hasher.putHash(SIGNATURE);
+            PrimitiveHasher hasher = hashFunction.newPrimitiveHasher();
+            hasher.putHash(signature);
             while (true) {
                 int nread = inputStream.read(buffer);
                 if (nread < 0) {
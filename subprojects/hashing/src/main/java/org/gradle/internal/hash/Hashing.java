@@ -49,6 +49,8 @@ private Hashing() {
 
     private static final HashFunction DEFAULT = MD5;
 
+    private static final HashFunction MURMUR3 = Murmur3HashFunction.INSTANCE;
+
     /**
      * Returns a new {@link Hasher} based on the default hashing implementation.
      */
@@ -143,6 +145,17 @@ public static HashFunction sha512() {
         return SHA512;
     }
 
+    /**
+     * 128-bit MurmurHash3 hashing function. This is not a cryptographic hash function.
+     */
+    public static HashFunction murmur3() {
+        return MURMUR3;
+    }
+
+    static Hasher newHasher(PrimitiveHasher primitiveHasher) {
+        return new DefaultHasher(primitiveHasher);
+    }
+
     private static abstract class MessageDigestHashFunction implements HashFunction {
         private final int hexDigits;
 
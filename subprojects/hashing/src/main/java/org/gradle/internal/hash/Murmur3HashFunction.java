@@ -0,0 +1,254 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.hash;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The 128-bit x64 variant of MurmurHash3 with a seed of 0.
+ *
+ * <p>This is a non-cryptographic hash function, which is considerably faster than MD5 for large inputs.
+ * The produced hash codes are byte-for-byte identical to the ones of Guava's {@code Hashing.murmur3_128()}.</p>
+ */
+class Murmur3HashFunction implements HashFunction {
+    static final Murmur3HashFunction INSTANCE = new Murmur3HashFunction();
+
+    private static final String ALGORITHM = "MURMUR3-128";
+    private static final int CHUNK_SIZE = 16;
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private Murmur3HashFunction() {
+    }
+
+    @Override
+    public String getAlgorithm() {
+        return ALGORITHM;
+    }
+
+    @Override
+    public PrimitiveHasher newPrimitiveHasher() {
+        return new Murmur3Hasher();
+    }
+
+    @Override
+    public Hasher newHasher() {
+        return Hashing.newHasher(newPrimitiveHasher());
+    }
+
+    @Override
+    public HashCode hashBytes(byte[] bytes) {
+        PrimitiveHasher hasher = newPrimitiveHasher();
+        hasher.putBytes(bytes);
+        return hasher.hash();
+    }
+
+    @Override
+    public HashCode hashString(CharSequence string) {
+        PrimitiveHasher hasher = newPrimitiveHasher();
+        hasher.putString(string);
+        return hasher.hash();
+    }
+
+    @Override
+    public HashCode hashStream(InputStream stream) throws IOException {
+        HashingOutputStream hashingOutputStream = new HashingOutputStream(this, ByteStreams.nullOutputStream());
+        ByteStreams.copy(stream, hashingOutputStream);
+        return hashingOutputStream.hash();
+    }
+
+    @Override
+    public HashCode hashFile(File file) throws IOException {
+        HashingOutputStream hashingOutputStream = new HashingOutputStream(this, ByteStreams.nullOutputStream());
+        Files.copy(file, hashingOutputStream);
+        return hashingOutputStream.hash();
+    }
+
+    @Override
+    public int getHexDigits() {
+        return 32;
+    }
+
+    @Override
+    public String toString() {
+        return getAlgorithm();
+    }
+
+    private static class Murmur3Hasher implements PrimitiveHasher {
+        // Holds the bytes of an incomplete chunk until enough bytes have been added to process it
+        private final byte[] pending = new byte[CHUNK_SIZE];
+        private int pendingCount;
+        private long h1;
+        private long h2;
+        private long length;
+        private boolean done;
+
+        private void checkNotDone() {
+            if (done) {
+                throw new IllegalStateException("Cannot reuse hasher!");
+            }
+        }
+
+        @Override
+        public void putByte(byte b) {
+            checkNotDone();
+            pending[pendingCount++] = b;
+            if (pendingCount == CHUNK_SIZE) {
+                processChunk(pending, 0);
+                pendingCount = 0;
+            }
+        }
+
+        @Override
+        public void putBytes(byte[] bytes) {
+            putBytes(bytes, 0, bytes.length);
+        }
+
+        @Override
+        public void putBytes(byte[] bytes, int off, int len) {
+            checkNotDone();
+            int end = off + len;
+            if (pendingCount > 0) {
+                int count = Math.min(CHUNK_SIZE - pendingCount, len);
+                System.arraycopy(bytes, off, pending, pendingCount, count);
+                pendingCount += count;
+                off += count;
+                if (pendingCount < CHUNK_SIZE) {
+                    return;
+                }
+                processChunk(pending, 0);
+                pendingCount = 0;
+            }
+            while (end - off >= CHUNK_SIZE) {
+                processChunk(bytes, off);
+                off += CHUNK_SIZE;
+            }
+            pendingCount = end - off;
+            System.arraycopy(bytes, off, pending, 0, pendingCount);
+        }
+
+        @Override
+        public void putInt(int value) {
+            for (int i = 0; i < 4; i++) {
+                putByte((byte) (value >>> (8 * i)));
+            }
+        }
+
+        @Override
+        public void putLong(long value) {
+            for (int i = 0; i < 8; i++) {
+                putByte((byte) (value >>> (8 * i)));
+            }
+        }
+
+        @Override
+        public void putDouble(double value) {
+            putLong(Double.doubleToRawLongBits(value));
+        }
+
+        @Override
+        public void putBoolean(boolean value) {
+            putByte((byte) (value ? 1 : 0));
+        }
+
+        @Override
+        public void putString(CharSequence value) {
+            putBytes(value.toString().getBytes(Charsets.UTF_8));
+        }
+
+        @Override
+        public void putHash(HashCode hashCode) {
+            hashCode.appendToHasher(this);
+        }
+
+        private void processChunk(byte[] bytes, int off) {
+            long k1 = getLongLittleEndian(bytes, off, 8);
+            long k2 = getLongLittleEndian(bytes, off + 8, 8);
+            length += CHUNK_SIZE;
+
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        @Override
+        public HashCode hash() {
+            checkNotDone();
+            done = true;
+            if (pendingCount > 0) {
+                length += pendingCount;
+                h1 ^= mixK1(getLongLittleEndian(pending, 0, Math.min(pendingCount, 8)));
+                if (pendingCount > 8) {
+                    h2 ^= mixK2(getLongLittleEndian(pending, 8, pendingCount - 8));
+                }
+            }
+
+            h1 ^= length;
+            h2 ^= length;
+            h1 += h2;
+            h2 += h1;
+            h1 = fmix64(h1);
+            h2 = fmix64(h2);
+            h1 += h2;
+            h2 += h1;
+            return new HashCode.HashCode128(h1, h2);
+        }
+
+        private static long getLongLittleEndian(byte[] bytes, int off, int count) {
+            long value = 0;
+            for (int i = count - 1; i >= 0; i--) {
+                value = (value << 8) | (bytes[off + i] & 0xFFL);
+            }
+            return value;
+        }
+
+        private static long mixK1(long k1) {
+            k1 *= C1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= C2;
+            return k1;
+        }
+
+        private static long mixK2(long k2) {
+            k2 *= C2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= C1;
+            return k2;
+        }
+
+        private static long fmix64(long k) {
+            k ^= k >>> 33;
+            k *= 0xff51afd7ed558ccdL;
+            k ^= k >>> 33;
+            k *= 0xc4ceb9fe1a85ec53L;
+            k ^= k >>> 33;
+            return k;
+        }
+    }
+}
@@ -36,4 +36,14 @@ class DefaultStreamHasherTest extends Specification {
         hash.toString() == "af67a92e9f73b51572e9b94e343d2840"
         output.toByteArray() == "hello".bytes
     }
+
+    def "hashes created with a different hash function do not match"() {
+        when:
+        def hash = new DefaultStreamHasher(Hashing.murmur3()).hash(new ByteArrayInputStream("hello".bytes))
+
+        then:
+        hash.length() == 16
+        hash != new DefaultStreamHasher().hash(new ByteArrayInputStream("hello".bytes))
+        hash != Hashing.murmur3().hashBytes("hello".bytes)
+    }
 }
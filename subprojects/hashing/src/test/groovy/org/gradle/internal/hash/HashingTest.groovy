@@ -109,6 +109,40 @@ class HashingTest extends Specification {
         hashStrings(["abc", "de"]) != hashStrings(["ab", "cde"])
     }
 
+    def 'murmur3 produces the same hash as Guava for #length bytes'() {
+        def bytes = new byte[length]
+        new Random(length).nextBytes(bytes)
+
+        when:
+        def hasher = Hashing.murmur3().newPrimitiveHasher()
+        hasher.putBytes(bytes, 0, length.intdiv(3))
+        hasher.putBytes(bytes, length.intdiv(3), length - length.intdiv(3))
+
+        then:
+        hasher.hash().toByteArray() == com.google.common.hash.Hashing.murmur3_128().hashBytes(bytes).asBytes()
+
+        where:
+        length << [0, 1, 8, 15, 16, 17, 31, 32, 100, 8193]
+    }
+
+    def 'murmur3 hashes primitives like Guava'() {
+        when:
+        def hasher = Hashing.murmur3().newPrimitiveHasher()
+        hasher.putInt(1)
+        hasher.putLong(2L)
+        hasher.putByte(3 as byte)
+        hasher.putString("abc")
+
+        def guavaHasher = com.google.common.hash.Hashing.murmur3_128().newHasher()
+        guavaHasher.putInt(1)
+        guavaHasher.putLong(2L)
+        guavaHasher.putByte(3 as byte)
+        guavaHasher.putBytes("abc".bytes)
+
+        then:
+        hasher.hash().toByteArray() == guavaHasher.hash().asBytes()
+    }
+
     def hashStrings(List<String> strings) {
         def hasher = Hashing.newHasher()
         strings.each { hasher.putString(it) }
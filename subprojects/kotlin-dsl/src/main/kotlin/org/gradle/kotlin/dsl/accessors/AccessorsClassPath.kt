@@ -19,20 +19,15 @@ package org.gradle.kotlin.dsl.accessors
 import org.gradle.api.Project
 import org.gradle.api.internal.file.FileCollectionFactory
 import org.gradle.api.internal.project.ProjectInternal
-import org.gradle.api.tasks.ClasspathNormalizer
 import org.gradle.internal.classanalysis.AsmConstants.ASM_LEVEL
 import org.gradle.internal.classpath.ClassPath
 import org.gradle.internal.classpath.DefaultClassPath
 import org.gradle.internal.execution.ExecutionEngine
 import org.gradle.internal.execution.UnitOfWork
 import org.gradle.internal.execution.fingerprint.InputFingerprinter
-import org.gradle.internal.execution.fingerprint.InputFingerprinter.FileValueSupplier
-import org.gradle.internal.execution.fingerprint.InputFingerprinter.InputPropertyType.NON_INCREMENTAL
 import org.gradle.internal.execution.fingerprint.InputFingerprinter.InputVisitor
 import org.gradle.internal.file.TreeType.DIRECTORY
 import org.gradle.internal.fingerprint.CurrentFileCollectionFingerprint
-import org.gradle.internal.fingerprint.DirectorySensitivity
-import org.gradle.internal.fingerprint.LineEndingSensitivity
 import org.gradle.internal.hash.HashCode
 import org.gradle.internal.hash.Hasher
 import org.gradle.internal.hash.Hashing
@@ -66,7 +61,8 @@ class ProjectAccessorsClassPathGenerator @Inject constructor(
     private val projectSchemaProvider: ProjectSchemaProvider,
     private val executionEngine: ExecutionEngine,
     private val inputFingerprinter: InputFingerprinter,
-    private val workspaceProvider: KotlinDslWorkspaceProvider
+    private val workspaceProvider: KotlinDslWorkspaceProvider,
+    private val accessorClassCache: ProjectAccessorClassCache
 ) {
 
     fun projectAccessorsClassPath(project: Project, classPath: ClassPath): AccessorsClassPath =
@@ -85,7 +81,8 @@ class ProjectAccessorsClassPathGenerator @Inject constructor(
                 classPath,
                 fileCollectionFactory,
                 inputFingerprinter,
-                workspaceProvider
+                workspaceProvider,
+                accessorClassCache
             )
             val result = executionEngine.createRequest(work).execute()
             result.executionResult.get().output as AccessorsClassPath
@@ -109,24 +106,36 @@ class GenerateProjectAccessors(
     private val classPath: ClassPath,
     private val fileCollectionFactory: FileCollectionFactory,
     private val inputFingerprinter: InputFingerprinter,
-    private val workspaceProvider: KotlinDslWorkspaceProvider
+    private val workspaceProvider: KotlinDslWorkspaceProvider,
+    private val accessorClassCache: ProjectAccessorClassCache
 ) : UnitOfWork {
 
     companion object {
         const val PROJECT_SCHEMA_INPUT_PROPERTY = "projectSchema"
-        const val CLASSPATH_INPUT_PROPERTY = "classpath"
         const val SOURCES_OUTPUT_PROPERTY = "sources"
         const val CLASSES_OUTPUT_PROPERTY = "classes"
     }
 
+    /**
+     * The generated accessors only depend on the schema and on the accessibility of its types from the [classPath],
+     * so the accessors are identified by these instead of by the whole [classPath]. Changes to the classpath which
+     * do not change the accessibility of the schema types reuse the same accessors.
+     */
+    private
+    val availableSchema by lazy {
+        availableProjectSchemaFor(projectSchema, classPath)
+    }
+
     override fun execute(executionRequest: UnitOfWork.ExecutionRequest): UnitOfWork.WorkOutput {
         val workspace = executionRequest.workspace
         withAsynchronousIO(project) {
-            buildAccessorsFor(
-                projectSchema,
-                classPath,
+            emitAccessorsFor(
+                availableSchema,
                 srcDir = getSourcesOutputDir(workspace),
-                binDir = getClassesOutputDir(workspace)
+                binDir = getClassesOutputDir(workspace),
+                outputPackage = OutputPackage(kotlinDslPackageName),
+                format = AccessorFormats.default,
+                accessorClassCache = accessorClassCache
             )
         }
         return object : UnitOfWork.WorkOutput {
@@ -144,7 +153,6 @@ class GenerateProjectAccessors(
     override fun identify(identityInputs: Map<String, ValueSnapshot>, identityFileInputs: Map<String, CurrentFileCollectionFingerprint>): UnitOfWork.Identity {
         val hasher = Hashing.newHasher()
         requireNotNull(identityInputs[PROJECT_SCHEMA_INPUT_PROPERTY]).appendToHasher(hasher)
-        hasher.putHash(requireNotNull(identityFileInputs[CLASSPATH_INPUT_PROPERTY]).hash)
         val identityHash = hasher.hash().toString()
         return UnitOfWork.Identity { identityHash }
     }
@@ -156,17 +164,7 @@ class GenerateProjectAccessors(
     override fun getDisplayName(): String = "Kotlin DSL accessors for $project"
 
     override fun visitIdentityInputs(visitor: InputVisitor) {
-        visitor.visitInputProperty(PROJECT_SCHEMA_INPUT_PROPERTY) { hashCodeFor(projectSchema) }
-        visitor.visitInputFileProperty(
-            CLASSPATH_INPUT_PROPERTY,
-            NON_INCREMENTAL,
-            FileValueSupplier(
-                classPath,
-                ClasspathNormalizer::class.java,
-                DirectorySensitivity.IGNORE_DIRECTORIES,
-                LineEndingSensitivity.DEFAULT,
-            ) { fileCollectionFactory.fixed(classPath.asFiles) }
-        )
+        visitor.visitInputProperty(PROJECT_SCHEMA_INPUT_PROPERTY) { hashCodeForAvailable(availableSchema) }
     }
 
     override fun visitOutputs(workspace: File, visitor: UnitOfWork.OutputVisitor) {
@@ -203,7 +201,8 @@ fun IO.buildAccessorsFor(
     srcDir: File,
     binDir: File?,
     packageName: String = kotlinDslPackageName,
-    format: AccessorFormat = AccessorFormats.default
+    format: AccessorFormat = AccessorFormats.default,
+    accessorClassCache: ProjectAccessorClassCache? = null
 ) {
     val availableSchema = availableProjectSchemaFor(projectSchema, classPath)
     emitAccessorsFor(
@@ -211,7 +210,8 @@ fun IO.buildAccessorsFor(
         srcDir,
         binDir,
         OutputPackage(packageName),
-        format
+        format,
+        accessorClassCache
     )
 }
 
@@ -553,6 +553,37 @@ fun hashCodeFor(schema: TypedProjectSchema): HashCode = Hashing.newHasher().run
 }
 
 
+/**
+ * Hashes everything the generated accessors depend on, which includes the accessibility of each type.
+ */
+internal
+fun hashCodeForAvailable(schema: ProjectSchema<TypeAccessibility>): HashCode = Hashing.newHasher().run {
+    putAllAvailable(schema.extensions)
+    putAllAvailable(schema.conventions)
+    putAllAvailable(schema.tasks)
+    putAllAvailable(schema.containerElements)
+    putInt(schema.configurations.size)
+    schema.configurations.sortedBy { it.target }.forEach { configuration ->
+        putString(configuration.target)
+        putInt(configuration.dependencyDeclarationAlternatives.size)
+        configuration.dependencyDeclarationAlternatives.forEach(::putString)
+    }
+    hash()
+}
+
+
+private
+fun Hasher.putAllAvailable(entries: List<ProjectSchemaEntry<TypeAccessibility>>) {
+    putInt(entries.size)
+    entries.forEach { entry ->
+        // Describes the type and, when it is inaccessible, the reasons
+        putString(entry.target.toString())
+        putString(entry.name)
+        putString(entry.type.toString())
+    }
+}
+
+
 private
 fun Hasher.putAllSorted(strings: List<String>) {
     putInt(strings.size)
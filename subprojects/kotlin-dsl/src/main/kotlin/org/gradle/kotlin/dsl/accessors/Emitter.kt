@@ -39,7 +39,8 @@ fun IO.emitAccessorsFor(
     srcDir: File,
     binDir: File?,
     outputPackage: OutputPackage,
-    format: AccessorFormat
+    format: AccessorFormat,
+    accessorClassCache: ProjectAccessorClassCache? = null
 ): List<InternalName> {
 
     makeAccessorOutputDirs(srcDir, binDir, outputPackage.path)
@@ -53,7 +54,8 @@ fun IO.emitAccessorsFor(
                 binDir,
                 outputPackage,
                 format,
-                moduleName
+                moduleName,
+                accessorClassCache
             )
         }.toList()
 
@@ -94,35 +96,26 @@ fun IO.emitClassFor(
     binDir: File?,
     outputPackage: OutputPackage,
     format: AccessorFormat,
-    moduleName: String
+    moduleName: String,
+    accessorClassCache: ProjectAccessorClassCache?
 ): InternalName {
 
-    val (simpleClassName, fragments) = fragmentsFor(accessor)
-    val className = InternalName("${outputPackage.path}/$simpleClassName")
-    val sourceCode = mutableListOf<String>()
-
-    fun collectSourceFragment(source: String) {
-        sourceCode.add(format(source))
-    }
+    val includeBytecode = binDir != null
+    val accessorClass = accessorClassCache
+        ?.classFor(accessor, outputPackage, moduleName, includeBytecode) {
+            accessorClassFor(accessor, outputPackage, format, moduleName, includeBytecode)
+        }
+        ?: accessorClassFor(accessor, outputPackage, format, moduleName, includeBytecode)
 
+    val className = accessorClass.className
     if (binDir != null) {
-        writeAccessorsBytecodeTo(
-            binDir,
-            className,
-            fragments,
-            ::collectSourceFragment,
-            moduleName
-        )
-    } else {
-        for ((source, _, _, _) in fragments) {
-            collectSourceFragment(source)
-        }
+        writeFile(binDir.resolve("$className.class"), accessorClass.bytecode!!)
     }
 
     writeAccessorsTo(
         sourceFileFor(className, srcDir),
-        sourceCode,
-        importsRequiredBy(accessor),
+        accessorClass.sourceCode,
+        accessorClass.imports,
         outputPackage.name
     )
 
@@ -130,19 +123,66 @@ fun IO.emitClassFor(
 }
 
 
+/**
+ * The generated class holding the accessors for a single [Accessor].
+ */
+internal
+class AccessorClass(
+    val className: InternalName,
+    val bytecode: ByteArray?,
+    val sourceCode: List<String>,
+    val imports: List<String>
+)
+
+
+private
+fun accessorClassFor(
+    accessor: Accessor,
+    outputPackage: OutputPackage,
+    format: AccessorFormat,
+    moduleName: String,
+    includeBytecode: Boolean
+): AccessorClass {
+
+    val (simpleClassName, fragments) = fragmentsFor(accessor)
+    val className = InternalName("${outputPackage.path}/$simpleClassName")
+    val sourceCode = mutableListOf<String>()
+
+    fun collectSourceFragment(source: String) {
+        sourceCode.add(format(source))
+    }
+
+    val bytecode =
+        if (includeBytecode) {
+            accessorsBytecodeFor(
+                className,
+                fragments,
+                ::collectSourceFragment,
+                moduleName
+            )
+        } else {
+            for ((source, _, _, _) in fragments) {
+                collectSourceFragment(source)
+            }
+            null
+        }
+
+    return AccessorClass(className, bytecode, sourceCode, importsRequiredBy(accessor))
+}
+
+
 private
 fun sourceFileFor(className: InternalName, srcDir: File) =
     srcDir.resolve("${className.value.removeSuffix("Kt")}.kt")
 
 
 private
-fun IO.writeAccessorsBytecodeTo(
-    binDir: File,
+fun accessorsBytecodeFor(
     className: InternalName,
     fragments: Sequence<AccessorFragment>,
     collectSourceFragment: (String) -> Unit,
     moduleName: String
-) {
+): ByteArray {
 
     val metadataWriter = beginFileFacadeClassHeader()
     val classWriter = beginPublicClass(className)
@@ -154,9 +194,7 @@ fun IO.writeAccessorsBytecodeTo(
     }
 
     val classHeader = metadataWriter.closeHeader(moduleName)
-    val classBytes = classWriter.endKotlinClass(classHeader)
-    val classFile = binDir.resolve("$className.class")
-    writeFile(classFile, classBytes)
+    return classWriter.endKotlinClass(classHeader)
 }
 
 
@@ -47,12 +47,14 @@ object GradleScopeServices {
         projectSchemaProvider: ProjectSchemaProvider,
         executionEngine: ExecutionEngine,
         inputFingerprinter: InputFingerprinter,
-        workspaceProvider: KotlinDslWorkspaceProvider
+        workspaceProvider: KotlinDslWorkspaceProvider,
+        accessorClassCache: ProjectAccessorClassCache
     ) = ProjectAccessorsClassPathGenerator(
         fileCollectionFactory,
         projectSchemaProvider,
         executionEngine,
         inputFingerprinter,
-        workspaceProvider
+        workspaceProvider,
+        accessorClassCache
     )
 }
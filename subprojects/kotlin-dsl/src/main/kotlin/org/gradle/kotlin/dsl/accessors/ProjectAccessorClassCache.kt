@@ -0,0 +1,135 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.kotlin.dsl.accessors
+
+import org.gradle.api.reflect.TypeOf
+import org.gradle.cache.internal.CrossBuildInMemoryCache
+import org.gradle.cache.internal.CrossBuildInMemoryCacheFactory
+import org.gradle.internal.hash.HashCode
+import org.gradle.internal.hash.Hasher
+import org.gradle.internal.hash.Hashing
+import org.gradle.kotlin.dsl.support.bytecode.internalName
+import org.objectweb.asm.Type
+import javax.inject.Inject
+
+
+/**
+ * Keeps the generated class of each project schema element between builds.
+ *
+ * When the project schema changes, only the classes for the schema elements that changed are generated again,
+ * the classes for the other elements are reused.
+ *
+ * The classes are expected to be generated with the [default format][AccessorFormats.default].
+ */
+class ProjectAccessorClassCache @Inject constructor(
+    cacheFactory: CrossBuildInMemoryCacheFactory
+) {
+
+    private
+    val cache: CrossBuildInMemoryCache<HashCode, AccessorClass> = cacheFactory.newCache()
+
+    internal
+    fun classFor(
+        accessor: Accessor,
+        outputPackage: OutputPackage,
+        moduleName: String,
+        includeBytecode: Boolean,
+        generate: () -> AccessorClass
+    ): AccessorClass =
+        cache.get(keyFor(accessor, outputPackage, moduleName, includeBytecode)) { generate() }
+
+    private
+    fun keyFor(accessor: Accessor, outputPackage: OutputPackage, moduleName: String, includeBytecode: Boolean): HashCode =
+        Hashing.newHasher().run {
+            putAccessor(accessor)
+            putString(outputPackage.name)
+            putString(moduleName)
+            putBoolean(includeBytecode)
+            hash()
+        }
+}
+
+
+/**
+ * Hashes the schema element of the accessor, with its types by their JVM signatures.
+ *
+ * The Kotlin type strings are not used, because they do not distinguish a nested class from a class in a package of the same name.
+ */
+private
+fun Hasher.putAccessor(accessor: Accessor) {
+    putString(accessor.javaClass.simpleName)
+    when (accessor) {
+        is Accessor.ForConfiguration -> accessor.config.run {
+            putString(target.original)
+            putInt(dependencyDeclarationAlternatives.size)
+            dependencyDeclarationAlternatives.forEach(::putString)
+        }
+        is Accessor.ForExtension -> putAccessorSpec(accessor.spec)
+        is Accessor.ForConvention -> putAccessorSpec(accessor.spec)
+        is Accessor.ForContainerElement -> putAccessorSpec(accessor.spec)
+        is Accessor.ForTask -> putAccessorSpec(accessor.spec)
+    }
+}
+
+
+private
+fun Hasher.putAccessorSpec(spec: TypedAccessorSpec) {
+    putTypeAccessibility(spec.receiver)
+    putString(spec.name.original)
+    putTypeAccessibility(spec.type)
+}
+
+
+private
+fun Hasher.putTypeAccessibility(typeAccessibility: TypeAccessibility) {
+    when (typeAccessibility) {
+        is TypeAccessibility.Accessible -> {
+            putBoolean(true)
+            putString(jvmSignatureOf(typeAccessibility.type.value))
+        }
+        is TypeAccessibility.Inaccessible -> {
+            putBoolean(false)
+            putString(jvmSignatureOf(typeAccessibility.type.value))
+            // The reasons are only used to describe the type in the generated accessor
+            putInt(typeAccessibility.reasons.size)
+            typeAccessibility.reasons.forEach { putString(it.toString()) }
+        }
+    }
+}
+
+
+/**
+ * Returns the JVM signature of the given type, as used in the `Signature` attribute of class files.
+ */
+internal
+fun jvmSignatureOf(type: TypeOf<*>): String = type.run {
+    when {
+        isArray ->
+            "[${jvmSignatureOf(componentType!!)}"
+        isParameterized ->
+            "L${parameterizedTypeDefinition.concreteClass.internalName.value}<${actualTypeArguments.joinToString("", transform = ::jvmSignatureOf)}>;"
+        isWildcard ->
+            upperBound?.let { "+${jvmSignatureOf(it)}" }
+                ?: lowerBound?.let { "-${jvmSignatureOf(it)}" }
+                ?: "*"
+        isSimple ->
+            Type.getDescriptor(concreteClass)
+        else ->
+            // A type variable
+            "T$this;"
+    }
+}
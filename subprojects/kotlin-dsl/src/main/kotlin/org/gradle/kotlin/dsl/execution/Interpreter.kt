@@ -205,6 +205,56 @@ class Interpreter(val host: Host) {
         programHost.eval(specializedProgram, scriptHost)
     }
 
+    /**
+     * Prepares the compilation of the first stage of the given top-level [Project] script,
+     * so it can run on another thread ahead of the evaluation of the script.
+     *
+     * Everything that reads the state of the target project is computed by this method
+     * on the calling thread, the returned action only compiles the script to the same
+     * cached output [eval] later uses.
+     *
+     * @return the compilation action, or `null` when the first stage is already loaded.
+     */
+    fun prepareFirstStageCompilationOf(
+        target: Project,
+        scriptSource: ScriptSource,
+        sourceHash: HashCode,
+        scriptHandler: ScriptHandler,
+        targetScope: ClassLoaderScope,
+        baseScope: ClassLoaderScope
+    ): (() -> Unit)? {
+
+        val programKind = ProgramKind.TopLevel
+        val programTarget = ProgramTarget.Project
+        val templateId = templateIdFor(programTarget, programKind, "stage1")
+
+        if (host.cachedClassFor(ProgramId(templateId, sourceHash, baseScope.exportClassLoader)) != null) {
+            return null
+        }
+
+        val scriptHost = scriptHostFor(programTarget, target, scriptSource, scriptHandler, targetScope, baseScope)
+        val pluginAccessorsClassPath = host.pluginAccessorsFor(scriptHost)
+        val compilationClassPath = host.compilationClassPathOf(targetScope.parent)
+        val temporaryFileProvider = scriptHost.temporaryFileProvider
+        val injectedProperties = scriptHost.injectedProperties
+
+        return {
+            compile(
+                scriptHost,
+                templateId,
+                scriptHost.fileName,
+                scriptSource,
+                sourceHash,
+                programKind,
+                programTarget,
+                compilationClassPath,
+                pluginAccessorsClassPath,
+                temporaryFileProvider,
+                injectedProperties
+            )
+        }
+    }
+
     private
     fun programTargetFor(target: Any): ProgramTarget =
         when (target) {
@@ -289,7 +339,8 @@ class Interpreter(val host: Host) {
         programTarget: ProgramTarget,
         compilationClassPath: ClassPath,
         pluginAccessorsClassPath: ClassPath,
-        temporaryFileProvider: TemporaryFileProvider
+        temporaryFileProvider: TemporaryFileProvider,
+        injectedProperties: Map<String, KotlinType>? = null
     ): File = host.cachedDirFor(
         scriptHost,
         templateId,
@@ -326,7 +377,7 @@ class Interpreter(val host: Host) {
                     compileBuildOperationRunner = host::runCompileBuildOperation,
                     pluginAccessorsClassPath = pluginAccessorsClassPath,
                     packageName = residualProgram.packageName,
-                    injectedProperties = scriptHost.injectedProperties
+                    injectedProperties = injectedProperties ?: scriptHost.injectedProperties
                 ).compile(residualProgram.document)
             }
         }
@@ -29,6 +29,7 @@ import org.gradle.groovy.scripts.internal.ScriptSourceHasher
 import org.gradle.initialization.ClassLoaderScopeRegistry
 import org.gradle.internal.classloader.ClasspathHasher
 import org.gradle.internal.classpath.CachedClasspathTransformer
+import org.gradle.internal.concurrent.ExecutorFactory
 import org.gradle.internal.event.ListenerManager
 import org.gradle.internal.execution.ExecutionEngine
 import org.gradle.internal.execution.fingerprint.FileCollectionSnapshotter
@@ -37,6 +38,7 @@ import org.gradle.internal.fingerprint.classpath.ClasspathFingerprinter
 import org.gradle.internal.logging.progress.ProgressLoggerFactory
 import org.gradle.internal.operations.BuildOperationExecutor
 import org.gradle.internal.scripts.ScriptExecutionListener
+import org.gradle.internal.work.WorkerLeaseService
 import org.gradle.kotlin.dsl.cache.KotlinDslWorkspaceProvider
 import org.gradle.kotlin.dsl.normalization.KotlinCompileClasspathFingerprinter
 import org.gradle.kotlin.dsl.support.EmbeddedKotlinProvider
@@ -104,7 +106,8 @@ object BuildServices {
         workspaceProvider: KotlinDslWorkspaceProvider,
         @Suppress("UNUSED_PARAMETER") kotlinCompilerContextDisposer: KotlinCompilerContextDisposer,
         fileCollectionFactory: FileCollectionFactory,
-        inputFingerprinter: InputFingerprinter
+        inputFingerprinter: InputFingerprinter,
+        precompiler: KotlinBuildScriptPrecompiler
     ): KotlinScriptEvaluator =
 
         StandardKotlinScriptEvaluator(
@@ -125,7 +128,8 @@ object BuildServices {
             executionEngine,
             workspaceProvider,
             fileCollectionFactory,
-            inputFingerprinter
+            inputFingerprinter,
+            precompiler
         )
 
     @Suppress("unused")
@@ -150,8 +154,21 @@ object BuildServices {
         )
 
     @Suppress("unused")
-    fun createKotlinCompilerContextDisposer(listenerManager: ListenerManager) =
-        KotlinCompilerContextDisposer(listenerManager)
+    fun createKotlinBuildScriptPrecompiler(
+        buildOperationExecutor: BuildOperationExecutor,
+        workerLeaseService: WorkerLeaseService,
+        executorFactory: ExecutorFactory
+    ) =
+        KotlinBuildScriptPrecompiler(buildOperationExecutor, workerLeaseService, {
+            executorFactory.create("Kotlin DSL build script compiler", workerLeaseService.maxWorkerCount)
+        })
+
+    @Suppress("unused")
+    fun createKotlinCompilerContextDisposer(
+        listenerManager: ListenerManager,
+        precompiler: KotlinBuildScriptPrecompiler
+    ) =
+        KotlinCompilerContextDisposer(listenerManager, precompiler)
 
     private
     fun versionedJarCacheFor(jarCache: GeneratedGradleJarCache): JarCache =
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.kotlin.dsl.provider
+
+import org.gradle.internal.operations.BuildOperationExecutor
+import org.gradle.internal.operations.CurrentBuildOperationRef
+import org.gradle.internal.work.WorkerLeaseService
+import org.gradle.kotlin.dsl.support.loggerFor
+
+import java.io.Closeable
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Future
+
+
+/**
+ * Compiles Kotlin build scripts on background threads ahead of their evaluation.
+ *
+ * A compilation runs as a worker thread, as a child of the build operation that requested it.
+ * Its failure is rethrown to the evaluation of the script, which reports it as its own.
+ */
+internal
+class KotlinBuildScriptPrecompiler(
+    private val buildOperationExecutor: BuildOperationExecutor,
+    private val workerLeaseService: WorkerLeaseService,
+    executorServiceProvider: () -> ExecutorService,
+    val isEnabled: Boolean = java.lang.Boolean.getBoolean(enabledPropertyName)
+) : Closeable {
+
+    companion object {
+
+        const val enabledPropertyName = "org.gradle.kotlin.dsl.internal.precompileBuildScripts"
+    }
+
+    private
+    val executorService = lazy(executorServiceProvider)
+
+    private
+    val pending = ConcurrentHashMap<String, Future<*>>()
+
+    fun precompile(scriptPath: String, compilation: () -> Unit) {
+        pending.computeIfAbsent(scriptPath) {
+            val parentOperation = buildOperationExecutor.currentOperation
+            executorService.value.submit {
+                workerLeaseService.runAsWorkerThread(
+                    Runnable {
+                        CurrentBuildOperationRef.instance().set(parentOperation)
+                        try {
+                            compilation()
+                        } finally {
+                            CurrentBuildOperationRef.instance().set(null)
+                        }
+                    }
+                )
+            }
+        }
+    }
+
+    /**
+     * Waits for the pending compilation of the given script, if any, and rethrows its failure.
+     *
+     * The worker lease of the current thread is released while waiting.
+     */
+    fun awaitPrecompilationOf(scriptPath: String) {
+        val compilation = pending.remove(scriptPath) ?: return
+        try {
+            workerLeaseService.blocking {
+                compilation.get()
+            }
+        } catch (e: ExecutionException) {
+            throw e.cause ?: e
+        }
+    }
+
+    /**
+     * Waits for the compilations of the scripts which were not evaluated.
+     */
+    fun awaitAll() {
+        pending.keys.forEach { scriptPath ->
+            try {
+                awaitPrecompilationOf(scriptPath)
+            } catch (error: Exception) {
+                logger.info("Could not precompile {}", scriptPath, error)
+            }
+        }
+    }
+
+    override fun close() {
+        awaitAll()
+        executorService.apply {
+            if (isInitialized()) {
+                value.shutdown()
+            }
+        }
+    }
+}
+
+
+private
+val logger = loggerFor<KotlinBuildScriptPrecompiler>()
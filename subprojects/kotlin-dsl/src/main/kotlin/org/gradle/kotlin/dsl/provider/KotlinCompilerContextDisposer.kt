@@ -26,8 +26,10 @@ import org.gradle.kotlin.dsl.support.disposeKotlinCompilerContext
 /**
  * Disposes Kotlin compiler environment once all scripts are compiled.
  */
+internal
 class KotlinCompilerContextDisposer(
-    private val listenerManager: ListenerManager
+    private val listenerManager: ListenerManager,
+    private val precompiler: KotlinBuildScriptPrecompiler
 ) : InternalBuildAdapter(), Stoppable {
 
     init {
@@ -39,6 +41,7 @@ class KotlinCompilerContextDisposer(
     }
 
     override fun projectsEvaluated(gradle: Gradle) {
+        precompiler.awaitAll()
         disposeKotlinCompilerContext()
     }
 }
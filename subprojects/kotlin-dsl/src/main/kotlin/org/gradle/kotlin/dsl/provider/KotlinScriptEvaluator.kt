@@ -98,7 +98,8 @@ class StandardKotlinScriptEvaluator(
     private val executionEngine: ExecutionEngine,
     private val workspaceProvider: KotlinDslWorkspaceProvider,
     private val fileCollectionFactory: FileCollectionFactory,
-    private val inputFingerprinter: InputFingerprinter
+    private val inputFingerprinter: InputFingerprinter,
+    private val precompiler: KotlinBuildScriptPrecompiler
 ) : KotlinScriptEvaluator {
 
     override fun evaluate(
@@ -112,6 +113,8 @@ class StandardKotlinScriptEvaluator(
     ) {
         withOptions(options) {
 
+            precompiler.awaitPrecompilationOf(scriptSource.fileName)
+
             interpreter.eval(
                 target,
                 scriptSource,
@@ -122,6 +125,39 @@ class StandardKotlinScriptEvaluator(
                 topLevelScript,
                 options
             )
+
+            if (precompiler.isEnabled && topLevelScript && options.isEmpty() && target is ProjectInternal) {
+                precompileChildBuildScriptsOf(target)
+            }
+        }
+    }
+
+    /**
+     * Starts compiling the first stage of the Kotlin build scripts of the child projects,
+     * whose compilation class path is final once the script of their parent has been evaluated.
+     */
+    private
+    fun precompileChildBuildScriptsOf(project: ProjectInternal) {
+        for (child in project.childProjects.values) {
+            child as ProjectInternal
+            val scriptSource = child.buildScriptSource
+            if (!child.state.isUnconfigured
+                || !scriptSource.fileName.endsWith(".gradle.kts")
+                || !scriptSource.resource.exists
+                || !child.baseClassLoaderScope.isLocked
+            ) {
+                continue
+            }
+            interpreter.prepareFirstStageCompilationOf(
+                child,
+                scriptSource,
+                scriptSourceHasher.hash(scriptSource),
+                child.buildscript,
+                child.classLoaderScope,
+                child.baseClassLoaderScope
+            )?.let { compilation ->
+                precompiler.precompile(scriptSource.fileName, compilation)
+            }
         }
     }
 
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.kotlin.dsl.accessors
+
+import org.gradle.cache.internal.TestCrossBuildInMemoryCacheFactory
+import org.gradle.kotlin.dsl.support.bytecode.InternalName
+import org.gradle.kotlin.dsl.typeOf
+
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.sameInstance
+import org.hamcrest.MatcherAssert.assertThat
+
+import org.junit.Test
+
+
+class ProjectAccessorClassCacheTest {
+
+    private
+    val cache = ProjectAccessorClassCache(TestCrossBuildInMemoryCacheFactory())
+
+    private
+    var generated = 0
+
+    @Test
+    fun `reuses the class of an unchanged schema element`() {
+
+        val first = classFor(configuration("api"))
+        val second = classFor(configuration("api"))
+
+        assertThat(second, sameInstance(first))
+        assertThat(generated, equalTo(1))
+    }
+
+    @Test
+    fun `generates the class of a changed schema element`() {
+
+        classFor(configuration("api"))
+        classFor(configuration("implementation"))
+        classFor(configuration("api", "implementation"))
+
+        assertThat(generated, equalTo(3))
+    }
+
+    @Test
+    fun `generates the class again for another output`() {
+
+        classFor(configuration("api"))
+        classFor(configuration("api"), packageName = "other")
+        classFor(configuration("api"), includeBytecode = false)
+
+        assertThat(generated, equalTo(3))
+    }
+
+    @Test
+    fun `identifies types by their JVM signatures`() {
+
+        assertThat(
+            jvmSignatureOf(typeOf<Map.Entry<String, Int>>()),
+            equalTo("Ljava/util/Map\$Entry<Ljava/lang/String;Ljava/lang/Integer;>;")
+        )
+        assertThat(
+            jvmSignatureOf(typeOf<Array<String>>()),
+            equalTo("[Ljava/lang/String;")
+        )
+    }
+
+    private
+    fun configuration(name: String, vararg alternatives: String) =
+        Accessor.ForConfiguration(ConfigurationEntry(AccessorNameSpec(name), alternatives.toList()))
+
+    private
+    fun classFor(accessor: Accessor, packageName: String = "accessors", includeBytecode: Boolean = true) =
+        cache.classFor(accessor, OutputPackage(packageName), "classes", includeBytecode) {
+            generated++
+            AccessorClass(InternalName("$packageName/AccessorsKt"), null, emptyList(), emptyList())
+        }
+}
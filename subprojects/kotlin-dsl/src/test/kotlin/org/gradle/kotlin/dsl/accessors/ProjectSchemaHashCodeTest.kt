@@ -263,6 +263,46 @@ class ProjectSchemaHashCodeTest : TestWithClassPath() {
         )
     }
 
+    @Test
+    fun `hash code of available schema takes type accessibility into account`() {
+
+        val taskType = SchemaType.of<DefaultTask>()
+
+        assertThat(
+            hashCodeForAvailable(
+                availableSchemaWithTask(accessible(taskType))
+            ),
+            equalTo(
+                hashCodeForAvailable(
+                    availableSchemaWithTask(accessible(taskType))
+                )
+            )
+        )
+
+        assertThat(
+            hashCodeForAvailable(
+                availableSchemaWithTask(accessible(taskType))
+            ),
+            not(
+                equalTo(
+                    hashCodeForAvailable(
+                        availableSchemaWithTask(inaccessible(taskType, nonPublic(DefaultTask::class.qualifiedName!!)))
+                    )
+                )
+            )
+        )
+    }
+
+    private
+    fun availableSchemaWithTask(taskType: TypeAccessibility) =
+        ProjectSchema(
+            extensions = emptyList(),
+            conventions = emptyList(),
+            tasks = listOf(ProjectSchemaEntry(accessible(SchemaType.of<TaskContainer>()), "assemble", taskType)),
+            containerElements = emptyList(),
+            configurations = emptyList()
+        )
+
     private
     fun hashCodeFor(
         extensions: TypedProjectSchemaEntryList = emptyList(),
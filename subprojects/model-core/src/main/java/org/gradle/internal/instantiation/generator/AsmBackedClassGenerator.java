@@ -37,6 +37,7 @@
 import org.gradle.cache.internal.CrossBuildInMemoryCacheFactory;
 import org.gradle.internal.DisplayName;
 import org.gradle.internal.UncheckedException;
+import org.gradle.internal.classloader.ClassLoaderUtils;
 import org.gradle.internal.extensibility.ConventionAwareHelper;
 import org.gradle.internal.instantiation.ClassGenerationException;
 import org.gradle.internal.instantiation.InjectAnnotationHandler;
@@ -108,6 +109,7 @@ public class AsmBackedClassGenerator extends AbstractClassGenerator {
     private final boolean decorate;
     private final String suffix;
     private final int factoryId;
+    private final GeneratedClassBytesCache generatedClassBytesCache;
 
     private static final String GET_DISPLAY_NAME_FOR_NEXT_METHOD_NAME = "getDisplayNameForNext";
 
@@ -145,12 +147,14 @@ private AsmBackedClassGenerator(
         Collection<Class<? extends Annotation>> enabledInjectAnnotations,
         PropertyRoleAnnotationHandler roleHandler,
         CrossBuildInMemoryCache<Class<?>, GeneratedClassImpl> generatedClasses,
-        int factoryId
+        int factoryId,
+        GeneratedClassBytesCache generatedClassBytesCache
     ) {
         super(allKnownAnnotations, enabledInjectAnnotations, roleHandler, generatedClasses);
         this.decorate = decorate;
         this.suffix = suffix;
         this.factoryId = factoryId;
+        this.generatedClassBytesCache = generatedClassBytesCache;
     }
 
     /**
@@ -162,6 +166,20 @@ static ClassGenerator decorateAndInject(
         Collection<Class<? extends Annotation>> enabledInjectAnnotations,
         CrossBuildInMemoryCacheFactory cacheFactory,
         int factoryId
+    ) {
+        return decorateAndInject(allKnownAnnotations, roleHandler, enabledInjectAnnotations, cacheFactory, factoryId, GeneratedClassBytesCache.NONE);
+    }
+
+    /**
+     * Returns a generator that applies DSL mix-in, extensibility and service injection for generated classes, and that reuses the bytecode of generated classes from the given cache.
+     */
+    static ClassGenerator decorateAndInject(
+        Collection<? extends InjectAnnotationHandler> allKnownAnnotations,
+        PropertyRoleAnnotationHandler roleHandler,
+        Collection<Class<? extends Annotation>> enabledInjectAnnotations,
+        CrossBuildInMemoryCacheFactory cacheFactory,
+        int factoryId,
+        GeneratedClassBytesCache generatedClassBytesCache
     ) {
         String suffix;
         CrossBuildInMemoryCache<Class<?>, GeneratedClassImpl> generatedClasses;
@@ -181,9 +199,11 @@ static ClassGenerator decorateAndInject(
             // For now, just assign using a counter
             suffix = ClassGeneratorSuffixRegistry.assign("$Decorated");
             generatedClasses = cacheFactory.newClassMap();
+            // The names of the generated classes depend on the order in which the generators are created, so do not reuse them in another process
+            generatedClassBytesCache = GeneratedClassBytesCache.NONE;
         }
 
-        return new AsmBackedClassGenerator(true, suffix, allKnownAnnotations, enabledInjectAnnotations, roleHandler, generatedClasses, factoryId);
+        return new AsmBackedClassGenerator(true, suffix, allKnownAnnotations, enabledInjectAnnotations, roleHandler, generatedClasses, factoryId, generatedClassBytesCache);
     }
 
     /**
@@ -199,7 +219,7 @@ static ClassGenerator injectOnly(
         // TODO - the suffix should be a deterministic function of the known and enabled annotations
         // For now, just assign using a counter
         String suffix = ClassGeneratorSuffixRegistry.assign("$Inject");
-        return new AsmBackedClassGenerator(false, suffix, allKnownAnnotations, enabledInjectAnnotations, roleHandler, cacheFactory.newClassMap(), factoryId);
+        return new AsmBackedClassGenerator(false, suffix, allKnownAnnotations, enabledInjectAnnotations, roleHandler, cacheFactory.newClassMap(), factoryId, GeneratedClassBytesCache.NONE);
     }
 
     @Override
@@ -231,7 +251,7 @@ protected ClassInspectionVisitor start(Class<?> type) {
             formatter.append(" is not a class or interface.");
             throw new ClassGenerationException(formatter.toString());
         }
-        return new ClassInspectionVisitorImpl(type, decorate, suffix, factoryId);
+        return new ClassInspectionVisitorImpl(type, decorate, suffix, factoryId, generatedClassBytesCache);
     }
 
     private static class AttachedProperty {
@@ -254,6 +274,7 @@ private static class ClassInspectionVisitorImpl implements ClassInspectionVisito
         private final boolean decorate;
         private final String suffix;
         private final int factoryId;
+        private final GeneratedClassBytesCache generatedClassBytesCache;
         private boolean extensible;
         private boolean serviceInjection;
         private boolean conventionAware;
@@ -265,11 +286,12 @@ private static class ClassInspectionVisitorImpl implements ClassInspectionVisito
         private final List<AttachedProperty> propertiesToAttach = new ArrayList<>();
         private final List<PropertyMetadata> ineligibleProperties = new ArrayList<>();
 
-        public ClassInspectionVisitorImpl(Class<?> type, boolean decorate, String suffix, int factoryId) {
+        public ClassInspectionVisitorImpl(Class<?> type, boolean decorate, String suffix, int factoryId, GeneratedClassBytesCache generatedClassBytesCache) {
             this.type = type;
             this.decorate = decorate;
             this.suffix = suffix;
             this.factoryId = factoryId;
+            this.generatedClassBytesCache = generatedClassBytesCache;
         }
 
         @Override
@@ -349,10 +371,20 @@ public ClassGenerationVisitor builder() {
                 formatter.append(" is final.");
                 throw new ClassGenerationException(formatter.toString());
             }
+            String generatedTypeName = type.getName() + suffix;
+            GeneratedClassBytesCache.Entry cacheEntry = generatedClassBytesCache.entryFor(type, generatedTypeName);
+            if (cacheEntry != null) {
+                byte[] bytecode = cacheEntry.load();
+                if (bytecode != null) {
+                    return new CachedClassBuilder(type, generatedTypeName, bytecode, managed, factoryId);
+                }
+            }
+
             boolean requiresServicesMethod = (extensible || serviceInjection) && !providesOwnServicesImplementation;
             boolean requiresToString = !providesOwnToStringImplementation;
             ClassBuilderImpl builder = new ClassBuilderImpl(
                 new AsmClassGenerator(type, suffix),
+                cacheEntry,
                 decorate,
                 factoryId,
                 extensible,
@@ -472,6 +504,8 @@ private static class ClassBuilderImpl extends ClassVisitorScope implements Class
         private final Type superclassType;
         private final Map<java.lang.reflect.Type, ReturnTypeEntry> genericReturnTypeConstantsIndex = Maps.newHashMap();
         private final AsmClassGenerator classGenerator;
+        @Nullable
+        private final GeneratedClassBytesCache.Entry cacheEntry;
         private final int factoryId;
         private boolean hasMappingField;
         private final boolean conventionAware;
@@ -486,6 +520,7 @@ private static class ClassBuilderImpl extends ClassVisitorScope implements Class
 
         private ClassBuilderImpl(
             AsmClassGenerator classGenerator,
+            @Nullable GeneratedClassBytesCache.Entry cacheEntry,
             boolean decorated,
             int factoryId,
             boolean extensible,
@@ -500,6 +535,7 @@ private ClassBuilderImpl(
         ) {
             super(classGenerator.getVisitor());
             this.classGenerator = classGenerator;
+            this.cacheEntry = cacheEntry;
             this.type = classGenerator.getTargetType();
             this.generatedType = classGenerator.getGeneratedType();
             this.factoryId = factoryId;
@@ -1655,7 +1691,7 @@ private Object getAnnotationParameterValue(Annotation annotation, Method method)
             }
         }
 
-        private void attachFactoryIdToImplType(Class<?> implClass, int id) {
+        private static void attachFactoryIdToImplType(Class<?> implClass, int id) {
             try {
                 Field factoryField = implClass.getDeclaredField(FACTORY_ID_FIELD);
                 factoryField.setAccessible(true);
@@ -1679,7 +1715,14 @@ public Class<?> generate() {
             writeGenericReturnTypeFields();
             visitEnd();
 
-            Class<?> generatedClass = classGenerator.define();
+            Class<?> generatedClass;
+            if (cacheEntry == null) {
+                generatedClass = classGenerator.define();
+            } else {
+                byte[] bytecode = classGenerator.getVisitor().toByteArray();
+                generatedClass = ClassLoaderUtils.defineDecorator(type, type.getClassLoader(), classGenerator.getGeneratedTypeName(), bytecode);
+                cacheEntry.store(bytecode);
+            }
 
             if (managed) {
                 attachFactoryIdToImplType(generatedClass, factoryId);
@@ -1896,6 +1939,35 @@ public Class<?> generate() {
         }
     }
 
+    /**
+     * Defines a class from bytecode generated by a previous process, so all visited members are ignored.
+     */
+    private static class CachedClassBuilder extends NoOpBuilder {
+        private final Class<?> type;
+        private final String generatedTypeName;
+        private final byte[] bytecode;
+        private final boolean managed;
+        private final int factoryId;
+
+        public CachedClassBuilder(Class<?> type, String generatedTypeName, byte[] bytecode, boolean managed, int factoryId) {
+            super(type);
+            this.type = type;
+            this.generatedTypeName = generatedTypeName;
+            this.bytecode = bytecode;
+            this.managed = managed;
+            this.factoryId = factoryId;
+        }
+
+        @Override
+        public Class<?> generate() {
+            Class<?> generatedClass = ClassLoaderUtils.defineDecorator(type, type.getClassLoader(), generatedTypeName, bytecode);
+            if (managed) {
+                ClassBuilderImpl.attachFactoryIdToImplType(generatedClass, factoryId);
+            }
+            return generatedClass;
+        }
+    }
+
     private static class InvokeConstructorStrategy implements InstantiationStrategy {
         private final Constructor<?> constructor;
         private final PropertyRoleAnnotationHandler roleHandler;
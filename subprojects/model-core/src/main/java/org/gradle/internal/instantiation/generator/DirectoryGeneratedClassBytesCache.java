@@ -0,0 +1,245 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.instantiation.generator;
+
+import org.gradle.internal.Factory;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.objectweb.asm.ClassWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.CodeSource;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A {@link GeneratedClassBytesCache} which stores the bytecode of each generated class in a file.
+ *
+ * The file is named after a hash of the implementation of the class generator, of the type and its supertypes, and of the types used by the methods of these types.
+ * The implementation of the class generator is hashed from the jars or directories that the generator and ASM are loaded from.
+ * A type which is not loaded from a class file, such as a type generated at runtime, cannot be hashed and its generated class is not cached.
+ *
+ * The modification time of a file is updated when the file is loaded, so unused files can be cleaned up.
+ */
+public class DirectoryGeneratedClassBytesCache implements GeneratedClassBytesCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DirectoryGeneratedClassBytesCache.class);
+    private static final ClassValue<Optional<HashCode>> CLASS_FILE_HASHES = new ClassValue<Optional<HashCode>>() {
+        @Override
+        protected Optional<HashCode> computeValue(Class<?> type) {
+            return Optional.ofNullable(hashClassFile(type));
+        }
+    };
+
+    private final Factory<File> cacheDir;
+
+    /**
+     * @param cacheDir provides the directory to store the generated classes in, or {@code null} when there is no such directory.
+     */
+    public DirectoryGeneratedClassBytesCache(Factory<File> cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    @Nullable
+    @Override
+    public Entry entryFor(Class<?> type, String generatedTypeName) {
+        File dir = cacheDir.create();
+        if (dir == null) {
+            return null;
+        }
+        HashCode key = keyFor(type, generatedTypeName);
+        if (key == null) {
+            return null;
+        }
+        return new FileEntry(new File(dir, key + ".class"));
+    }
+
+    @Nullable
+    private static HashCode keyFor(Class<?> type, String generatedTypeName) {
+        Set<Class<?>> types = new LinkedHashSet<>();
+        addWithSupertypes(type, types);
+        // The generated class also depends on the types of properties, for example whether they are Property types
+        for (Class<?> current : types.toArray(new Class<?>[0])) {
+            for (Method method : current.getDeclaredMethods()) {
+                addWithSupertypes(method.getReturnType(), types);
+                for (Class<?> parameterType : method.getParameterTypes()) {
+                    addWithSupertypes(parameterType, types);
+                }
+            }
+        }
+        Optional<HashCode> generatorHash = GeneratorImplementation.HASH;
+        if (!generatorHash.isPresent()) {
+            return null;
+        }
+        Hasher hasher = Hashing.newHasher();
+        hasher.putHash(generatorHash.get());
+        hasher.putString(generatedTypeName);
+        for (Class<?> current : types) {
+            Optional<HashCode> hash = CLASS_FILE_HASHES.get(current);
+            if (!hash.isPresent()) {
+                return null;
+            }
+            hasher.putHash(hash.get());
+        }
+        return hasher.hash();
+    }
+
+    private static void addWithSupertypes(Class<?> type, Set<Class<?>> types) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        if (type.isPrimitive() || !types.add(type)) {
+            return;
+        }
+        if (type.getSuperclass() != null) {
+            addWithSupertypes(type.getSuperclass(), types);
+        }
+        for (Class<?> interfaceType : type.getInterfaces()) {
+            addWithSupertypes(interfaceType, types);
+        }
+    }
+
+    @Nullable
+    private static HashCode hashClassFile(Class<?> type) {
+        ClassLoader classLoader = type.getClassLoader();
+        if (classLoader == null) {
+            // A JDK type, which does not change while the daemon runs
+            return Hashing.hashString(type.getName() + ":" + System.getProperty("java.version"));
+        }
+        try (InputStream classFile = classLoader.getResourceAsStream(type.getName().replace('.', '/') + ".class")) {
+            if (classFile == null) {
+                return null;
+            }
+            return Hashing.hashStream(classFile);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Hashes the code sources of the class generator and of ASM once, the first time a generated class is looked up.
+     */
+    private static class GeneratorImplementation {
+        static final Optional<HashCode> HASH = hashGeneratorImplementation();
+
+        private static Optional<HashCode> hashGeneratorImplementation() {
+            Hasher hasher = Hashing.newHasher();
+            for (Class<?> type : Arrays.asList(AsmBackedClassGenerator.class, ClassWriter.class)) {
+                HashCode hash = hashCodeSource(type);
+                if (hash == null) {
+                    return Optional.empty();
+                }
+                hasher.putHash(hash);
+            }
+            return Optional.of(hasher.hash());
+        }
+
+        @Nullable
+        private static HashCode hashCodeSource(Class<?> type) {
+            CodeSource codeSource = type.getProtectionDomain().getCodeSource();
+            if (codeSource == null || codeSource.getLocation() == null) {
+                return null;
+            }
+            try {
+                Path location = Paths.get(codeSource.getLocation().toURI());
+                if (Files.isRegularFile(location)) {
+                    return Hashing.hashFile(location.toFile());
+                }
+                if (!Files.isDirectory(location)) {
+                    return null;
+                }
+                // Classes loaded from a directory, when running from the IDE or in tests
+                Hasher hasher = Hashing.newHasher();
+                try (Stream<Path> files = Files.walk(location)) {
+                    for (Path file : files.filter(Files::isRegularFile).sorted().collect(Collectors.toList())) {
+                        hasher.putString(location.relativize(file).toString());
+                        hasher.putHash(Hashing.hashBytes(Files.readAllBytes(file)));
+                    }
+                }
+                return hasher.hash();
+            } catch (URISyntaxException | IOException | UncheckedIOException e) {
+                LOGGER.debug("Could not hash the code source of {}", type, e);
+                return null;
+            }
+        }
+    }
+
+    private static class FileEntry implements Entry {
+        private final File file;
+
+        FileEntry(File file) {
+            this.file = file;
+        }
+
+        @Nullable
+        @Override
+        public byte[] load() {
+            if (!file.isFile()) {
+                return null;
+            }
+            byte[] bytecode;
+            try {
+                bytecode = Files.readAllBytes(file.toPath());
+            } catch (IOException e) {
+                LOGGER.debug("Could not load generated class {}", file, e);
+                return null;
+            }
+            try {
+                // Record that the file is still used, so it is not cleaned up
+                Files.setLastModifiedTime(file.toPath(), FileTime.fromMillis(System.currentTimeMillis()));
+            } catch (IOException e) {
+                LOGGER.debug("Could not update the modification time of generated class {}", file, e);
+            }
+            return bytecode;
+        }
+
+        @Override
+        public void store(byte[] bytecode) {
+            File parentDir = file.getParentFile();
+            try {
+                Files.createDirectories(parentDir.toPath());
+                File tempFile = File.createTempFile(file.getName(), ".tmp", parentDir);
+                try {
+                    Files.write(tempFile.toPath(), bytecode);
+                    // Replace the file atomically, so another daemon never reads a partially written class
+                    Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(tempFile.toPath());
+                }
+            } catch (IOException e) {
+                LOGGER.debug("Could not store generated class {}", file, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.instantiation.generator;
+
+import javax.annotation.Nullable;
+
+/**
+ * Keeps the bytecode of generated classes between daemons.
+ *
+ * A daemon can define a class from the bytecode stored by a previous daemon, instead of generating the class again.
+ */
+public interface GeneratedClassBytesCache {
+    GeneratedClassBytesCache NONE = (type, generatedTypeName) -> null;
+
+    /**
+     * Returns the entry for the class with the given name that is generated for the given type, or {@code null} when the generated class cannot be cached.
+     */
+    @Nullable
+    Entry entryFor(Class<?> type, String generatedTypeName);
+
+    interface Entry {
+        /**
+         * Returns the stored bytecode, or {@code null} when nothing is stored.
+         */
+        @Nullable
+        byte[] load();
+
+        void store(byte[] bytecode);
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.instantiation.generator
+
+import org.gradle.cache.internal.TestCrossBuildInMemoryCacheFactory
+import org.gradle.internal.instantiation.PropertyRoleAnnotationHandler
+import org.gradle.internal.service.ServiceLookup
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class DirectoryGeneratedClassBytesCacheTest extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+
+    def cacheDir = tmpDir.file("generated-classes")
+    def cache = new DirectoryGeneratedClassBytesCache({ cacheDir })
+
+    def "loads nothing when no bytecode has been stored"() {
+        expect:
+        cache.entryFor(TestJavaObject, "TestJavaObject_Decorated").load() == null
+    }
+
+    def "loads stored bytecode in another cache using the same directory"() {
+        def bytecode = [1, 2, 3] as byte[]
+
+        when:
+        cache.entryFor(TestJavaObject, "TestJavaObject_Decorated").store(bytecode)
+
+        then:
+        new DirectoryGeneratedClassBytesCache({ cacheDir }).entryFor(TestJavaObject, "TestJavaObject_Decorated").load() == bytecode
+    }
+
+    def "uses separate entries for different types and generated class names"() {
+        when:
+        cache.entryFor(TestJavaObject, "TestJavaObject_Decorated").store([1] as byte[])
+
+        then:
+        cache.entryFor(PackageScopedClass, "PackageScopedClass_Decorated").load() == null
+        cache.entryFor(TestJavaObject, "TestJavaObject\$Inject").load() == null
+    }
+
+    def "does not cache classes when there is no cache directory"() {
+        def cache = new DirectoryGeneratedClassBytesCache({ null })
+
+        expect:
+        cache.entryFor(TestJavaObject, "TestJavaObject_Decorated") == null
+    }
+
+    def "does not cache classes for types which are not loaded from a class file"() {
+        def type = new GroovyClassLoader(getClass().classLoader).parseClass("class DefinedAtRuntime {}")
+
+        expect:
+        cache.entryFor(type, "DefinedAtRuntime_Decorated") == null
+    }
+
+    def "defines generated class from bytecode stored by another generator"() {
+        def firstType = loadInNewClassLoader(TestJavaObject)
+        def secondType = loadInNewClassLoader(TestJavaObject)
+        def loaded = []
+        def recordingCache = { Class<?> type, String generatedTypeName ->
+            def entry = new DirectoryGeneratedClassBytesCache({ cacheDir }).entryFor(type, generatedTypeName)
+            [load: { def bytecode = entry.load(); loaded << (bytecode != null); bytecode }, store: { byte[] bytecode -> entry.store(bytecode) }] as GeneratedClassBytesCache.Entry
+        } as GeneratedClassBytesCache
+
+        when:
+        def first = generator(recordingCache).generate(firstType).generatedClass
+
+        then:
+        loaded == [false]
+        cacheDir.listFiles().length == 1
+
+        when:
+        def secondGenerator = generator(recordingCache)
+        def instance = new DependencyInjectingInstantiator(new ParamsMatchingConstructorSelector(secondGenerator), Stub(ServiceLookup)).newInstance(secondType)
+
+        then:
+        loaded == [false, true]
+        instance.getClass() != first
+        instance.getClass().name == first.name
+        secondType.isInstance(instance)
+        instance.someValue == "value"
+    }
+
+    private ClassGenerator generator(GeneratedClassBytesCache cache) {
+        AsmBackedClassGenerator.decorateAndInject([], Stub(PropertyRoleAnnotationHandler), [], new TestCrossBuildInMemoryCacheFactory(), 0, cache)
+    }
+
+    /**
+     * Loads the given type again, so the class generator has not generated a class for it in this process yet.
+     */
+    private static Class<?> loadInNewClassLoader(Class<?> type) {
+        def bytecode = type.getResourceAsStream("${type.simpleName}.class").bytes
+        return new SingleClassLoader(type.classLoader, type.name, bytecode).loadClass(type.name)
+    }
+
+    private static class SingleClassLoader extends ClassLoader {
+        private final String className
+        private final byte[] bytecode
+
+        SingleClassLoader(ClassLoader parent, String className, byte[] bytecode) {
+            super(parent)
+            this.className = className
+            this.bytecode = bytecode
+        }
+
+        @Override
+        protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (name == className) {
+                return findLoadedClass(name) ?: defineClass(name, bytecode, 0, bytecode.length)
+            }
+            return super.loadClass(name, resolve)
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree;
+
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Compares reading entries from a {@link BTreePersistentIndexedCache} through seek and read calls with reading them through a memory mapping of the cache file.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class BTreePersistentIndexedCacheBenchmark {
+    @Param({"10000", "100000"})
+    int entries;
+
+    @Param({"128", "4096"})
+    int valueSize;
+
+    @Param({"false", "true"})
+    boolean memoryMappedReads;
+
+    File cacheFile;
+    BTreePersistentIndexedCache<String, String> cache;
+    Random random;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        cacheFile = File.createTempFile("jmh", ".bin");
+        cacheFile.delete();
+        cache = new BTreePersistentIndexedCache<String, String>(cacheFile, BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.STRING_SERIALIZER, (short) 512, 512, memoryMappedReads);
+        StringBuilder value = new StringBuilder(valueSize);
+        for (int i = 0; i < valueSize; i++) {
+            value.append((char) ('a' + i % 26));
+        }
+        for (int i = 0; i < entries; i++) {
+            cache.put(key(i), value.toString());
+        }
+        // Reopen, so that reads are not served by blocks cached while populating
+        cache.reset();
+        random = new Random(1234L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        cache.close();
+        cacheFile.delete();
+    }
+
+    @Benchmark
+    public void randomLookup(Blackhole blackhole) {
+        blackhole.consume(cache.get(key(random.nextInt(entries))));
+    }
+
+    @Benchmark
+    public void missingLookup(Blackhole blackhole) {
+        blackhole.consume(cache.get("missing-" + random.nextInt(entries)));
+    }
+
+    private static String key(int index) {
+        return "/some/path/to/a/file-" + index + ".class";
+    }
+}
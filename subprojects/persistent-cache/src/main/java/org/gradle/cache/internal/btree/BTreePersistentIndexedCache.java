@@ -19,6 +19,7 @@
 import org.gradle.api.UncheckedIOException;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.io.StreamByteBuffer;
+import org.gradle.internal.os.OperatingSystem;
 import org.gradle.internal.serialize.Serializer;
 import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
 import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
@@ -48,6 +49,11 @@
 // todo - use more efficient lookup for free block with nearest size
 @SuppressWarnings("unchecked")
 public class BTreePersistentIndexedCache<K, V> {
+    /**
+     * When set to true, cache files are read through a memory mapping. This is not supported on Windows, where a mapped file cannot be truncated or deleted.
+     */
+    public static final String MEMORY_MAPPED_READS_PROPERTY = "org.gradle.internal.cache.btree.mmap";
+
     private static final Logger LOGGER = LoggerFactory.getLogger(BTreePersistentIndexedCache.class);
     private final File cacheFile;
     private final KeyHasher<K> keyHasher;
@@ -63,12 +69,17 @@ public BTreePersistentIndexedCache(File cacheFile, Serializer<K> keySerializer,
 
     public BTreePersistentIndexedCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer,
                                        short maxChildIndexEntries, int maxFreeListEntries) {
+        this(cacheFile, keySerializer, valueSerializer, maxChildIndexEntries, maxFreeListEntries, isMemoryMappedReadsEnabled());
+    }
+
+    public BTreePersistentIndexedCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer,
+                                       short maxChildIndexEntries, int maxFreeListEntries, boolean memoryMappedReads) {
         this.cacheFile = cacheFile;
         this.keyHasher = new KeyHasher<K>(keySerializer);
         this.serializer = valueSerializer;
         this.maxChildIndexEntries = maxChildIndexEntries;
         this.minIndexChildNodes = maxChildIndexEntries / 2;
-        BlockStore cachingStore = new CachingBlockStore(new FileBackedBlockStore(cacheFile), ImmutableSet.of(IndexBlock.class, FreeListBlockStore.FreeListBlock.class));
+        BlockStore cachingStore = new CachingBlockStore(new FileBackedBlockStore(cacheFile, memoryMappedReads), ImmutableSet.of(IndexBlock.class, FreeListBlockStore.FreeListBlock.class));
         this.store = new StateCheckBlockStore(new FreeListBlockStore(cachingStore, maxFreeListEntries));
         try {
             open();
@@ -77,6 +88,10 @@ public BTreePersistentIndexedCache(File cacheFile, Serializer<K> keySerializer,
         }
     }
 
+    private static boolean isMemoryMappedReadsEnabled() {
+        return !OperatingSystem.current().isWindows() && Boolean.getBoolean(MEMORY_MAPPED_READS_PROPERTY);
+    }
+
     @Override
     public String toString() {
         return "cache " + cacheFile.getName() + " (" + cacheFile + ")";
@@ -16,60 +16,30 @@
 
 package org.gradle.cache.internal.btree;
 
-import com.google.common.io.CountingInputStream;
-import org.gradle.internal.io.RandomAccessFileInputStream;
-
-import java.io.BufferedInputStream;
 import java.io.DataInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.RandomAccessFile;
 
 /**
  * Allows a stream of bytes to be read from a particular location of some backing byte stream.
  */
-class ByteInput {
-    private final RandomAccessFile file;
-    private final ResettableBufferedInputStream bufferedInputStream;
-    private CountingInputStream countingInputStream;
-
-    public ByteInput(RandomAccessFile file) {
-        this.file = file;
-        bufferedInputStream = new ResettableBufferedInputStream(new RandomAccessFileInputStream(file));
-    }
-
+interface ByteInput {
     /**
      * Starts reading from the given offset.
      */
-    public DataInputStream start(long offset) throws IOException {
-        file.seek(offset);
-        bufferedInputStream.clear();
-        countingInputStream = new CountingInputStream(bufferedInputStream);
-        return new DataInputStream(countingInputStream);
-    }
+    DataInputStream start(long offset) throws IOException;
 
     /**
      * Returns the number of bytes read since {@link #start(long)} was called.
      */
-    public long getBytesRead() {
-        return countingInputStream.getCount();
-    }
+    long getBytesRead();
 
     /**
      * Finishes reading, resetting any buffered state.
      */
-    public void done() {
-        countingInputStream = null;
-    }
+    void done();
 
-    private static class ResettableBufferedInputStream extends BufferedInputStream {
-        ResettableBufferedInputStream(InputStream input) {
-            super(input);
-        }
-
-        void clear() {
-            count = 0;
-            pos = 0;
-        }
-    }
+    /**
+     * Discards any state derived from the current content of the backing byte stream. Called before the backing byte stream is truncated or closed.
+     */
+    void reset();
 }
@@ -26,6 +26,7 @@
 
 public class FileBackedBlockStore implements BlockStore {
     private final File cacheFile;
+    private final boolean memoryMappedReads;
     private RandomAccessFile file;
     private ByteOutput output;
     private ByteInput input;
@@ -34,7 +35,15 @@ public class FileBackedBlockStore implements BlockStore {
     private long currentFileSize;
 
     public FileBackedBlockStore(File cacheFile) {
+        this(cacheFile, false);
+    }
+
+    /**
+     * @param memoryMappedReads when true, blocks are read from a memory mapping of the cache file rather than using a seek and read per block.
+     */
+    public FileBackedBlockStore(File cacheFile, boolean memoryMappedReads) {
         this.cacheFile = cacheFile;
+        this.memoryMappedReads = memoryMappedReads;
     }
 
     @Override
@@ -49,7 +58,7 @@ public void open(Runnable runnable, Factory factory) {
             cacheFile.getParentFile().mkdirs();
             file = openRandomAccessFile();
             output = new ByteOutput(file);
-            input = new ByteInput(file);
+            input = memoryMappedReads ? new MappedByteInput(file.getChannel()) : new StreamByteInput(file);
             currentFileSize = file.length();
             nextBlock = currentFileSize;
             if (currentFileSize == 0) {
@@ -74,6 +83,7 @@ private RandomAccessFile randomAccessFile(String mode) throws FileNotFoundExcept
 
     @Override
     public void close() {
+        input.reset();
         try {
             file.close();
         } catch (IOException e) {
@@ -83,6 +93,7 @@ public void close() {
 
     @Override
     public void clear() {
+        input.reset();
         try {
             file.setLength(0);
             currentFileSize = 0;
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree;
+
+import javax.annotation.Nullable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link ByteInput} that reads from memory mapped regions of a file, so that reading a block does not require a seek and a read system call.
+ *
+ * <p>The file is mapped lazily in fixed size regions. The last region of the file is mapped again when a read goes past its end and the file has grown since it was mapped.
+ * Writes to the file are visible through the mapping, as the mapping shares the page cache with the file.</p>
+ *
+ * <p>A region that is replaced or discarded is no longer used, and its mapping is released when the garbage collector collects it.
+ * It is not unmapped explicitly, as accessing an unmapped region crashes the JVM rather than failing with an exception.</p>
+ */
+class MappedByteInput implements ByteInput {
+    private static final int DEFAULT_REGION_SIZE = 64 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final int regionSize;
+    private final List<MappedByteBuffer> regions = new ArrayList<MappedByteBuffer>();
+    private final RegionInputStream regionInputStream = new RegionInputStream();
+    private DataInputStream dataInputStream;
+    private long startOffset;
+
+    public MappedByteInput(FileChannel channel) {
+        this(channel, DEFAULT_REGION_SIZE);
+    }
+
+    MappedByteInput(FileChannel channel, int regionSize) {
+        this.channel = channel;
+        this.regionSize = regionSize;
+    }
+
+    @Override
+    public DataInputStream start(long offset) {
+        startOffset = offset;
+        regionInputStream.position = offset;
+        if (dataInputStream == null) {
+            dataInputStream = new DataInputStream(regionInputStream);
+        }
+        return dataInputStream;
+    }
+
+    @Override
+    public long getBytesRead() {
+        return regionInputStream.position - startOffset;
+    }
+
+    @Override
+    public void done() {
+    }
+
+    @Override
+    public void reset() {
+        regions.clear();
+    }
+
+    /**
+     * Returns the region containing the given position, positioned at that location, or null when the position is past the end of the file.
+     */
+    @Nullable
+    private MappedByteBuffer regionAt(long position) throws IOException {
+        int index = (int) (position / regionSize);
+        int offsetInRegion = (int) (position % regionSize);
+        while (regions.size() <= index) {
+            regions.add(null);
+        }
+        MappedByteBuffer region = regions.get(index);
+        if (region == null || region.limit() <= offsetInRegion) {
+            long regionStart = (long) index * regionSize;
+            long size = Math.min(regionSize, channel.size() - regionStart);
+            if (size <= offsetInRegion) {
+                return null;
+            }
+            region = channel.map(FileChannel.MapMode.READ_ONLY, regionStart, size);
+            regions.set(index, region);
+        }
+        region.position(offsetInRegion);
+        return region;
+    }
+
+    private class RegionInputStream extends InputStream {
+        private long position;
+
+        @Override
+        public int read() throws IOException {
+            MappedByteBuffer region = regionAt(position);
+            if (region == null) {
+                return -1;
+            }
+            position++;
+            return region.get() & 0xff;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            int total = 0;
+            while (total < length) {
+                MappedByteBuffer region = regionAt(position);
+                if (region == null) {
+                    break;
+                }
+                int count = Math.min(length - total, region.remaining());
+                region.get(bytes, offset + total, count);
+                position += count;
+                total += count;
+            }
+            return total == 0 ? -1 : total;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = Math.max(0, Math.min(n, channel.size() - position));
+            position += skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree
+
+import org.gradle.internal.os.OperatingSystem
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.IgnoreIf
+import spock.lang.Specification
+
+@IgnoreIf({ OperatingSystem.current().windows })
+class MappedByteInputTest extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+
+    RandomAccessFile file
+    MappedByteInput input
+
+    def setup() {
+        file = new RandomAccessFile(tmpDir.file("cache.bin"), "rw")
+        input = new MappedByteInput(file.channel, 16)
+    }
+
+    def cleanup() {
+        input.reset()
+        file.close()
+    }
+
+    def "reads values that span region boundaries"() {
+        given:
+        file.seek(0)
+        file.write(new byte[14])
+        file.writeLong(0x0102030405060708L)
+        file.writeUTF("some value that is longer than a region")
+
+        when:
+        def stream = input.start(14)
+        def longValue = stream.readLong()
+        def stringValue = stream.readUTF()
+
+        then:
+        longValue == 0x0102030405060708L
+        stringValue == "some value that is longer than a region"
+        input.getBytesRead() == file.length() - 14
+    }
+
+    def "sees content written after the file was mapped"() {
+        given:
+        file.seek(0)
+        file.writeInt(12)
+        input.start(0).readInt()
+
+        when:
+        file.seek(4)
+        file.writeInt(34)
+        file.writeLong(56)
+        def stream = input.start(4)
+
+        then:
+        stream.readInt() == 34
+        stream.readLong() == 56
+        input.getBytesRead() == 12
+    }
+
+    def "reports end of file when reading past the end of the file"() {
+        given:
+        file.seek(0)
+        file.writeShort(1)
+
+        when:
+        def stream = input.start(0)
+
+        then:
+        stream.readShort() == 1
+        stream.read() == -1
+    }
+
+    def "skips no further than the end of the file"() {
+        given:
+        file.seek(0)
+        file.write(new byte[20])
+
+        when:
+        def stream = input.start(4)
+
+        then:
+        stream.skip(10) == 10
+        stream.skip(10) == 6
+        stream.skip(10) == 0
+        stream.read() == -1
+        input.getBytesRead() == 16
+    }
+
+    def "remaps the file after it has been truncated and reset"() {
+        given:
+        file.seek(0)
+        file.writeInt(12)
+        input.start(0).readInt()
+
+        when:
+        input.reset()
+        file.setLength(0)
+        file.seek(0)
+        file.writeLong(34)
+
+        then:
+        input.start(0).readLong() == 34
+    }
+
+    def "reads content appended after each read"() {
+        expect:
+        (0..<100).each { index ->
+            file.seek(file.length())
+            file.writeInt(index)
+            assert input.start(index * 4).readInt() == index
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package org.gradle.internal.snapshot.impl;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Interner;
 import com.google.common.collect.Iterables;
@@ -48,12 +49,16 @@
 import java.nio.file.Paths;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Deque;
 import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
@@ -87,12 +92,24 @@ public Iterable<String> getRemappedSegments(Iterable<String> segments) {
     private final Interner<String> stringInterner;
     private final DefaultExcludes defaultExcludes;
     private final DirectorySnapshotterStatistics.Collector collector;
+    private final Executor hashingExecutor;
 
     public DirectorySnapshotter(FileHasher hasher, Interner<String> stringInterner, Collection<String> defaultExcludes, DirectorySnapshotterStatistics.Collector collector) {
+        this(hasher, stringInterner, defaultExcludes, collector, null);
+    }
+
+    /**
+     * Creates a snapshotter which hashes regular files using the given executor, when not {@code null}.
+     *
+     * The file system is still walked on the calling thread, but the contents of the files in a directory are hashed concurrently.
+     * The hashes are collected before leaving the directory, so the resulting snapshot is the same as when hashing on the calling thread.
+     */
+    public DirectorySnapshotter(FileHasher hasher, Interner<String> stringInterner, Collection<String> defaultExcludes, DirectorySnapshotterStatistics.Collector collector, @Nullable Executor hashingExecutor) {
         this.hasher = hasher;
         this.stringInterner = stringInterner;
         this.defaultExcludes = new DefaultExcludes(defaultExcludes);
         this.collector = collector;
+        this.hashingExecutor = hashingExecutor;
     }
 
     /**
@@ -115,7 +132,7 @@ public FileSystemLocationSnapshot snapshot(String absolutePath, @Nullable Snapsh
         try {
             AtomicBoolean hasBeenFiltered = new AtomicBoolean();
             Path rootPath = Paths.get(absolutePath);
-            PathVisitor visitor = new PathVisitor(predicate, hasBeenFiltered, hasher, stringInterner, defaultExcludes, collector, EMPTY_SYMBOLIC_LINK_MAPPING, unfilteredSnapshotConsumer);
+            PathVisitor visitor = new PathVisitor(predicate, hasBeenFiltered, hasher, hashingExecutor, stringInterner, defaultExcludes, collector, EMPTY_SYMBOLIC_LINK_MAPPING, unfilteredSnapshotConsumer);
             Files.walkFileTree(rootPath, DONT_FOLLOW_SYMLINKS, Integer.MAX_VALUE, visitor);
             FileSystemLocationSnapshot result = visitor.getResult();
             if (!hasBeenFiltered.get()) {
@@ -250,10 +267,12 @@ private static class PathVisitor extends DirectorySnapshotterStatistics.Collecti
         private final SnapshottingFilter.DirectoryWalkerPredicate predicate;
         private final AtomicBoolean hasBeenFiltered;
         private final FileHasher hasher;
+        private final Executor hashingExecutor;
         private final Interner<String> stringInterner;
         private final DefaultExcludes defaultExcludes;
         private final SymbolicLinkMapping symbolicLinkMapping;
         private final Deque<String> parentDirectories = new ArrayDeque<>();
+        private final Deque<List<CompletableFuture<FileSystemLeafSnapshot>>> pendingLeafSnapshots = new ArrayDeque<>();
         private final Set<FileSystemLocationSnapshot> filteredDirectorySnapshots = new HashSet<>();
         private final Consumer<FileSystemLocationSnapshot> unfilteredSnapshotConsumer;
 
@@ -261,6 +280,7 @@ public PathVisitor(
             @Nullable SnapshottingFilter.DirectoryWalkerPredicate predicate,
             AtomicBoolean hasBeenFiltered,
             FileHasher hasher,
+            @Nullable Executor hashingExecutor,
             Interner<String> stringInterner,
             DefaultExcludes defaultExcludes,
             DirectorySnapshotterStatistics.Collector statisticsCollector,
@@ -272,6 +292,7 @@ public PathVisitor(
             this.predicate = predicate;
             this.hasBeenFiltered = hasBeenFiltered;
             this.hasher = hasher;
+            this.hashingExecutor = hashingExecutor;
             this.stringInterner = stringInterner;
             this.defaultExcludes = defaultExcludes;
             this.symbolicLinkMapping = symbolicLinkMapping;
@@ -295,6 +316,9 @@ protected FileVisitResult doPreVisitDirectory(Path dir, BasicFileAttributes attr
             if (shouldVisitDirectory(dir, fileName)) {
                 builder.enterDirectory(AccessType.DIRECT, intern(symbolicLinkMapping.remapAbsolutePath(dir)), fileName, INCLUDE_EMPTY_DIRS);
                 parentDirectories.addFirst(dir.toString());
+                if (hashingExecutor != null) {
+                    pendingLeafSnapshots.addFirst(new ArrayList<>());
+                }
                 return FileVisitResult.CONTINUE;
             } else {
                 pathTracker.leave();
@@ -311,6 +335,9 @@ protected FileVisitResult doPostVisitDirectory(Path dir, IOException exc) {
             if (isNotFileSystemLoopException(exc)) {
                 throw new UncheckedIOException(String.format("Could not read directory path '%s'.", dir), exc);
             }
+            if (hashingExecutor != null) {
+                visitPendingLeafSnapshots();
+            }
             boolean currentLevelComplete = builder.isCurrentLevelUnfiltered();
             FileSystemLocationSnapshot currentLevel = builder.leaveDirectory();
             if (!currentLevelComplete) {
@@ -368,6 +395,7 @@ private DirectorySnapshot followSymlink(Path file, String internedFileName, Atom
                         predicate,
                         symlinkHasBeenFiltered,
                         hasher,
+                        hashingExecutor,
                         stringInterner,
                         defaultExcludes,
                         collector,
@@ -390,7 +418,23 @@ private boolean introducesCycle(String targetDirString) {
         private void visitResolvedFile(Path file, BasicFileAttributes targetAttributes, AccessType accessType) {
             String internedName = intern(file.getFileName().toString());
             if (shouldVisitFile(file, internedName)) {
-                builder.visitLeafElement(snapshotFile(file, internedName, targetAttributes, accessType));
+                if (hashingExecutor != null && !pendingLeafSnapshots.isEmpty() && targetAttributes.isRegularFile()) {
+                    // The builder sorts the children of a directory, so the snapshot can be added once the file has been hashed
+                    pendingLeafSnapshots.getFirst().add(CompletableFuture.supplyAsync(() -> snapshotFile(file, internedName, targetAttributes, accessType), hashingExecutor));
+                } else {
+                    builder.visitLeafElement(snapshotFile(file, internedName, targetAttributes, accessType));
+                }
+            }
+        }
+
+        private void visitPendingLeafSnapshots() {
+            for (CompletableFuture<FileSystemLeafSnapshot> pendingLeafSnapshot : pendingLeafSnapshots.removeFirst()) {
+                try {
+                    builder.visitLeafElement(pendingLeafSnapshot.join());
+                } catch (CompletionException e) {
+                    Throwables.throwIfUnchecked(e.getCause());
+                    throw e;
+                }
             }
         }
 
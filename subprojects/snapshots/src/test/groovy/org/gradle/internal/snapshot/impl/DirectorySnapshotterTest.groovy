@@ -39,6 +39,7 @@ import spock.lang.Issue
 import spock.lang.Specification
 
 import java.nio.file.Paths
+import java.util.concurrent.Executors
 import java.util.function.Consumer
 
 @UsesNativeServices
@@ -457,6 +458,36 @@ class DirectorySnapshotterTest extends Specification {
         pipe.delete()
     }
 
+    def "hashing files concurrently produces the same snapshot"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        (1..5).each { dir ->
+            (1..20).each { file ->
+                rootDir.file("dir$dir/sub/file${file}.txt") << "content $dir $file"
+                rootDir.file("dir$dir/file${file}.html") << "other content $dir $file"
+            }
+        }
+        rootDir.file("root.txt") << "root"
+        def executor = Executors.newFixedThreadPool(4)
+        def parallelSnapshotter = new DirectorySnapshotter(fileHasher, new StringInterner(), [], statisticsCollector, executor)
+        List<FileSystemLocationSnapshot> parallelUnfilteredSubsnapshots = []
+
+        when:
+        def snapshot = directorySnapshotter.snapshot(rootDir.absolutePath, predicate, unfilteredSubSnapshotsCollector)
+        def parallelSnapshot = parallelSnapshotter.snapshot(rootDir.absolutePath, predicate, { parallelUnfilteredSubsnapshots.add(it) } as Consumer)
+
+        then:
+        parallelSnapshot.hash == snapshot.hash
+        SnapshotVisitorUtil.getRelativePaths(parallelSnapshot, true) == SnapshotVisitorUtil.getRelativePaths(snapshot, true)
+        parallelUnfilteredSubsnapshots*.absolutePath as Set == unfilteredSubsnapshots*.absolutePath as Set
+
+        cleanup:
+        executor.shutdown()
+
+        where:
+        predicate << [null, directoryWalkerPredicate(new PatternSet().include("**/*.txt"))]
+    }
+
     def "default excludes are correctly parsed"() {
         def defaultExcludes = new DirectorySnapshotter.DefaultExcludes(DirectoryScanner.getDefaultExcludes() as List)
 
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.kotlin.dsl.caching
+
+import org.gradle.api.specs.Spec
+import org.gradle.integtests.fixtures.BuildOperationsFixture
+import org.gradle.integtests.fixtures.executer.ExecutionResult
+import org.gradle.internal.operations.trace.BuildOperationRecord
+import org.gradle.kotlin.dsl.caching.fixtures.cachedBuildFile
+import org.gradle.kotlin.dsl.caching.fixtures.compilationCache
+
+import org.hamcrest.CoreMatchers.containsString
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.MatcherAssert.assertThat
+
+import org.junit.Test
+
+import java.util.regex.Pattern
+
+
+class PrecompiledBuildScriptsIntegrationTest : AbstractScriptCachingIntegrationTest() {
+
+    private
+    val precompileBuildScripts = "-Dorg.gradle.kotlin.dsl.internal.precompileBuildScripts=true"
+
+    private
+    val children = listOf("a", "b", "c", "d")
+
+    @Test
+    fun `precompiled child build scripts configure the projects like compiled ones`() {
+
+        val operations = BuildOperationsFixture(executer, testDirectoryProvider)
+        withSettings("""include(${children.joinToString { "\"$it\"" }})""")
+        withBuildScript("""println("Configured root")""")
+        val childBuildFiles = children.map { child ->
+            cachedBuildFile(
+                withBuildScriptIn(
+                    child,
+                    """
+                    plugins { base }
+                    println("Configured $child with ${'$'}{tasks.names.contains("assemble")}")
+                    """
+                ),
+                true
+            )
+        }
+
+        // when: first use with precompilation
+        val precompiled = buildForCacheInspection("help", precompileBuildScripts).apply {
+
+            // then: each child script is compiled once, the precompiled first stage is reused by the evaluation
+            compilationCache {
+                misses(*childBuildFiles.toTypedArray())
+            }
+        }
+
+        // and: the child scripts are compiled by the precompiler, before the children are evaluated
+        val precompilations = precompilationsIn(operations)
+        assertThat(precompilations.size, equalTo(children.size))
+        precompilations.forEach {
+            assertThat(it.failure, nullValue())
+        }
+        assertChildScriptsAreNotCompiledOnEvaluation(operations, children)
+
+        // when: second use with precompilation
+        buildForCacheInspection("help", precompileBuildScripts).apply {
+
+            // then: no compilation
+            compilationCache {
+                hits(*childBuildFiles.toTypedArray())
+            }
+        }
+
+        // when: use without precompilation
+        val compiled = buildForCacheInspection("help").apply {
+
+            // then: the precompiled scripts are reused
+            compilationCache {
+                hits(*childBuildFiles.toTypedArray())
+            }
+        }
+
+        // then: the projects are configured the same way
+        assertThat(configuredProjectsIn(precompiled), equalTo(configuredProjectsIn(compiled)))
+        assertThat(
+            configuredProjectsIn(precompiled),
+            equalTo(listOf("Configured root") + children.map { "Configured $it with true" })
+        )
+    }
+
+    @Test
+    fun `reports compilation error of precompiled child build script once on evaluation`() {
+
+        val operations = BuildOperationsFixture(executer, testDirectoryProvider)
+        withSettings("""include(${children.joinToString { "\"$it\"" }})""")
+        withBuildScript("""println("Configured root")""")
+        children.forEach { child ->
+            withBuildScriptIn(
+                child,
+                if (child == "c") {
+                    """
+                    plugins { base; doesNotExist() }
+                    """
+                } else {
+                    """
+                    plugins { base }
+                    println("Configured $child")
+                    """
+                }
+            )
+        }
+
+        val failure = buildAndFail("help", precompileBuildScripts)
+
+        failure.assertHasFileName("Build file '${existing("c/build.gradle.kts")}'")
+        assertThat(failure.error, containsString("Unresolved reference: doesNotExist"))
+        assertThat(occurrencesOf("Script compilation error", failure.error), equalTo(1))
+        assertThat(occurrencesOf("Unresolved reference: doesNotExist", failure.output), equalTo(0))
+
+        // and: the failure comes from the precompiler, the evaluation of the broken child does not compile it again
+        assertThat(precompilationsIn(operations).filter { it.failure != null }.size, equalTo(1))
+        assertChildScriptsAreNotCompiledOnEvaluation(operations, listOf("a", "b", "c"))
+    }
+
+    /**
+     * The first stage compilations which ran as part of the evaluation of the root build script,
+     * after the root build script itself was compiled.
+     */
+    private
+    fun precompilationsIn(operations: BuildOperationsFixture): List<BuildOperationRecord> {
+        val rootScript = operations.only(Pattern.compile("Apply build file 'build.gradle.kts' to root project '.*'"))
+        val rootScriptCompiled = operations.search(rootScript, Spec { bodyCompilation.matcher(it.displayName).matches() })
+            .minOfOrNull { it.startTime } ?: rootScript.startTime
+        return operations.search(rootScript, Spec { stage1Compilation.matcher(it.displayName).matches() })
+            .filter { it.startTime >= rootScriptCompiled }
+    }
+
+    private
+    fun assertChildScriptsAreNotCompiledOnEvaluation(operations: BuildOperationsFixture, evaluatedChildren: List<String>) {
+        val firstChildEvaluation = evaluatedChildren.minOf { child ->
+            val childScript = operations.only(Pattern.compile("Apply build file '.*build.gradle.kts' to project ':$child'"))
+            assertThat(
+                operations.search(childScript, Spec { stage1Compilation.matcher(it.displayName).matches() }),
+                equalTo(emptyList())
+            )
+            childScript.startTime
+        }
+        precompilationsIn(operations).forEach {
+            assertThat(it.startTime < firstChildEvaluation, equalTo(true))
+        }
+    }
+
+    private
+    val stage1Compilation = Pattern.compile("Compile script build.gradle.kts \\(CLASSPATH\\)")
+
+    private
+    val bodyCompilation = Pattern.compile("Compile script build.gradle.kts \\(BODY\\)")
+
+    private
+    fun configuredProjectsIn(result: ExecutionResult) =
+        // The debug output prefixes each line
+        Regex("Configured (root|\\w+ with \\w+)").findAll(result.output).map { it.value }.toList()
+
+    private
+    fun occurrencesOf(text: String, output: String) =
+        Regex.fromLiteral(text).findAll(output).count()
+}
@@ -43,6 +43,8 @@ public class TestOutputStore {
 
     private final File resultsDir;
     private final Charset messageStorageCharset;
+    private Index index;
+    private boolean indexLoaded;
 
     public TestOutputStore(File resultsDir) {
         this.resultsDir = resultsDir;
@@ -94,6 +96,7 @@ public Writer() {
         public void close() {
             output.close();
             writeIndex();
+            discardIndex();
         }
 
         public void onOutput(long classId, TestOutputEvent outputEvent) {
@@ -225,62 +228,84 @@ Index build() {
         }
     }
 
-    public class Reader implements Closeable {
-        private final Index index;
-        private final RandomAccessFile dataFile;
+    /**
+     * Returns the index of the outputs, or {@code null} when there are no outputs.
+     *
+     * The index is read once and shared by all readers, as a reader is usually created for each thread that generates a report.
+     */
+    @Nullable
+    private synchronized Index getIndex() {
+        if (!indexLoaded) {
+            index = readIndex();
+            indexLoaded = true;
+        }
+        return index;
+    }
 
-        public Reader() {
-            File indexFile = getIndexFile();
-            File outputsFile = getOutputsFile();
+    private synchronized void discardIndex() {
+        index = null;
+        indexLoaded = false;
+    }
 
-            if (outputsFile.exists()) {
-                if (!indexFile.exists()) {
-                    throw new IllegalStateException(String.format("Test outputs data file '%s' exists but the index file '%s' does not", outputsFile, indexFile));
-                }
+    @Nullable
+    private Index readIndex() {
+        File indexFile = getIndexFile();
+        File outputsFile = getOutputsFile();
 
-                Input input;
-                try {
-                    input = new Input(new FileInputStream(indexFile));
-                } catch (FileNotFoundException e) {
-                    throw new UncheckedIOException(e);
-                }
+        if (!outputsFile.exists()) {
+            if (indexFile.exists()) {
+                throw new IllegalStateException(String.format("Test outputs data file '%s' does not exist but the index file '%s' does", outputsFile, indexFile));
+            }
+            return null;
+        }
+        if (!indexFile.exists()) {
+            throw new IllegalStateException(String.format("Test outputs data file '%s' exists but the index file '%s' does not", outputsFile, indexFile));
+        }
 
-                IndexBuilder rootBuilder = null;
-                try {
-                    int numClasses = input.readInt(true);
-                    rootBuilder = new IndexBuilder();
-
-                    for (int classCounter = 0; classCounter < numClasses; ++classCounter) {
-                        long classId = input.readLong(true);
-                        IndexBuilder classBuilder = new IndexBuilder();
-
-                        int numEntries = input.readInt(true);
-                        for (int entryCounter = 0; entryCounter < numEntries; ++entryCounter) {
-                            long testId = input.readLong(true);
-                            Region stdOut = new Region(input.readLong(), input.readLong());
-                            Region stdErr = new Region(input.readLong(), input.readLong());
-                            classBuilder.add(testId, new Index(stdOut, stdErr));
-                        }
+        Input input;
+        try {
+            input = new Input(new FileInputStream(indexFile));
+        } catch (FileNotFoundException e) {
+            throw new UncheckedIOException(e);
+        }
 
-                        rootBuilder.add(classId, classBuilder.build());
-                    }
-                } finally {
-                    input.close();
+        try {
+            int numClasses = input.readInt(true);
+            IndexBuilder rootBuilder = new IndexBuilder();
+
+            for (int classCounter = 0; classCounter < numClasses; ++classCounter) {
+                long classId = input.readLong(true);
+                IndexBuilder classBuilder = new IndexBuilder();
+
+                int numEntries = input.readInt(true);
+                for (int entryCounter = 0; entryCounter < numEntries; ++entryCounter) {
+                    long testId = input.readLong(true);
+                    Region stdOut = new Region(input.readLong(), input.readLong());
+                    Region stdErr = new Region(input.readLong(), input.readLong());
+                    classBuilder.add(testId, new Index(stdOut, stdErr));
                 }
 
-                index = rootBuilder.build();
+                rootBuilder.add(classId, classBuilder.build());
+            }
+            return rootBuilder.build();
+        } finally {
+            input.close();
+        }
+    }
 
+    public class Reader implements Closeable {
+        private final Index index;
+        private final RandomAccessFile dataFile;
+
+        public Reader() {
+            index = TestOutputStore.this.getIndex();
+            if (index != null) {
                 try {
                     dataFile = new RandomAccessFile(getOutputsFile(), "r");
                 } catch (FileNotFoundException e) {
                     throw new UncheckedIOException(e);
                 }
             } else { // no outputs file
-                if (indexFile.exists()) {
-                    throw new IllegalStateException(String.format("Test outputs data file '%s' does not exist but the index file '%s' does", outputsFile, indexFile));
-                }
-
-                index = null;
                 dataFile = null;
             }
         }
@@ -27,16 +27,34 @@
 import org.gradle.internal.dispatch.DispatchException;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Manages a set of parallel TestClassProcessors. Uses a simple round-robin algorithm to assign test classes to
  * processors.
+ *
+ * <p>When the durations of the test classes in a previous run are known, the test classes are instead assigned when the processor is stopped,
+ * longest first, each to the processor with the least expected duration of the test classes it was assigned.
+ * A test class without a previous duration is expected to take the average duration of the other test classes.
+ * The test classes which failed in the previous run are still assigned before the other ones.</p>
  */
 public class MaxNParallelTestClassProcessor implements TestClassProcessor {
+    /**
+     * Enables the assignment of test classes to test workers based on the durations of the test classes in the previous run.
+     */
+    public static final String BALANCE_BY_DURATION_PROPERTY = "org.gradle.internal.testing.balance-by-duration";
+
     private final int maxProcessors;
     private final Factory<TestClassProcessor> factory;
     private final ActorFactory actorFactory;
+    private final Map<String, Long> previousDurations;
+    private final Set<String> previousFailedTestClasses;
+    private final List<TestClassRunInfo> pendingTestClasses = new ArrayList<TestClassRunInfo>();
     private TestResultProcessor resultProcessor;
     private int pos;
     private List<TestClassProcessor> processors = new ArrayList<TestClassProcessor>();
@@ -46,9 +64,19 @@ public class MaxNParallelTestClassProcessor implements TestClassProcessor {
     private volatile boolean stoppedNow;
 
     public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory) {
+        this(maxProcessors, factory, actorFactory, Collections.<String, Long>emptyMap(), Collections.<String>emptySet());
+    }
+
+    /**
+     * @param previousDurations the duration in milliseconds of each test class in the previous run, or an empty map to assign test classes round-robin.
+     * @param previousFailedTestClasses the test classes which failed in the previous run, assigned first when assigning by duration.
+     */
+    public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory, Map<String, Long> previousDurations, Set<String> previousFailedTestClasses) {
         this.maxProcessors = maxProcessors;
         this.factory = factory;
         this.actorFactory = actorFactory;
+        this.previousDurations = previousDurations;
+        this.previousFailedTestClasses = previousFailedTestClasses;
     }
 
     @Override
@@ -63,16 +91,14 @@ public void processTestClass(TestClassRunInfo testClass) {
         if (stoppedNow) {
             return;
         }
+        if (!previousDurations.isEmpty()) {
+            pendingTestClasses.add(testClass);
+            return;
+        }
 
         TestClassProcessor processor;
         if (processors.size() < maxProcessors) {
-            processor = factory.create();
-            rawProcessors.add(processor);
-            Actor actor = actorFactory.createActor(processor);
-            processor = actor.getProxy(TestClassProcessor.class);
-            actors.add(actor);
-            processors.add(processor);
-            processor.startProcessing(resultProcessor);
+            processor = startProcessor();
         } else {
             processor = processors.get(pos);
             pos = (pos + 1) % processors.size();
@@ -80,8 +106,65 @@ public void processTestClass(TestClassRunInfo testClass) {
         processor.processTestClass(testClass);
     }
 
+    private TestClassProcessor startProcessor() {
+        TestClassProcessor processor = factory.create();
+        rawProcessors.add(processor);
+        Actor actor = actorFactory.createActor(processor);
+        processor = actor.getProxy(TestClassProcessor.class);
+        actors.add(actor);
+        processors.add(processor);
+        processor.startProcessing(resultProcessor);
+        return processor;
+    }
+
+    private void assignPendingTestClassesLongestFirst() {
+        long totalDuration = 0;
+        for (Long duration : previousDurations.values()) {
+            totalDuration += duration;
+        }
+        final long defaultDuration = totalDuration / previousDurations.size();
+        final Map<TestClassRunInfo, Long> expectedDurations = new HashMap<TestClassRunInfo, Long>();
+        for (TestClassRunInfo testClass : pendingTestClasses) {
+            Long duration = previousDurations.get(testClass.getTestClassName());
+            expectedDurations.put(testClass, duration == null ? defaultDuration : duration);
+        }
+        // The sort is stable, so test classes with the same duration keep the order in which they were received
+        Collections.sort(pendingTestClasses, new Comparator<TestClassRunInfo>() {
+            @Override
+            public int compare(TestClassRunInfo left, TestClassRunInfo right) {
+                boolean leftFailed = previousFailedTestClasses.contains(left.getTestClassName());
+                boolean rightFailed = previousFailedTestClasses.contains(right.getTestClassName());
+                if (leftFailed != rightFailed) {
+                    return leftFailed ? -1 : 1;
+                }
+                return Long.compare(expectedDurations.get(right), expectedDurations.get(left));
+            }
+        });
+
+        long[] assignedDurations = new long[maxProcessors];
+        for (TestClassRunInfo testClass : pendingTestClasses) {
+            if (stoppedNow) {
+                return;
+            }
+            // A processor which is not started yet has nothing assigned, and the first such processor is the next one to start
+            int index = 0;
+            for (int i = 1; i < maxProcessors; i++) {
+                if (assignedDurations[i] < assignedDurations[index]) {
+                    index = i;
+                }
+            }
+            TestClassProcessor processor = index < processors.size() ? processors.get(index) : startProcessor();
+            assignedDurations[index] += expectedDurations.get(testClass);
+            processor.processTestClass(testClass);
+        }
+        pendingTestClasses.clear();
+    }
+
     @Override
     public void stop() {
+        if (!pendingTestClasses.isEmpty()) {
+            assignPendingTestClassesLongestFirst();
+        }
         try {
             CompositeStoppable.stoppable(processors).add(actors).add(resultProcessorActor).stop();
         } catch (DispatchException e) {
@@ -202,4 +202,86 @@ class MaxNParallelTestClassProcessorTest extends Specification {
         1 * processor1.stopNow()
         1 * processor2.stopNow()
     }
+
+    def "assigns test classes longest first to the processor with the least previous duration"() {
+        def processor = new MaxNParallelTestClassProcessor(2, factory, actorFactory, [A: 100L, B: 60L, C: 50L, D: 40L], [] as Set)
+        TestClassProcessor processor1 = Mock()
+        TestClassProcessor processor2 = Mock()
+        TestClassProcessor asyncProcessor1 = Mock()
+        TestClassProcessor asyncProcessor2 = Mock()
+        Actor actor1 = Mock()
+        Actor actor2 = Mock()
+        def dispatched = []
+
+        1 * actorFactory.createActor(resultProcessor) >> resultProcessorActor
+        1 * resultProcessorActor.getProxy(TestResultProcessor) >> asyncResultProcessor
+        processor.startProcessing(resultProcessor)
+
+        when:
+        ["D", "C", "B", "A", "E"].each { processor.processTestClass(testClass(it)) }
+
+        then:
+        0 * factory.create()
+
+        when:
+        processor.stop()
+
+        then:
+        1 * factory.create() >> processor1
+        1 * actorFactory.createActor(processor1) >> actor1
+        1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
+        1 * factory.create() >> processor2
+        1 * actorFactory.createActor(processor2) >> actor2
+        1 * actor2.getProxy(TestClassProcessor) >> asyncProcessor2
+        _ * asyncProcessor1.processTestClass(_) >> { TestClassRunInfo test -> dispatched << "1:" + test.testClassName }
+        _ * asyncProcessor2.processTestClass(_) >> { TestClassRunInfo test -> dispatched << "2:" + test.testClassName }
+        1 * asyncProcessor1.stop()
+        1 * asyncProcessor2.stop()
+
+        and:
+        // The unknown test class E is expected to take the average duration of 62ms
+        dispatched == ["1:A", "2:E", "2:B", "1:C", "2:D"]
+    }
+
+    def "assigns the previously failed test classes first and the other test classes longest first"() {
+        def processor = new RunPreviousFailedFirstTestClassProcessor(["C", "D"] as Set,
+            new MaxNParallelTestClassProcessor(2, factory, actorFactory, [A: 100L, B: 60L, C: 50L, D: 40L], ["C", "D"] as Set))
+        TestClassProcessor processor1 = Mock()
+        TestClassProcessor processor2 = Mock()
+        TestClassProcessor asyncProcessor1 = Mock()
+        TestClassProcessor asyncProcessor2 = Mock()
+        Actor actor1 = Mock()
+        Actor actor2 = Mock()
+        def dispatched = []
+
+        1 * actorFactory.createActor(resultProcessor) >> resultProcessorActor
+        1 * resultProcessorActor.getProxy(TestResultProcessor) >> asyncResultProcessor
+        processor.startProcessing(resultProcessor)
+
+        when:
+        ["A", "B", "C", "D", "E"].each { processor.processTestClass(testClass(it)) }
+        processor.stop()
+
+        then:
+        1 * factory.create() >> processor1
+        1 * actorFactory.createActor(processor1) >> actor1
+        1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
+        1 * factory.create() >> processor2
+        1 * actorFactory.createActor(processor2) >> actor2
+        1 * actor2.getProxy(TestClassProcessor) >> asyncProcessor2
+        _ * asyncProcessor1.processTestClass(_) >> { TestClassRunInfo test -> dispatched << "1:" + test.testClassName }
+        _ * asyncProcessor2.processTestClass(_) >> { TestClassRunInfo test -> dispatched << "2:" + test.testClassName }
+        1 * asyncProcessor1.stop()
+        1 * asyncProcessor2.stop()
+
+        and:
+        // The failed test classes C and D start first on each processor, then the others are balanced longest first
+        dispatched == ["1:C", "2:D", "2:A", "1:E", "1:B"]
+    }
+
+    private TestClassRunInfo testClass(String name) {
+        return Stub(TestClassRunInfo) {
+            getTestClassName() >> name
+        }
+    }
 }
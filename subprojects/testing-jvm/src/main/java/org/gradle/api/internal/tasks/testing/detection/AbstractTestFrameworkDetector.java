@@ -16,27 +16,24 @@
 
 package org.gradle.api.internal.tasks.testing.detection;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.gradle.api.internal.file.RelativeFile;
 import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.internal.Factories;
 import org.gradle.internal.Factory;
-import org.gradle.internal.IoActions;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.Type;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedInputStream;
+import javax.annotation.Nullable;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import static org.gradle.internal.FileUtils.hasExtension;
@@ -46,8 +43,9 @@
     private static final String JAVA_LANG_OBJECT = "java/lang/Object";
 
     private List<File> testClassDirectories;
+    private HashCode classpathHash;
     private final ClassFileExtractionManager classFileExtractionManager;
-    private final Map<File, Boolean> superClasses;
+    private TestClassDetectionCache detectionCache;
     private TestClassProcessor testClassProcessor;
 
     private Set<File> testClassesDirectories;
@@ -56,12 +54,13 @@
     protected AbstractTestFrameworkDetector(ClassFileExtractionManager classFileExtractionManager) {
         assert classFileExtractionManager != null;
         this.classFileExtractionManager = classFileExtractionManager;
-        this.superClasses = new HashMap<File, Boolean>();
+        this.detectionCache = new TestClassDetectionCache();
     }
 
     protected abstract T createClassVisitor();
 
-    private File getSuperTestClassFile(String superClassName) {
+    @Nullable
+    private ClassFileLocation getSuperTestClassFile(String superClassName) {
         prepareClasspath();
         if (StringUtils.isEmpty(superClassName)) {
             throw new IllegalArgumentException("superClassName is empty!");
@@ -76,7 +75,7 @@ private File getSuperTestClassFile(String superClassName) {
         }
 
         if (superTestClassFile != null) {
-            return superTestClassFile;
+            return ClassFileLocation.file(superTestClassFile);
         } else if (JAVA_LANG_OBJECT.equals(superClassName)) {
             // java.lang.Object found, which is not a test class
             return null;
@@ -86,15 +85,18 @@ private File getSuperTestClassFile(String superClassName) {
         }
     }
 
-    private void prepareClasspath() {
+    private synchronized void prepareClasspath() {
         if (testClassDirectories != null) {
             return;
         }
 
         testClassDirectories = new ArrayList<File>();
+        // Where a superclass is found depends on the test class directories and the classpath, and on their order
+        Hasher hasher = Hashing.newHasher();
 
         if (testClassesDirectories != null) {
             testClassDirectories.addAll(testClassesDirectories);
+            putFiles(hasher, testClassesDirectories);
         }
         if (testClasspath != null) {
             for (File file : testClasspath) {
@@ -104,6 +106,15 @@ private void prepareClasspath() {
                     classFileExtractionManager.addLibraryJar(file);
                 }
             }
+            putFiles(hasher, testClasspath);
+        }
+        classpathHash = hasher.hash();
+    }
+
+    private static void putFiles(Hasher hasher, Set<File> files) {
+        hasher.putInt(files.size());
+        for (File file : files) {
+            hasher.putString(file.getAbsolutePath());
         }
     }
 
@@ -117,39 +128,41 @@ public void setTestClasspath(Set<File> testClasspath) {
         this.testClasspath = testClasspath;
     }
 
-    private TestClass readClassFile(File testClassFile, Factory<String> fallbackClassNameProvider) {
+    @Override
+    public void setDetectionCache(TestClassDetectionCache detectionCache) {
+        this.detectionCache = detectionCache;
+    }
+
+    private TestClass readClassFile(ClassFileLocation testClassFile, Factory<String> fallbackClassNameProvider) {
         final TestClassVisitor classVisitor = createClassVisitor();
 
-        InputStream classStream = null;
         try {
-            classStream = new BufferedInputStream(new FileInputStream(testClassFile));
-            final ClassReader classReader = new ClassReader(IOUtils.toByteArray(classStream));
+            final ClassReader classReader = new ClassReader(testClassFile.read(classFileExtractionManager));
             classReader.accept(classVisitor, ClassReader.SKIP_DEBUG | ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
             return TestClass.forParseableFile(classVisitor);
         } catch (Throwable e) {
-            LOGGER.debug("Failed to read class file " + testClassFile.getAbsolutePath() + "; assuming it's a test class and continuing", e);
+            LOGGER.debug("Failed to read class file " + testClassFile + "; assuming it's a test class and continuing", e);
             return TestClass.forUnparseableFile(fallbackClassNameProvider.create());
-        } finally {
-            IoActions.closeQuietly(classStream);
         }
     }
 
     @Override
     public boolean processTestClass(final RelativeFile testClassFile) {
-        return processTestClass(testClassFile.getFile(), false, new Factory<String>() {
+        return processTestClass(ClassFileLocation.file(testClassFile.getFile()), false, new Factory<String>() {
             @Override
             public String create() {
                 return testClassFile.getRelativePath().getPathString().replace(".class", "");
             }
-        });
+        }, new ArrayList<ClassFileLocation>());
     }
 
     /**
      * Uses a TestClassVisitor to detect whether the class in the testClassFile is a test class. <p/> If the class is not a test, this function will go up the inheritance tree to check if a parent
      * class is a test class. First the package of the parent class is checked, if it is a java.lang or groovy.lang the class can't be a test class, otherwise the parent class is scanned. <p/> When a
-     * parent class is a test class all the extending classes are marked as test classes.
+     * parent class is a test class all the extending classes are marked as test classes. <p/> The class files that were read are added to {@code classFiles}.
      */
-    private boolean processTestClass(File testClassFile, boolean superClass, Factory<String> fallbackClassNameProvider) {
+    private boolean processTestClass(ClassFileLocation testClassFile, boolean superClass, Factory<String> fallbackClassNameProvider, List<ClassFileLocation> classFiles) {
+        classFiles.add(testClassFile);
         TestClass testClass = readClassFile(testClassFile, fallbackClassNameProvider);
 
         boolean isTest = testClass.isTest();
@@ -160,10 +173,10 @@ private boolean processTestClass(File testClassFile, boolean superClass, Factory
             if (isKnownTestCaseClassName(superClassName)) {
                 isTest = true;
             } else {
-                File superClassFile = getSuperTestClassFile(superClassName);
+                ClassFileLocation superClassFile = getSuperTestClassFile(superClassName);
 
                 if (superClassFile != null) {
-                    isTest = processSuperClass(superClassFile, superClassName);
+                    isTest = processSuperClass(superClassFile, superClassName, classFiles);
                 } else {
                     LOGGER.debug("test-class-scan : failed to scan parent class {}, could not find the class file",
                         superClassName);
@@ -178,18 +191,20 @@ private boolean processTestClass(File testClassFile, boolean superClass, Factory
 
     protected abstract boolean isKnownTestCaseClassName(String testCaseClassName);
 
-    private boolean processSuperClass(File testClassFile, String superClassName) {
-        boolean isTest;
+    private boolean processSuperClass(ClassFileLocation testClassFile, String superClassName, List<ClassFileLocation> classFiles) {
+        String detectorType = getClass().getName();
+        TestClassDetectionCache.Result cachedResult = detectionCache.get(detectorType, classpathHash, testClassFile);
 
-        Boolean isSuperTest = superClasses.get(testClassFile);
+        if (cachedResult != null) {
+            classFiles.addAll(cachedResult.getClassFiles());
+            return cachedResult.isTest();
+        }
 
-        if (isSuperTest == null) {
-            isTest = processTestClass(testClassFile, true, Factories.constant(superClassName));
+        List<ClassFileLocation> superClassFiles = new ArrayList<ClassFileLocation>();
+        boolean isTest = processTestClass(testClassFile, true, Factories.constant(superClassName), superClassFiles);
 
-            superClasses.put(testClassFile, isTest);
-        } else {
-            isTest = isSuperTest;
-        }
+        detectionCache.put(detectorType, classpathHash, testClassFile, isTest, superClassFiles);
+        classFiles.addAll(superClassFiles);
 
         return isTest;
     }
@@ -210,6 +225,11 @@ public void startDetection(TestClassProcessor testClassProcessor) {
         this.testClassProcessor = testClassProcessor;
     }
 
+    @Override
+    public void stopDetection() {
+        classFileExtractionManager.closeJarFiles();
+    }
+
     private static class TestClass {
         private final boolean test;
         private final boolean isAbstract;
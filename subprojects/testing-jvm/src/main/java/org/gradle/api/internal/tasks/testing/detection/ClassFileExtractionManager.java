@@ -15,35 +15,42 @@
  */
 package org.gradle.api.internal.tasks.testing.detection;
 
-import org.apache.commons.lang.text.StrBuilder;
 import org.gradle.api.GradleException;
-import org.gradle.api.internal.file.temp.DefaultTemporaryFileProvider;
-import org.gradle.api.internal.file.temp.TemporaryFileProvider;
-import org.gradle.internal.Factory;
-import org.gradle.util.internal.JarUtil;
+import org.gradle.internal.IoActions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
-import java.util.*;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipFile;
 
 /**
- * This class manages class file extraction from library jar files.
+ * This class locates class files in library jar files.
+ *
+ * <p>The class files are read from the jar files directly, rather than being extracted to temporary files.
+ * Library jars must be added before class files are looked up, after which the lookups may be made from several threads.</p>
+ *
+ * <p>Each jar file is opened once and kept open until {@link #closeJarFiles()} is called at the end of a scan.</p>
  */
 public class ClassFileExtractionManager {
     private static final Logger LOGGER = LoggerFactory.getLogger(ClassFileExtractionManager.class);
     private final Map<String, Set<File>> packageJarFilesMappings;
-    private final Map<String, File> extractedJarClasses;
-    private final Set<String> unextractableClasses;
-    private final TemporaryFileProvider tempDirProvider;
+    private final Map<String, ClassFileLocation> libraryClassFiles;
+    private final Set<String> missingClasses;
+    private final Map<File, ZipFile> openJarFiles;
 
-    public ClassFileExtractionManager(final Factory<File> tempDirFactory) {
-        assert tempDirFactory != null;
-        tempDirProvider = new DefaultTemporaryFileProvider(tempDirFactory);
+    public ClassFileExtractionManager() {
         packageJarFilesMappings = new HashMap<String, Set<File>>();
-        extractedJarClasses = new HashMap<String, File>();
-        unextractableClasses = new TreeSet<String>();
+        libraryClassFiles = new ConcurrentHashMap<String, ClassFileLocation>();
+        missingClasses = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        openJarFiles = new HashMap<File, ZipFile>();
     }
 
     /**
@@ -66,66 +73,81 @@ public void receivePackage(String packageName) {
     }
 
     /**
-     * Retrieve the file that contains the extracted class file.
+     * Retrieve the location of a class file in the library jars.
      *
      * <p>
-     * This method will extract the class file if it is
-     * not extracted yet. Extracted class files are deleted on exit of the Gradle process. The same class is only
-     * extracted once.
+     * The same class is only looked up once.
      * </p>
      *
-     * @param className Name of the class to extract.
-     * @return File that contains the extracted class file.
+     * @param className Name of the class to look up.
+     * @return The location of the class file, or null when no library jar contains the class.
      */
-    public File getLibraryClassFile(final String className) {
-        if (unextractableClasses.contains(className)) {
+    @Nullable
+    public ClassFileLocation getLibraryClassFile(final String className) {
+        if (missingClasses.contains(className)) {
             return null;
-        } else {
-            if (!extractedJarClasses.containsKey(className)) {
-                if (!extractClassFile(className)) {
-                    unextractableClasses.add(className);
-                }
+        }
+        ClassFileLocation classFile = libraryClassFiles.get(className);
+        if (classFile == null) {
+            classFile = findClassFile(className);
+            if (classFile == null) {
+                missingClasses.add(className);
+            } else {
+                libraryClassFiles.put(className, classFile);
             }
-
-            return extractedJarClasses.get(className);
         }
+        return classFile;
     }
 
-    private boolean extractClassFile(final String className) {
-        boolean classFileExtracted = false;
-
-        final File extractedClassFile = tempFile();
-        final String classFileName = new StrBuilder().append(className).append(".class").toString();
-        final String classNamePackage = classNamePackage(className);
-        final Set<File> packageJarFiles = packageJarFilesMappings.get(classNamePackage);
+    @Nullable
+    private ClassFileLocation findClassFile(final String className) {
+        final String classFileName = className + ".class";
+        final Set<File> packageJarFiles = packageJarFilesMappings.get(classNamePackage(className));
 
-        File classFileSourceJar = null;
-
-        if (packageJarFiles != null && !packageJarFiles.isEmpty()) {
-            final Iterator<File> packageJarFilesIt = packageJarFiles.iterator();
-
-            while (!classFileExtracted && packageJarFilesIt.hasNext()) {
-                final File jarFile = packageJarFilesIt.next();
-
-                try {
-                    classFileExtracted = JarUtil.extractZipEntry(jarFile, classFileName, extractedClassFile);
-
-                    if (classFileExtracted) {
-                        classFileSourceJar = jarFile;
-                    }
-                } catch (IOException e) {
-                    throw new GradleException("failed to extract class file from jar (" + jarFile + ")", e);
+        if (packageJarFiles != null) {
+            for (File jarFile : packageJarFiles) {
+                if (containsEntry(jarFile, classFileName)) {
+                    LOGGER.debug("found class {} in {}", className, jarFile.getName());
+                    return ClassFileLocation.jarEntry(jarFile, classFileName);
                 }
             }
+        } // super class not on the classpath - unable to scan parent class
 
-            if (classFileExtracted) {
-                LOGGER.debug("extracted class {} from {}", className, classFileSourceJar.getName());
+        return null;
+    }
 
-                extractedJarClasses.put(className, extractedClassFile);
+    private boolean containsEntry(File jarFile, String entryName) {
+        try {
+            return openJarFile(jarFile).getEntry(entryName) != null;
+        } catch (IOException e) {
+            throw new GradleException("failed to read class file from jar (" + jarFile + ")", e);
+        }
+    }
+
+    /**
+     * Returns the open jar file, opening it when it is not open yet.
+     */
+    ZipFile openJarFile(File jarFile) throws IOException {
+        synchronized (openJarFiles) {
+            ZipFile zipFile = openJarFiles.get(jarFile);
+            if (zipFile == null) {
+                zipFile = new ZipFile(jarFile);
+                openJarFiles.put(jarFile, zipFile);
             }
-        } // super class not on the classpath - unable to scan parent class
+            return zipFile;
+        }
+    }
 
-        return classFileExtracted;
+    /**
+     * Closes the jar files opened to look up and to read class files.
+     */
+    public void closeJarFiles() {
+        synchronized (openJarFiles) {
+            for (ZipFile zipFile : openJarFiles.values()) {
+                IoActions.closeQuietly(zipFile);
+            }
+            openJarFiles.clear();
+        }
     }
 
     private String classNamePackage(final String className) {
@@ -137,8 +159,4 @@ private String classNamePackage(final String className) {
             return className.substring(0, lastSlashIndex + 1);
         }
     }
-
-    private File tempFile() {
-        return tempDirProvider.createTemporaryFile("jar_extract_", "_tmp"); // Could throw UncheckedIOException
-    }
 }
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.detection;
+
+import org.apache.commons.io.IOUtils;
+import org.gradle.internal.IoActions;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The location of a class file, either a file in a directory or an entry of a jar file.
+ *
+ * <p>The length and the modification time of the file or jar file are recorded when the location is created,
+ * so that results derived from the class file can be checked for staleness later on.</p>
+ */
+public class ClassFileLocation {
+    private final File file;
+    private final String entryName;
+    private final long length;
+    private final long lastModified;
+
+    private ClassFileLocation(File file, @Nullable String entryName) {
+        this.file = file;
+        this.entryName = entryName;
+        this.length = file.length();
+        this.lastModified = file.lastModified();
+    }
+
+    public static ClassFileLocation file(File classFile) {
+        return new ClassFileLocation(classFile, null);
+    }
+
+    public static ClassFileLocation jarEntry(File jarFile, String entryName) {
+        return new ClassFileLocation(jarFile, entryName);
+    }
+
+    /**
+     * Returns a key which identifies this location, regardless of the state of the file.
+     */
+    public String getKey() {
+        return entryName == null ? file.getAbsolutePath() : file.getAbsolutePath() + "!/" + entryName;
+    }
+
+    /**
+     * Returns true when the file or jar file has the same length and modification time as when this location was created.
+     */
+    public boolean isUnchanged() {
+        return file.length() == length && file.lastModified() == lastModified;
+    }
+
+    /**
+     * Reads the class file, using the jar files opened by the given extraction manager.
+     */
+    public byte[] read(ClassFileExtractionManager classFileExtractionManager) throws IOException {
+        InputStream inputStream;
+        if (entryName == null) {
+            inputStream = new BufferedInputStream(new FileInputStream(file));
+        } else {
+            ZipFile zipFile = classFileExtractionManager.openJarFile(file);
+            ZipEntry entry = zipFile.getEntry(entryName);
+            if (entry == null) {
+                throw new FileNotFoundException(getKey());
+            }
+            inputStream = zipFile.getInputStream(entry);
+        }
+        try {
+            return IOUtils.toByteArray(inputStream);
+        } finally {
+            IoActions.closeQuietly(inputStream);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getKey();
+    }
+}
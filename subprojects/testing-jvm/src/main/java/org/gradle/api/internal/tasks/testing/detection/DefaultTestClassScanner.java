@@ -24,24 +24,46 @@
 import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
 
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Pattern;
 
 /**
  * The default test class scanner. Depending on the availability of a test framework detector,
  * a detection or filename scan is performed to find test classes.
+ *
+ * <p>When an executor factory and more than one detection thread are given, the detection scan inspects the class files concurrently.
+ * At most twice as many class files as there are detection threads wait for detection at a time.
+ * The detected test classes are then passed on ordered by name once all class files have been inspected.</p>
  */
 public class DefaultTestClassScanner implements Runnable {
     private static final Pattern ANONYMOUS_CLASS_NAME = Pattern.compile(".*\\$\\d+");
     private final FileTree candidateClassFiles;
     private final TestFrameworkDetector testFrameworkDetector;
     private final TestClassProcessor testClassProcessor;
+    private final ExecutorFactory executorFactory;
+    private final int maxDetectionThreads;
 
     public DefaultTestClassScanner(FileTree candidateClassFiles, TestFrameworkDetector testFrameworkDetector,
                                    TestClassProcessor testClassProcessor) {
+        this(candidateClassFiles, testFrameworkDetector, testClassProcessor, null, 1);
+    }
+
+    public DefaultTestClassScanner(FileTree candidateClassFiles, TestFrameworkDetector testFrameworkDetector,
+                                   TestClassProcessor testClassProcessor, @Nullable ExecutorFactory executorFactory, int maxDetectionThreads) {
         this.candidateClassFiles = candidateClassFiles;
         this.testFrameworkDetector = testFrameworkDetector;
         this.testClassProcessor = testClassProcessor;
+        this.executorFactory = executorFactory;
+        this.maxDetectionThreads = maxDetectionThreads;
     }
 
     @Override
@@ -54,6 +76,18 @@ public void run() {
     }
 
     private void detectionScan() {
+        try {
+            if (executorFactory != null && maxDetectionThreads > 1) {
+                concurrentDetectionScan();
+            } else {
+                sequentialDetectionScan();
+            }
+        } finally {
+            testFrameworkDetector.stopDetection();
+        }
+    }
+
+    private void sequentialDetectionScan() {
         testFrameworkDetector.startDetection(testClassProcessor);
         candidateClassFiles.visit(new ClassFileVisitor() {
             @Override
@@ -63,6 +97,61 @@ public void visitClassFile(FileVisitDetails fileDetails) {
         });
     }
 
+    private void concurrentDetectionScan() {
+        // The detector publishes test classes from several threads, so collect them and pass them on in a reproducible order
+        final Map<String, TestClassRunInfo> testClasses = new ConcurrentSkipListMap<String, TestClassRunInfo>();
+        testFrameworkDetector.startDetection(new CollectingTestClassProcessor(testClasses));
+
+        // Limit the class files waiting for detection, so the visit does not queue up every class file of the test classes
+        final int maxPendingDetections = 2 * maxDetectionThreads;
+        final Semaphore pendingDetections = new Semaphore(maxPendingDetections);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        final ManagedExecutor executor = executorFactory.create("Test class detection", maxDetectionThreads);
+        try {
+            candidateClassFiles.visit(new ClassFileVisitor() {
+                @Override
+                public void visitClassFile(FileVisitDetails fileDetails) {
+                    if (failure.get() != null) {
+                        return;
+                    }
+                    final RelativeFile testClassFile = new RelativeFile(fileDetails.getFile(), fileDetails.getRelativePath());
+                    acquire(pendingDetections, 1);
+                    executor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                testFrameworkDetector.processTestClass(testClassFile);
+                            } catch (Throwable t) {
+                                failure.compareAndSet(null, t);
+                            } finally {
+                                pendingDetections.release();
+                            }
+                        }
+                    });
+                }
+            });
+            // Wait for the pending detections to complete
+            acquire(pendingDetections, maxPendingDetections);
+        } finally {
+            executor.stop();
+        }
+        if (failure.get() != null) {
+            throw UncheckedException.throwAsUncheckedException(failure.get());
+        }
+
+        for (TestClassRunInfo testClass : testClasses.values()) {
+            testClassProcessor.processTestClass(testClass);
+        }
+    }
+
+    private static void acquire(Semaphore semaphore, int permits) {
+        try {
+            semaphore.acquire(permits);
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
     private void filenameScan() {
         candidateClassFiles.visit(new ClassFileVisitor() {
             @Override
@@ -98,6 +187,31 @@ public boolean isReproducibleFileOrder() {
         }
     }
 
+    private static class CollectingTestClassProcessor implements TestClassProcessor {
+        private final Map<String, TestClassRunInfo> testClasses;
+
+        CollectingTestClassProcessor(Map<String, TestClassRunInfo> testClasses) {
+            this.testClasses = testClasses;
+        }
+
+        @Override
+        public void startProcessing(TestResultProcessor resultProcessor) {
+        }
+
+        @Override
+        public void processTestClass(TestClassRunInfo testClass) {
+            testClasses.put(testClass.getTestClassName(), testClass);
+        }
+
+        @Override
+        public void stop() {
+        }
+
+        @Override
+        public void stopNow() {
+        }
+    }
+
     private String getClassName(FileVisitDetails fileDetails) {
         return fileDetails.getRelativePath().getPathString().replaceAll("\\.class", "").replace('/', '.');
     }
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.detection;
+
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.service.scopes.Scopes;
+import org.gradle.internal.service.scopes.ServiceScope;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Remembers whether superclasses of test classes are test classes, so that the test tasks of a build do not scan the same superclasses again.
+ *
+ * <p>A result is kept together with the class files it was derived from, which are the superclass and its own superclasses.
+ * The result is discarded when any of these class files has changed.
+ * Results are only shared between scans of the same test class directories and classpath, as these determine where superclasses are found.</p>
+ */
+@ServiceScope(Scopes.BuildSession.class)
+public class TestClassDetectionCache {
+    private final ConcurrentMap<String, Result> results = new ConcurrentHashMap<String, Result>();
+
+    /**
+     * Returns the result for the given class file, or null when there is no result or the result is stale.
+     */
+    @Nullable
+    Result get(String detectorType, HashCode classpathHash, ClassFileLocation classFile) {
+        String key = keyFor(detectorType, classpathHash, classFile);
+        Result result = results.get(key);
+        if (result == null) {
+            return null;
+        }
+        for (ClassFileLocation dependency : result.getClassFiles()) {
+            if (!dependency.isUnchanged()) {
+                results.remove(key, result);
+                return null;
+            }
+        }
+        return result;
+    }
+
+    void put(String detectorType, HashCode classpathHash, ClassFileLocation classFile, boolean test, List<ClassFileLocation> classFiles) {
+        results.put(keyFor(detectorType, classpathHash, classFile), new Result(test, classFiles));
+    }
+
+    private static String keyFor(String detectorType, HashCode classpathHash, ClassFileLocation classFile) {
+        return detectorType + ":" + classpathHash + ":" + classFile.getKey();
+    }
+
+    static class Result {
+        private final boolean test;
+        private final List<ClassFileLocation> classFiles;
+
+        Result(boolean test, List<ClassFileLocation> classFiles) {
+            this.test = test;
+            this.classFiles = new ArrayList<ClassFileLocation>(classFiles);
+        }
+
+        boolean isTest() {
+            return test;
+        }
+
+        List<ClassFileLocation> getClassFiles() {
+            return classFiles;
+        }
+    }
+}
@@ -26,7 +26,14 @@ public interface TestFrameworkDetector {
 
     boolean processTestClass(RelativeFile testClassFile);
 
+    /**
+     * Called when all test class files of a scan have been processed, so the detector can release what it holds for the scan.
+     */
+    void stopDetection();
+
     void setTestClasses(Set<File> testClasses);
 
     void setTestClasspath(Set<File> classpath);
+
+    void setDetectionCache(TestClassDetectionCache detectionCache);
 }
@@ -21,10 +21,17 @@ import org.gradle.api.file.FileVisitDetails
 import org.gradle.api.file.FileVisitor
 import org.gradle.api.file.RelativePath
 import org.gradle.api.internal.file.DefaultFileVisitDetails
+import org.gradle.api.internal.file.RelativeFile
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
 import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.test.fixtures.ConcurrentTestUtil
 import spock.lang.Specification
 import spock.lang.Subject
 
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.atomic.AtomicInteger
+
 class DefaultTestClassScannerTest extends Specification {
     def files = Mock(FileTree)
     def detector = Mock(TestFrameworkDetector)
@@ -54,6 +61,8 @@ class DefaultTestClassScannerTest extends Specification {
         1 * detector.processTestClass({ it.file.is(class1.file) && it.relativePath.is(class1.relativePath) })
         then:
         1 * detector.processTestClass({ it.file.is(class2.file) && it.relativePath.is(class2.relativePath) })
+        then:
+        1 * detector.stopDetection()
 
         0 * _._
     }
@@ -71,10 +80,107 @@ class DefaultTestClassScannerTest extends Specification {
             visitor.visitFile(stubFileVisitDetails('AnonymousClass$1'))
             visitor.visitFile(stubFileVisitDetails('AnonymousClass$1$22'))
         }
+        then:
+        1 * detector.stopDetection()
 
         0 * _._
     }
 
+    void detectsClassesConcurrentlyAndPassesThemOnOrderedByName() {
+        given:
+        def executorFactory = new DefaultExecutorFactory()
+        def processor = Mock(TestClassProcessor)
+        def scanner = new DefaultTestClassScanner(files, detector, processor, executorFactory, 4)
+        TestClassProcessor detectedClasses = null
+
+        when:
+        scanner.run()
+
+        then:
+        1 * detector.startDetection(_) >> { TestClassProcessor collector -> detectedClasses = collector }
+        1 * files.visit(_) >> { FileVisitor visitor ->
+            ['class3', 'class1', 'class2'].each { visitor.visitFile(stubFileVisitDetails(it)) }
+        }
+        3 * detector.processTestClass(_) >> { RelativeFile file ->
+            detectedClasses.processTestClass(new DefaultTestClassRunInfo(file.relativePath.lastName - '.class'))
+            true
+        }
+        then:
+        1 * processor.processTestClass({ it.testClassName == 'class1' })
+        then:
+        1 * processor.processTestClass({ it.testClassName == 'class2' })
+        then:
+        1 * processor.processTestClass({ it.testClassName == 'class3' })
+        0 * processor._
+        1 * detector.stopDetection()
+
+        cleanup:
+        executorFactory.stop()
+    }
+
+    void limitsClassFilesWaitingForConcurrentDetection() {
+        given:
+        def executorFactory = new DefaultExecutorFactory()
+        def scanner = new DefaultTestClassScanner(files, detector, processor, executorFactory, 2)
+        def started = new AtomicInteger()
+        def release = new CountDownLatch(1)
+        def visited = new AtomicInteger()
+        1 * files.visit(_) >> { FileVisitor visitor ->
+            (1..10).each {
+                visitor.visitFile(stubFileVisitDetails("class$it"))
+                visited.incrementAndGet()
+            }
+        }
+        10 * detector.processTestClass(_) >> {
+            started.incrementAndGet()
+            release.await()
+            false
+        }
+        1 * detector.stopDetection()
+
+        when:
+        def scan = new Thread({ scanner.run() })
+        scan.start()
+        ConcurrentTestUtil.poll { assert started.get() == 2 }
+        Thread.sleep(100)
+
+        then:
+        visited.get() == 4
+        scan.state == Thread.State.WAITING
+
+        when:
+        release.countDown()
+        scan.join()
+
+        then:
+        visited.get() == 10
+        started.get() == 10
+
+        cleanup:
+        release.countDown()
+        executorFactory.stop()
+    }
+
+    void failsConcurrentDetectionWhenDetectorFails() {
+        given:
+        def executorFactory = new DefaultExecutorFactory()
+        def scanner = new DefaultTestClassScanner(files, detector, processor, executorFactory, 2)
+        def failure = new RuntimeException("broken")
+
+        when:
+        scanner.run()
+
+        then:
+        def e = thrown(RuntimeException)
+        e.is(failure)
+        1 * files.visit(_) >> { FileVisitor visitor -> visitor.visitFile(stubFileVisitDetails('class1')) }
+        1 * detector.processTestClass(_) >> { throw failure }
+        1 * detector.stopDetection()
+
+        cleanup:
+        executorFactory.stop()
+    }
+
     FileVisitDetails stubFileVisitDetails(String className) {
         return new DefaultFileVisitDetails(new File("${className}.class"), new RelativePath(false, "${className}.class"), null, null, null)
     }
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.detection
+
+import org.gradle.internal.hash.Hashing
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class TestClassDetectionCacheTest extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+
+    def cache = new TestClassDetectionCache()
+    def classpath = Hashing.hashString("classpath")
+    def classFile = ClassFileLocation.file(tmpDir.createFile("SuperTest.class"))
+
+    def "returns result for the same detector and classpath"() {
+        when:
+        cache.put("detector", classpath, classFile, true, [classFile])
+
+        then:
+        cache.get("detector", classpath, classFile).test
+        cache.get("other-detector", classpath, classFile) == null
+        cache.get("detector", Hashing.hashString("other-classpath"), classFile) == null
+    }
+
+    def "discards result when a class file it was derived from has changed"() {
+        def superClassFile = ClassFileLocation.file(tmpDir.file("AbstractTest.class") << "class")
+        cache.put("detector", classpath, classFile, true, [classFile, superClassFile])
+
+        when:
+        tmpDir.file("AbstractTest.class") << "changed"
+
+        then:
+        cache.get("detector", classpath, classFile) == null
+    }
+}
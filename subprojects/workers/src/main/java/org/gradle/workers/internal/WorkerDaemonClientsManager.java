@@ -24,6 +24,8 @@
 import org.gradle.api.logging.Logging;
 import org.gradle.internal.session.BuildSessionLifecycleListener;
 import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
 import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.exceptions.DefaultMultiCauseException;
@@ -31,14 +33,22 @@
 import org.gradle.internal.logging.events.LogLevelChangeEvent;
 import org.gradle.internal.logging.events.OutputEvent;
 import org.gradle.internal.logging.events.OutputEventListener;
+import org.gradle.process.internal.health.memory.MaximumHeapHelper;
+import org.gradle.process.internal.health.memory.MemoryAmount;
 import org.gradle.process.internal.health.memory.MemoryManager;
 import org.gradle.process.internal.health.memory.OsMemoryInfo;
+import org.gradle.process.internal.health.memory.OsMemoryStatus;
 import org.gradle.process.internal.worker.WorkerProcess;
 import org.gradle.util.internal.CollectionUtils;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 import static java.util.Comparator.*;
 
@@ -46,9 +56,17 @@ public class WorkerDaemonClientsManager implements Stoppable {
 
     private static final Logger LOGGER = Logging.getLogger(WorkerDaemonClientsManager.class);
 
+    /**
+     * When set, the session-scoped worker daemons used by the previous build session are started in the background when the next session first requests a worker daemon.
+     */
+    public static final String PRESTART_PROPERTY = "org.gradle.internal.workers.prestart";
+    private static final int MAX_RECENT_FORK_OPTIONS = 8;
+
     private final Object lock = new Object();
     private final List<WorkerDaemonClient> allClients = new ArrayList<WorkerDaemonClient>();
     private final List<WorkerDaemonClient> idleClients = new ArrayList<WorkerDaemonClient>();
+    private final List<PrestartingClient> prestartingClients = new ArrayList<PrestartingClient>();
+    private final LinkedList<RecentForkOptions> recentForkOptions = new LinkedList<RecentForkOptions>();
     private final Action<WorkerProcess> workerProcessCleanupAction = new WorkerProcessCleanupAction();
 
     private final WorkerDaemonStarter workerDaemonStarter;
@@ -59,10 +77,14 @@ public class WorkerDaemonClientsManager implements Stoppable {
     private final OutputEventListener logLevelChangeEventListener;
     private final WorkerDaemonExpiration workerDaemonExpiration;
     private final MemoryManager memoryManager;
+    private final ExecutorFactory executorFactory;
+    private ManagedExecutor prestartExecutor;
+    private boolean prestartRequested;
     private volatile LogLevel currentLogLevel;
 
-    public WorkerDaemonClientsManager(WorkerDaemonStarter workerDaemonStarter, ListenerManager listenerManager, LoggingManagerInternal loggingManager, MemoryManager memoryManager, OsMemoryInfo memoryInfo) {
+    public WorkerDaemonClientsManager(WorkerDaemonStarter workerDaemonStarter, ListenerManager listenerManager, LoggingManagerInternal loggingManager, MemoryManager memoryManager, OsMemoryInfo memoryInfo, ExecutorFactory executorFactory) {
         this.workerDaemonStarter = workerDaemonStarter;
+        this.executorFactory = executorFactory;
         this.listenerManager = listenerManager;
         this.loggingManager = loggingManager;
         this.memoryInfo = memoryInfo;
@@ -78,6 +100,7 @@ public WorkerDaemonClientsManager(WorkerDaemonStarter workerDaemonStarter, Liste
 
     // TODO - should supply and check for the same parameters as passed to reserveNewClient()
     public WorkerDaemonClient reserveIdleClient(DaemonForkOptions forkOptions) {
+        maybePrestartRecentlyUsedClients();
         return reserveIdleClient(forkOptions, idleClients);
     }
 
@@ -102,6 +125,19 @@ WorkerDaemonClient reserveIdleClient(DaemonForkOptions forkOptions, List<WorkerD
     }
 
     public WorkerDaemonClient reserveNewClient(DaemonForkOptions forkOptions) {
+        PrestartingClient prestartingClient = reservePrestartingClient(forkOptions);
+        if (prestartingClient != null) {
+            WorkerDaemonClient client = prestartingClient.await();
+            if (client != null) {
+                if (client.getLogLevel() == currentLogLevel) {
+                    return client;
+                }
+                LOGGER.info("Log level has changed, stopping prestarted worker daemon with out-of-date log level.");
+                synchronized (lock) {
+                    stopWorkers(Collections.singletonList(client));
+                }
+            }
+        }
         //allow the daemon to be started concurrently
         WorkerDaemonClient client = workerDaemonStarter.startDaemon(forkOptions, workerProcessCleanupAction);
         synchronized (lock) {
@@ -120,6 +156,7 @@ public void release(WorkerDaemonClient client) {
 
     @Override
     public void stop() {
+        stopPrestarting();
         synchronized (lock) {
             stopWorkers(allClients);
             allClients.clear();
@@ -131,6 +168,146 @@ public void stop() {
         loggingManager.removeOutputEventListener(logLevelChangeEventListener);
     }
 
+    private void maybePrestartRecentlyUsedClients() {
+        synchronized (lock) {
+            if (!prestartRequested) {
+                return;
+            }
+            prestartRequested = false;
+        }
+        prestartRecentlyUsedClients();
+    }
+
+    /**
+     * Starts the worker daemons used by the previous sessions in the background, most recently used first, as long as their maximum heap fits in the free memory.
+     */
+    private void prestartRecentlyUsedClients() {
+        long availableMemory = getMemoryAvailableForPrestarting();
+        synchronized (lock) {
+            for (RecentForkOptions recent : recentForkOptions) {
+                int count = recent.count - countClientsCompatibleWith(recent.forkOptions);
+                for (int i = 0; i < count; i++) {
+                    long maxHeapSize = getMaxHeapSize(recent.forkOptions);
+                    if (maxHeapSize > availableMemory) {
+                        return;
+                    }
+                    availableMemory -= maxHeapSize;
+                    if (prestartExecutor == null) {
+                        prestartExecutor = executorFactory.create("Worker daemon prestarter");
+                    }
+                    PrestartingClient prestartingClient = new PrestartingClient(recent.forkOptions);
+                    prestartingClients.add(prestartingClient);
+                    prestartExecutor.execute(prestartingClient.start);
+                }
+            }
+        }
+    }
+
+    private PrestartingClient reservePrestartingClient(DaemonForkOptions forkOptions) {
+        synchronized (lock) {
+            Iterator<PrestartingClient> it = prestartingClients.iterator();
+            while (it.hasNext()) {
+                PrestartingClient candidate = it.next();
+                if (candidate.forkOptions.isCompatibleWith(forkOptions)) {
+                    it.remove();
+                    return candidate;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Cancels the prestarts which have not started yet and waits for the others to complete.
+     */
+    private void stopPrestarting() {
+        ManagedExecutor prestartExecutor;
+        synchronized (lock) {
+            prestartRequested = false;
+            for (PrestartingClient prestartingClient : prestartingClients) {
+                prestartingClient.start.cancel(false);
+            }
+            prestartingClients.clear();
+            prestartExecutor = this.prestartExecutor;
+            this.prestartExecutor = null;
+        }
+        // Do not hold lock while waiting for the daemons being started, as they need to acquire the lock to register themselves
+        if (prestartExecutor != null) {
+            prestartExecutor.stop();
+        }
+    }
+
+    private int countClientsCompatibleWith(DaemonForkOptions forkOptions) {
+        int count = 0;
+        for (WorkerDaemonClient client : allClients) {
+            if (client.isCompatibleWith(forkOptions)) {
+                count++;
+            }
+        }
+        for (PrestartingClient prestartingClient : prestartingClients) {
+            if (prestartingClient.forkOptions.isCompatibleWith(forkOptions)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Remembers the fork options of the session-scoped daemons that were used in the session, evicting the least recently used fork options.
+     */
+    private void recordUsedClients(List<WorkerDaemonClient> sessionScopedClients) {
+        List<RecentForkOptions> used = new ArrayList<RecentForkOptions>();
+        for (WorkerDaemonClient client : sessionScopedClients) {
+            if (client.getUses() == 0) {
+                continue;
+            }
+            DaemonForkOptions forkOptions = client.getForkOptions();
+            RecentForkOptions compatible = findCompatible(used, forkOptions);
+            if (compatible != null) {
+                compatible.count++;
+            } else {
+                used.add(new RecentForkOptions(forkOptions));
+            }
+        }
+        for (RecentForkOptions recent : used) {
+            RecentForkOptions previous = findCompatible(recentForkOptions, recent.forkOptions);
+            if (previous != null) {
+                recentForkOptions.remove(previous);
+            }
+        }
+        recentForkOptions.addAll(0, used);
+        while (recentForkOptions.size() > MAX_RECENT_FORK_OPTIONS) {
+            recentForkOptions.removeLast();
+        }
+    }
+
+    private static RecentForkOptions findCompatible(List<RecentForkOptions> candidates, DaemonForkOptions forkOptions) {
+        for (RecentForkOptions candidate : candidates) {
+            if (candidate.forkOptions.isCompatibleWith(forkOptions)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private long getMemoryAvailableForPrestarting() {
+        try {
+            OsMemoryStatus memoryStatus = memoryInfo.getOsSnapshot();
+            // Leave a quarter of the memory free, so the prestarted daemons are not expired right away to release memory
+            return memoryStatus.getFreePhysicalMemory() - memoryStatus.getTotalPhysicalMemory() / 4;
+        } catch (UnsupportedOperationException e) {
+            return 0;
+        }
+    }
+
+    private long getMaxHeapSize(DaemonForkOptions forkOptions) {
+        long maxHeapSize = MemoryAmount.parseNotation(forkOptions.getJavaForkOptions().getMaxHeapSize());
+        if (maxHeapSize != -1) {
+            return maxHeapSize;
+        }
+        return new MaximumHeapHelper().getDefaultMaximumHeapSize(getTotalPhysicalMemory());
+    }
+
     private long getTotalPhysicalMemory() {
         try {
             return memoryInfo.getOsSnapshot().getTotalPhysicalMemory();
@@ -181,15 +358,81 @@ private void stopWorkers(List<WorkerDaemonClient> clientsToStop) {
     }
 
     private class StopSessionScopedWorkers implements BuildSessionLifecycleListener {
+        @Override
+        public void afterStart() {
+            synchronized (lock) {
+                // Only prestart the daemons once the session requests one, so sessions which do not use worker daemons do not start any
+                prestartRequested = Boolean.getBoolean(PRESTART_PROPERTY);
+            }
+        }
+
         @Override
         public void beforeComplete() {
+            stopPrestarting();
             synchronized (lock) {
                 List<WorkerDaemonClient> sessionScopedClients = CollectionUtils.filter(allClients, client -> client.getKeepAliveMode() == KeepAliveMode.SESSION);
+                recordUsedClients(sessionScopedClients);
                 stopWorkers(sessionScopedClients);
             }
         }
     }
 
+    /**
+     * A worker daemon being started in the background, which is registered as idle once started unless a worker reserved it in the meantime.
+     */
+    private class PrestartingClient {
+        private final DaemonForkOptions forkOptions;
+        private final FutureTask<WorkerDaemonClient> start;
+
+        PrestartingClient(DaemonForkOptions forkOptions) {
+            this.forkOptions = forkOptions;
+            this.start = new FutureTask<WorkerDaemonClient>(this::startClient);
+        }
+
+        private WorkerDaemonClient startClient() {
+            WorkerDaemonClient client;
+            try {
+                client = workerDaemonStarter.startDaemon(forkOptions, workerProcessCleanupAction);
+            } catch (Exception e) {
+                // The daemon is started again when it is needed, which reports the failure
+                LOGGER.debug("Could not prestart worker daemon with fork options {}.", forkOptions, e);
+                synchronized (lock) {
+                    prestartingClients.remove(this);
+                }
+                return null;
+            }
+            synchronized (lock) {
+                allClients.add(client);
+                if (prestartingClients.remove(this)) {
+                    idleClients.add(client);
+                }
+            }
+            return client;
+        }
+
+        /**
+         * Waits for the daemon to be started, returns null when it could not be started.
+         */
+        WorkerDaemonClient await() {
+            try {
+                return start.get();
+            } catch (CancellationException e) {
+                return null;
+            } catch (InterruptedException | ExecutionException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+    }
+
+    private static class RecentForkOptions {
+        private final DaemonForkOptions forkOptions;
+        private int count = 1;
+
+        RecentForkOptions(DaemonForkOptions forkOptions) {
+            this.forkOptions = forkOptions;
+        }
+    }
+
     private class LogLevelChangeEventListener implements OutputEventListener {
         @Override
         public void onOutput(OutputEvent event) {
@@ -19,6 +19,8 @@ package org.gradle.workers.internal
 import org.gradle.api.Transformer
 import org.gradle.api.logging.LogLevel
 import org.gradle.internal.session.BuildSessionLifecycleListener
+import org.gradle.internal.concurrent.ExecutorFactory
+import org.gradle.internal.concurrent.ManagedExecutor
 import org.gradle.internal.event.DefaultListenerManager
 import org.gradle.internal.event.ListenerManager
 import org.gradle.internal.exceptions.DefaultMultiCauseException
@@ -26,10 +28,16 @@ import org.gradle.internal.logging.LoggingManagerInternal
 import org.gradle.internal.logging.events.LogLevelChangeEvent
 import org.gradle.internal.logging.events.OutputEventListener
 import org.gradle.internal.service.scopes.Scopes
+import org.gradle.process.JavaForkOptions
 import org.gradle.process.internal.ExecException
 import org.gradle.process.internal.health.memory.MBeanOsMemoryInfo
+import org.gradle.process.internal.health.memory.MemoryAmount
 import org.gradle.process.internal.health.memory.MemoryManager
+import org.gradle.process.internal.health.memory.OsMemoryInfo
+import org.gradle.process.internal.health.memory.OsMemoryStatusSnapshot
 import org.gradle.util.ConcurrentSpecification
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
 import spock.lang.Subject
 
 class WorkerDaemonClientsManagerTest extends ConcurrentSpecification {
@@ -38,9 +46,17 @@ class WorkerDaemonClientsManagerTest extends ConcurrentSpecification {
     def listenerManager = Stub(ListenerManager)
     def loggingManager = Stub(LoggingManagerInternal)
     def memoryManager = Mock(MemoryManager)
+    def executorFactory = Stub(ExecutorFactory) {
+        create(_) >> Stub(ManagedExecutor) {
+            execute(_) >> { Runnable action -> action.run() }
+        }
+    }
+
+    @Rule
+    SetSystemProperties systemProperties = new SetSystemProperties()
 
     @Subject
-        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo())
+        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo(), executorFactory)
 
     def "does not reserve idle client when no clients"() {
         expect:
@@ -149,7 +165,7 @@ class WorkerDaemonClientsManagerTest extends ConcurrentSpecification {
 
     def "can stop session-scoped clients"() {
         listenerManager = new DefaultListenerManager(Scopes.BuildSession)
-        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo())
+        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo(), executorFactory)
         def client1 = Mock(WorkerDaemonClient)
         def client2 = Mock(WorkerDaemonClient)
         starter.startDaemon(options, _) >>> [client1, client2]
@@ -168,7 +184,7 @@ class WorkerDaemonClientsManagerTest extends ConcurrentSpecification {
 
     def "Stopping session-scoped clients does not stop other clients"() {
         listenerManager = new DefaultListenerManager(Scopes.BuildSession)
-        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo())
+        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo(), executorFactory)
         def client1 = Mock(WorkerDaemonClient)
         def client2 = Mock(WorkerDaemonClient)
         starter.startDaemon(options, _) >>> [client1, client2]
@@ -216,7 +232,7 @@ class WorkerDaemonClientsManagerTest extends ConcurrentSpecification {
         loggingManager.getLevel() >> LogLevel.INFO
 
         when:
-        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo())
+        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo(), executorFactory)
 
         then:
         listener != null
@@ -293,7 +309,7 @@ class WorkerDaemonClientsManagerTest extends ConcurrentSpecification {
         WorkerDaemonExpiration workerDaemonExpiration
 
         when:
-        def manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo())
+        def manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo(), executorFactory)
 
         then:
         1 * memoryManager.addMemoryHolder(_) >> { args -> workerDaemonExpiration = args[0] }
@@ -304,4 +320,199 @@ class WorkerDaemonClientsManagerTest extends ConcurrentSpecification {
         then:
         1 * memoryManager.removeMemoryHolder(_) >> { args -> assert args[0] == workerDaemonExpiration }
     }
+
+    def "prestarts the session-scoped clients used in the previous session when enabled"() {
+        listenerManager = new DefaultListenerManager(Scopes.BuildSession)
+        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, memoryInfo(MemoryAmount.parseNotation("16g")), executorFactory)
+        def forkOptions = sessionForkOptions("512m")
+        def usedClient = Mock(WorkerDaemonClient) {
+            getKeepAliveMode() >> KeepAliveMode.SESSION
+            getForkOptions() >> forkOptions
+            getUses() >> 3
+        }
+        def prestartedClient = Mock(WorkerDaemonClient) {
+            isCompatibleWith(_) >> true
+            getLogLevel() >> LogLevel.DEBUG
+        }
+        starter.startDaemon(_, _) >>> [usedClient, prestartedClient]
+        System.setProperty(WorkerDaemonClientsManager.PRESTART_PROPERTY, "true")
+
+        when:
+        manager.reserveNewClient(forkOptions)
+        listenerManager.getBroadcaster(BuildSessionLifecycleListener).beforeComplete()
+        listenerManager.getBroadcaster(BuildSessionLifecycleListener).afterStart()
+
+        then:
+        manager.reserveIdleClient(forkOptions) == prestartedClient
+    }
+
+    def "does not prestart clients when not enabled"() {
+        listenerManager = new DefaultListenerManager(Scopes.BuildSession)
+        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, memoryInfo(MemoryAmount.parseNotation("16g")), executorFactory)
+        def forkOptions = sessionForkOptions("512m")
+        def usedClient = Mock(WorkerDaemonClient) {
+            getKeepAliveMode() >> KeepAliveMode.SESSION
+            getForkOptions() >> forkOptions
+            getUses() >> 3
+        }
+        starter.startDaemon(_, _) >> usedClient
+
+        when:
+        manager.reserveNewClient(forkOptions)
+        listenerManager.getBroadcaster(BuildSessionLifecycleListener).beforeComplete()
+        listenerManager.getBroadcaster(BuildSessionLifecycleListener).afterStart()
+
+        then:
+        manager.reserveIdleClient(forkOptions) == null
+    }
+
+    def "does not prestart clients that do not fit in the free memory"() {
+        listenerManager = new DefaultListenerManager(Scopes.BuildSession)
+        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, memoryInfo(MemoryAmount.parseNotation("1g")), executorFactory)
+        def forkOptions = sessionForkOptions("2g")
+        def usedClient = Mock(WorkerDaemonClient) {
+            getKeepAliveMode() >> KeepAliveMode.SESSION
+            getForkOptions() >> forkOptions
+            getUses() >> 3
+        }
+        starter.startDaemon(_, _) >> usedClient
+        System.setProperty(WorkerDaemonClientsManager.PRESTART_PROPERTY, "true")
+
+        when:
+        manager.reserveNewClient(forkOptions)
+        listenerManager.getBroadcaster(BuildSessionLifecycleListener).beforeComplete()
+        listenerManager.getBroadcaster(BuildSessionLifecycleListener).afterStart()
+
+        then:
+        manager.reserveIdleClient(forkOptions) == null
+    }
+
+    def "does not prestart clients until a worker daemon is requested"() {
+        listenerManager = new DefaultListenerManager(Scopes.BuildSession)
+        def starter = Mock(WorkerDaemonStarter)
+        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, memoryInfo(MemoryAmount.parseNotation("16g")), executorFactory)
+        def forkOptions = sessionForkOptions("512m")
+        def usedClient = Mock(WorkerDaemonClient) {
+            getKeepAliveMode() >> KeepAliveMode.SESSION
+            getForkOptions() >> forkOptions
+            getUses() >> 3
+        }
+        def prestartedClient = Mock(WorkerDaemonClient) {
+            isCompatibleWith(_) >> true
+            getLogLevel() >> LogLevel.DEBUG
+        }
+        System.setProperty(WorkerDaemonClientsManager.PRESTART_PROPERTY, "true")
+
+        when:
+        manager.reserveNewClient(forkOptions)
+        listenerManager.getBroadcaster(BuildSessionLifecycleListener).beforeComplete()
+        listenerManager.getBroadcaster(BuildSessionLifecycleListener).afterStart()
+
+        then:
+        1 * starter.startDaemon(_, _) >> usedClient
+
+        when:
+        listenerManager.getBroadcaster(BuildSessionLifecycleListener).beforeComplete()
+        listenerManager.getBroadcaster(BuildSessionLifecycleListener).afterStart()
+
+        then:
+        0 * starter.startDaemon(_, _)
+
+        when:
+        def client = manager.reserveIdleClient(forkOptions)
+
+        then:
+        1 * starter.startDaemon(_, _) >> prestartedClient
+        client == prestartedClient
+    }
+
+    def "reserves a client being prestarted instead of starting another one"() {
+        listenerManager = new DefaultListenerManager(Scopes.BuildSession)
+        def prestarts = []
+        def executorFactory = Stub(ExecutorFactory) {
+            create(_) >> Stub(ManagedExecutor) {
+                execute(_) >> { Runnable action -> prestarts << action }
+            }
+        }
+        def starter = Mock(WorkerDaemonStarter)
+        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, memoryInfo(MemoryAmount.parseNotation("16g")), executorFactory)
+        def forkOptions = sessionForkOptions("512m")
+        def usedClient = Mock(WorkerDaemonClient) {
+            getKeepAliveMode() >> KeepAliveMode.SESSION
+            getForkOptions() >> forkOptions
+            getUses() >> 3
+        }
+        def prestartedClient = Mock(WorkerDaemonClient) {
+            isCompatibleWith(_) >> true
+            getLogLevel() >> LogLevel.DEBUG
+        }
+        System.setProperty(WorkerDaemonClientsManager.PRESTART_PROPERTY, "true")
+
+        when:
+        manager.reserveNewClient(forkOptions)
+        listenerManager.getBroadcaster(BuildSessionLifecycleListener).beforeComplete()
+        listenerManager.getBroadcaster(BuildSessionLifecycleListener).afterStart()
+        def idleClient = manager.reserveIdleClient(forkOptions)
+        start {
+            Thread.sleep(100)
+            prestarts.each { it.run() }
+        }
+        def client = manager.reserveIdleClient(forkOptions) ?: manager.reserveNewClient(forkOptions)
+        finished()
+
+        then:
+        2 * starter.startDaemon(_, _) >>> [usedClient, prestartedClient]
+        prestarts.size() == 1
+        idleClient == null
+        client == prestartedClient
+        manager.reserveIdleClient(forkOptions) == null
+    }
+
+    def "cancels the prestarts which did not start at the end of the session"() {
+        listenerManager = new DefaultListenerManager(Scopes.BuildSession)
+        def prestarts = []
+        def executorFactory = Stub(ExecutorFactory) {
+            create(_) >> Stub(ManagedExecutor) {
+                execute(_) >> { Runnable action -> prestarts << action }
+            }
+        }
+        def starter = Mock(WorkerDaemonStarter)
+        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, memoryInfo(MemoryAmount.parseNotation("16g")), executorFactory)
+        def forkOptions = sessionForkOptions("512m")
+        def usedClient = Mock(WorkerDaemonClient) {
+            getKeepAliveMode() >> KeepAliveMode.SESSION
+            getForkOptions() >> forkOptions
+            getUses() >> 3
+        }
+        System.setProperty(WorkerDaemonClientsManager.PRESTART_PROPERTY, "true")
+
+        when:
+        manager.reserveNewClient(forkOptions)
+        listenerManager.getBroadcaster(BuildSessionLifecycleListener).beforeComplete()
+        listenerManager.getBroadcaster(BuildSessionLifecycleListener).afterStart()
+        manager.reserveIdleClient(forkOptions)
+        listenerManager.getBroadcaster(BuildSessionLifecycleListener).beforeComplete()
+        prestarts.each { it.run() }
+
+        then:
+        1 * starter.startDaemon(_, _) >> usedClient
+        prestarts.size() == 1
+        manager.reserveIdleClient(forkOptions) == null
+    }
+
+    private OsMemoryInfo memoryInfo(long freeMemory) {
+        return Stub(OsMemoryInfo) {
+            getOsSnapshot() >> new OsMemoryStatusSnapshot(freeMemory * 2, freeMemory)
+        }
+    }
+
+    private DaemonForkOptions sessionForkOptions(String maxHeapSize) {
+        return Stub(DaemonForkOptions) {
+            isCompatibleWith(_) >> true
+            getKeepAliveMode() >> KeepAliveMode.SESSION
+            getJavaForkOptions() >> Stub(JavaForkOptions) {
+                getMaxHeapSize() >> maxHeapSize
+            }
+        }
+    }
 }